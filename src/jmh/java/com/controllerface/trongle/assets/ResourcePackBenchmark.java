@@ -0,0 +1,107 @@
+package com.controllerface.trongle.assets;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/// Compares loading every game resource at startup from a jar, one classpath lookup and inflate per resource, against
+/// opening a resource pack and reading every resource from the mapping. Both sources are built from the resource
+/// directory on the benchmark classpath, and each invocation reads every byte of every resource, so the pack is not
+/// credited for pages it never touches.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+public class ResourcePackBenchmark
+{
+    private Path temp_dir;
+    private Path jar;
+    private Path pack;
+    private List<String> paths;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, URISyntaxException
+    {
+        var root = Path.of(ResourcePackBenchmark.class.getResource("/models").toURI()).getParent();
+
+        temp_dir = Files.createTempDirectory("trongle-resources");
+        jar = temp_dir.resolve("resources.jar");
+        pack = temp_dir.resolve("resources.pack");
+
+        try (var walk = Files.walk(root))
+        {
+            paths = walk.filter(Files::isRegularFile)
+                .map(file -> "/" + root.relativize(file).toString().replace('\\', '/'))
+                .sorted()
+                .toList();
+        }
+
+        try (var out = new ZipOutputStream(Files.newOutputStream(jar)))
+        {
+            for (var path : paths)
+            {
+                out.putNextEntry(new ZipEntry(path.substring(1)));
+                out.write(Files.readAllBytes(root.resolve(path.substring(1))));
+                out.closeEntry();
+            }
+        }
+
+        ResourcePack.write(root, pack);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException
+    {
+        Files.deleteIfExists(jar);
+        Files.deleteIfExists(pack);
+        Files.deleteIfExists(temp_dir);
+    }
+
+    @Benchmark
+    public void jar_classpath(Blackhole blackhole) throws IOException
+    {
+        try (var loader = new URLClassLoader(new URL[]{ jar.toUri().toURL() }, null))
+        {
+            for (var path : paths)
+            {
+                try (var stream = loader.getResourceAsStream(path.substring(1)))
+                {
+                    blackhole.consume(stream.readAllBytes());
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void resource_pack(Blackhole blackhole) throws IOException
+    {
+        try (var resource_pack = ResourcePack.open(pack))
+        {
+            for (var path : paths)
+            {
+                var buffer = resource_pack.get(path);
+                long sum = 0;
+                while (buffer.remaining() >= Long.BYTES)
+                {
+                    sum += buffer.getLong();
+                }
+                while (buffer.hasRemaining())
+                {
+                    sum += buffer.get();
+                }
+                blackhole.consume(sum);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.controllerface.trongle.behavior;
+
+import org.joml.Vector3d;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/// Measures one execution of a [BehaviorExecutor] over a swarm whose behaviors each do flocking-sized work: every
+/// entity reads the positions of a fixed set of neighbors, steers away from the close ones and toward the group's
+/// center, and writes only its own heading, with every behavior due on every execution and the budget out of the way.
+/// Run it across `parallelism` to see how the executor scales with the thread count; the wandering swarm in
+/// `BehaviorSystemBenchmark` does too little per entity to show that.
+@State(Scope.Benchmark)
+public class BehaviorExecutorBenchmark
+{
+    private static final double DT = 1.0 / 60.0;
+    private static final int NEIGHBORS = 32;
+    private static final double AREA = 2048.0;
+    private static final double SEPARATION = 64.0;
+    private static final long UNBOUNDED_US = 60_000_000L;
+
+    @Param({"10000"})
+    public int entity_count;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private ForkJoinPool pool;
+    private BehaviorExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        var random = new SplittableRandom(42);
+        var positions = new Vector3d[entity_count];
+        for (int i = 0; i < entity_count; i++)
+        {
+            positions[i] = new Vector3d(random.nextDouble(-AREA, AREA), 0.0, random.nextDouble(-AREA, AREA));
+        }
+
+        pool = new ForkJoinPool(parallelism);
+        executor = new BehaviorExecutor(pool, 256, UNBOUNDED_US, AREA, 1.0);
+        for (int i = 0; i < entity_count; i++)
+        {
+            var neighbors = new Vector3d[NEIGHBORS];
+            for (int n = 0; n < NEIGHBORS; n++)
+            {
+                neighbors[n] = positions[random.nextInt(entity_count)];
+            }
+            executor.add(new Flock(positions[i], neighbors), 1, positions[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tear_down()
+    {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public int execute()
+    {
+        executor.execute(DT, null, null);
+        return executor.last_run_count();
+    }
+
+    /// Separation and cohesion over a fixed neighbor set, reading shared positions and writing only its own heading.
+    private static final class Flock implements BoundBehavior
+    {
+        private final Vector3d position;
+        private final Vector3d[] neighbors;
+        private final Vector3d heading = new Vector3d();
+
+        private Flock(Vector3d position, Vector3d[] neighbors)
+        {
+            this.position = position;
+            this.neighbors = neighbors;
+        }
+
+        @Override
+        public void behave(double dt)
+        {
+            double away_x = 0.0, away_z = 0.0, center_x = 0.0, center_z = 0.0;
+            for (var neighbor : neighbors)
+            {
+                double dx = neighbor.x - position.x;
+                double dz = neighbor.z - position.z;
+                center_x += dx;
+                center_z += dz;
+
+                double distance = Math.sqrt(dx * dx + dz * dz);
+                if (distance > 0.0 && distance < SEPARATION)
+                {
+                    double push = (SEPARATION - distance) / (SEPARATION * distance);
+                    away_x -= dx * push;
+                    away_z -= dz * push;
+                }
+            }
+            double steer_x = center_x / neighbors.length * 0.01 + away_x;
+            double steer_z = center_z / neighbors.length * 0.01 + away_z;
+            double angle = Math.atan2(steer_x, steer_z);
+            heading.set(Math.sin(angle), 0.0, Math.cos(angle)).mul(dt);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.controllerface.trongle.behavior;
+
+import com.juncture.alloy.utils.math.Ray3d;
+import org.joml.Matrix4d;
+import org.joml.Vector3d;
+import org.openjdk.jmh.annotations.*;
+
+/// Measures the mouse ray projection done by [PlayerBehavior] each frame, which includes two 4x4 matrix inversions.
+@State(Scope.Thread)
+public class PlayerAimingBenchmark
+{
+    private final PlayerBehavior behavior = new PlayerBehavior();
+    private final Matrix4d projection = new Matrix4d();
+    private final Matrix4d view = new Matrix4d();
+    private final Vector3d origin = new Vector3d(0.0, 250.0, 0.0);
+
+    private Ray3d mouse_ray;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        mouse_ray = Ray3d.generate_empty("benchmark");
+        projection.setPerspective(Math.toRadians(60.0), 16.0 / 9.0, 0.1, 32_768.0);
+        view.setLookAt(origin.x, origin.y, origin.z, 0.0, 0.0, 1.0, 0.0, 1.0, 0.0);
+    }
+
+    @Benchmark
+    public Ray3d cast_mouse_ray()
+    {
+        behavior.cast_mouse_ray(mouse_ray, 0.25f, -0.5f, projection, view, origin);
+        return mouse_ray;
+    }
+}
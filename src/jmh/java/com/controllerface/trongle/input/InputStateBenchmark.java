@@ -0,0 +1,42 @@
+package com.controllerface.trongle.input;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import static org.lwjgl.glfw.GLFW.GLFW_KEY_A;
+import static org.lwjgl.glfw.GLFW.GLFW_MOUSE_BUTTON_3;
+
+@State(Scope.Thread)
+public class InputStateBenchmark
+{
+    private final InputState input_state = new InputState();
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        input_state.key_press(GLFW_KEY_A);
+        input_state.mouse_press(GLFW_MOUSE_BUTTON_3);
+    }
+
+    @Benchmark
+    public boolean is_active_key()
+    {
+        return input_state.is_active(InputBinding.MOVE_LEFT);
+    }
+
+    @Benchmark
+    public boolean is_active_mouse()
+    {
+        return input_state.is_active(InputBinding.CAMERA_ADJUST);
+    }
+
+    /// Checks every binding once, which is roughly what a frame of behavior and mode updates does.
+    @Benchmark
+    public void is_active_all(Blackhole blackhole)
+    {
+        for (var binding : InputBinding.values())
+        {
+            blackhole.consume(input_state.is_active(binding));
+        }
+    }
+}
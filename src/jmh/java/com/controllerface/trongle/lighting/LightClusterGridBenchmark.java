@@ -0,0 +1,75 @@
+package com.controllerface.trongle.lighting;
+
+import org.joml.Matrix4f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/// Measures one build of the light cluster grid, with the game's grid dimensions, for lights scattered over the ground
+/// around a camera looking toward the horizon, which leaves the most lights in view and spreads them across the most
+/// slices. One light in ten is a spot light. With enough lights, the score should drop as `parallelism` goes up to the
+/// core count.
+@State(Scope.Benchmark)
+public class LightClusterGridBenchmark
+{
+    private static final float AREA = 4096.0f;
+
+    @Param({"1000", "2500", "5000", "10000"})
+    public int light_count;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private final Matrix4f projection = new Matrix4f();
+    private final Matrix4f view = new Matrix4f();
+
+    private ForkJoinPool pool;
+    private LightClusterGrid grid;
+    private float[] points;
+    private float[] spots;
+    private int point_count;
+    private int spot_count;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        pool = new ForkJoinPool(parallelism);
+        grid = new LightClusterGrid(16, 9, 24, 128, pool);
+        projection.setPerspective((float) Math.toRadians(60.0), 16.0f / 9.0f, 0.1f, 32_768.0f);
+        view.setLookAt(0.0f, 200.0f, 0.0f, 1000.0f, 0.0f, 1000.0f, 0.0f, 1.0f, 0.0f);
+        grid.set_projection(projection, 1.0f, 4096.0f);
+
+        spot_count = light_count / 10;
+        point_count = light_count - spot_count;
+        var random = new SplittableRandom(42);
+        points = scatter(random, point_count);
+        spots = scatter(random, spot_count);
+    }
+
+    private static float[] scatter(SplittableRandom random, int count)
+    {
+        var spheres = new float[count * 4];
+        for (int i = 0; i < count; i++)
+        {
+            spheres[i * 4]     = (float) random.nextDouble(-AREA, AREA);
+            spheres[i * 4 + 1] = (float) random.nextDouble(0.0, 50.0);
+            spheres[i * 4 + 2] = (float) random.nextDouble(-AREA, AREA);
+            spheres[i * 4 + 3] = (float) random.nextDouble(10.0, 80.0);
+        }
+        return spheres;
+    }
+
+    @TearDown(Level.Trial)
+    public void tear_down()
+    {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public int build()
+    {
+        grid.build(view, points, point_count, spots, spot_count);
+        return grid.light_count();
+    }
+}
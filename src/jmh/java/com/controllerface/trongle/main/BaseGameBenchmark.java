@@ -0,0 +1,101 @@
+package com.controllerface.trongle.main;
+
+import com.controllerface.trongle.behavior.BoundBehavior;
+import com.controllerface.trongle.behavior.TrongleEntityBehavior;
+import com.juncture.alloy.events.CoreEvent;
+import com.juncture.alloy.events.MessageEvent;
+import com.juncture.alloy.events.debug.DebugEvent;
+import com.juncture.alloy.events.debug.PositionEvent;
+import com.juncture.alloy.events.debug.ViewDebugEvent;
+import com.juncture.alloy.ui.TextContainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/// Benchmarks the per-frame work done by [BaseGame] and the player behavior, using a headless world so no window or GL
+/// context is required.
+///
+/// The HUD benchmarks alternate between two values and advance the clock they pass in by more than the longest slot
+/// interval every call, so each call takes the path where the shown text actually changes, rather than being held
+/// back by the slot's rate limit.
+@State(Scope.Thread)
+public class BaseGameBenchmark
+{
+    private static final double DT = 1.0 / 60.0;
+    private static final long HUD_STEP_NS = 1_000_000_000L;
+
+    private BaseGame base_game;
+    private BoundBehavior player_behavior;
+
+    private final Map<String, TextContainer> text_boxes = new HashMap<>();
+
+    private final PositionEvent[] position_events = {
+        new PositionEvent(DebugEvent.CAMERA_POSITION, "1024.0, 512.0, 0.0"),
+        new PositionEvent(DebugEvent.CAMERA_POSITION, "1025.5, 512.0, 0.5")
+    };
+    private final MessageEvent[] fps_events = {
+        new MessageEvent(CoreEvent.FPS, "144"),
+        new MessageEvent(CoreEvent.FPS, "143")
+    };
+    private final ViewDebugEvent[] pitch_events = {
+        new ViewDebugEvent(DebugEvent.VIEW_PITCH, -1.25f),
+        new ViewDebugEvent(DebugEvent.VIEW_PITCH, -1.26f)
+    };
+
+    private long hud_now = 0;
+    private int hud_step = 0;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        var simulation = new HeadlessSimulation();
+        base_game = simulation.base_game();
+        player_behavior = TrongleEntityBehavior.PLAYER.bind(simulation.world(), base_game.player_entity());
+        base_game.debug_hud_setup(text_boxes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tear_down()
+    {
+        base_game.destroy();
+    }
+
+    @Benchmark
+    public void update()
+    {
+        base_game.update(DT);
+    }
+
+    @Benchmark
+    public void player_behave()
+    {
+        player_behavior.behave(DT);
+    }
+
+    /// Moves the HUD clock past every slot's interval and returns which of the two values to show next.
+    private int next_hud_step()
+    {
+        hud_now += HUD_STEP_NS;
+        hud_step ^= 1;
+        return hud_step;
+    }
+
+    @Benchmark
+    public boolean process_hud_event_position()
+    {
+        return base_game.process_hud_event(text_boxes, position_events[next_hud_step()], hud_now);
+    }
+
+    @Benchmark
+    public boolean process_hud_event_fps()
+    {
+        return base_game.process_hud_event(text_boxes, fps_events[next_hud_step()], hud_now);
+    }
+
+    @Benchmark
+    public boolean process_hud_event_view()
+    {
+        return base_game.process_hud_event(text_boxes, pitch_events[next_hud_step()], hud_now);
+    }
+}
@@ -0,0 +1,65 @@
+package com.controllerface.trongle.menu;
+
+import com.controllerface.trongle.text.GlyphAtlas;
+import com.juncture.alloy.ui.SnapPosition;
+import com.juncture.alloy.ui.TextContainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.FloatBuffer;
+
+import static com.juncture.alloy.gpu.Constants.*;
+
+/// Benchmarks the glyph layout done by [MenuRenderer] through [TextLayout]. Only the atlas metrics are needed, so no GL
+/// context is created, and the measured layout writes into heap buffers.
+@State(Scope.Thread)
+public class MenuRendererBenchmark
+{
+    private static final int CAPACITY = 4 * RENDER_BATCH_SIZE;
+
+    private final FloatBuffer xy_buffer = FloatBuffer.allocate(TextLayout.FLOATS_PER_GLYPH_XY * CAPACITY);
+    private final FloatBuffer uv_buffer = FloatBuffer.allocate(TextLayout.FLOATS_PER_GLYPH_UV * CAPACITY);
+    private final FloatBuffer id_buffer = FloatBuffer.allocate(TextLayout.FLOATS_PER_GLYPH_ID * CAPACITY);
+
+    private final TextContainer fps_a = new TextContainer(SnapPosition.BOTTOM_RIGHT, "144", 100, 150, .75f);
+    private final TextContainer fps_b = new TextContainer(SnapPosition.BOTTOM_RIGHT, "143", 100, 150, .75f);
+
+    private GlyphAtlas atlas;
+    private TextLayout layout;
+    private boolean toggle;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        atlas = GlyphAtlas.acquire(MenuRenderer.FONT, MenuRenderer.GLYPH_SIZE);
+
+        layout = new TextLayout(atlas);
+        layout.put("title", new TextContainer(SnapPosition.CENTER, "Press ESC to resume", 50, 50, .75f));
+        layout.put("pos_label", new TextContainer(SnapPosition.TOP_LEFT, "- pos 1:  ", 100, 300, .75f));
+        layout.put("pos", new TextContainer(SnapPosition.TOP_LEFT, "1024.125, 512.5, 0.0", 350, 300, .75f));
+        layout.put("fps", fps_a);
+        layout.relayout();
+    }
+
+    @TearDown(Level.Trial)
+    public void tear_down()
+    {
+        atlas.release();
+    }
+
+    /// Full rebuild, as happens after a window resize.
+    @Benchmark
+    public int rebuild_hud()
+    {
+        layout.invalidate_all();
+        return layout.write_dirty(1920, 1080, xy_buffer, uv_buffer, id_buffer);
+    }
+
+    /// A single label changing, which only rewrites that label's glyph range.
+    @Benchmark
+    public int update_single_label()
+    {
+        toggle = !toggle;
+        layout.put("fps", toggle ? fps_b : fps_a);
+        return layout.write_dirty(1920, 1080, xy_buffer, uv_buffer, id_buffer);
+    }
+}
@@ -0,0 +1,73 @@
+package com.controllerface.trongle.systems;
+
+import com.controllerface.trongle.behavior.TrongleEntityBehavior;
+import com.juncture.alloy.data.MutableFloat;
+import com.juncture.alloy.ecs.BaseComponent;
+import com.juncture.alloy.ecs.ECSLayer;
+import com.juncture.alloy.ecs.ECSWorld;
+import com.juncture.alloy.events.EventBus;
+import com.juncture.alloy.physics.PhysicsComponent;
+import org.joml.Vector3d;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/// Measures one tick of the behavior system for a swarm of wandering entities in a headless world, each assigned the
+/// real [TrongleEntityBehavior#WANDER] behavior, so the score covers scheduling, the bound behavior and the merge of
+/// deferred effects. Wandering runs every fourth tick and does very little each time, so this is the cost of the
+/// system's own bookkeeping for a large swarm rather than a measure of parallel scaling, which
+/// `BehaviorExecutorBenchmark` measures with realistic per-entity work.
+@State(Scope.Benchmark)
+public class BehaviorSystemBenchmark
+{
+    private static final double DT = 1.0 / 60.0;
+
+    @Param({"10000"})
+    public int entity_count;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private ForkJoinPool pool;
+    private BehaviorSystem behaviors;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        var world = new ECSWorld(new EventBus());
+        var base_layer = new ECSLayer<>(BaseComponent.class);
+        var phys_layer = new ECSLayer<>(PhysicsComponent.class);
+        world.register(BaseComponent.class, base_layer);
+        world.register(PhysicsComponent.class, phys_layer);
+
+        pool = new ForkJoinPool(parallelism);
+        behaviors = new BehaviorSystem(world, pool);
+
+        var random = new SplittableRandom(42);
+        for (int i = 0; i < entity_count; i++)
+        {
+            var entity = world.new_entity();
+            phys_layer.set_component(entity, PhysicsComponent.Rotation,
+                new Vector3d(0.0, random.nextDouble(-Math.PI, Math.PI), 0.0));
+            phys_layer.set_component(entity, PhysicsComponent.Heading, new Vector3d());
+            phys_layer.set_component(entity, PhysicsComponent.Thrust, new MutableFloat(0.0f));
+            phys_layer.set_component(entity, PhysicsComponent.Yaw, new MutableFloat(0.0f));
+            phys_layer.set_component(entity, PhysicsComponent.MaxAngSpeed, new MutableFloat(10.0f));
+            behaviors.assign(entity, TrongleEntityBehavior.WANDER);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tear_down()
+    {
+        behaviors.shutdown();
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public void tick()
+    {
+        behaviors.tick(DT);
+    }
+}
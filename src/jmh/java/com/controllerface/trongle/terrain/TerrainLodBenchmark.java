@@ -0,0 +1,42 @@
+package com.controllerface.trongle.terrain;
+
+import org.joml.Matrix4f;
+import org.openjdk.jmh.annotations.*;
+
+/// Measures the per-frame patch culling and triangle estimate done by [TerrainLod], over the game's patch grid, from a
+/// camera looking straight down, as the game camera does, and from one looking toward the horizon, which leaves far
+/// more patches in view.
+@State(Scope.Thread)
+public class TerrainLodBenchmark
+{
+    private static final TerrainShape SHAPE = new TerrainShape(512.0f * 8, 128);
+
+    private final Matrix4f projection = new Matrix4f();
+    private final Matrix4f top_down = new Matrix4f();
+    private final Matrix4f horizon = new Matrix4f();
+
+    private TerrainLod lod;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        lod = new TerrainLod(SHAPE, -1015.0f, 2063.0f, 1.0f, 64.0f, 8.0f, 2_000_000);
+        projection.setPerspective((float) Math.toRadians(60.0), 16.0f / 9.0f, 0.1f, 32_768.0f);
+        projection.lookAt(0.0f, 500.0f, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f, -1.0f, top_down);
+        projection.lookAt(0.0f, 200.0f, 0.0f, 1000.0f, 0.0f, 1000.0f, 0.0f, 1.0f, 0.0f, horizon);
+    }
+
+    @Benchmark
+    public float top_down()
+    {
+        lod.update(top_down, projection.m11(), 1080, 0.0f, 500.0f, 0.0f);
+        return lod.level_scale();
+    }
+
+    @Benchmark
+    public float horizon()
+    {
+        lod.update(horizon, projection.m11(), 1080, 0.0f, 200.0f, 0.0f);
+        return lod.level_scale();
+    }
+}
@@ -0,0 +1,122 @@
+package com.controllerface.trongle.assets;
+
+import com.controllerface.trongle.metrics.jfr.AssetLoadEvent;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/// Loads assets in two stages. CPU-side work, like reading and parsing files, runs on a pool of virtual threads, and
+/// anything that needs the GL context is queued as an upload task, which is run on the GL thread by calling
+/// [#process_uploads(long)] once per frame. Uploads are run until a time budget is spent, so a large batch of assets is
+/// spread out across several frames instead of stalling a single one.
+///
+/// Futures returned by [#upload] are completed on the GL thread, so dependent stages chained onto them with the
+/// non-async `CompletableFuture` methods will also run on the GL thread. Futures returned by [#load] complete on a
+/// loader thread, and must not touch the GL context or the ECS world directly, use [#load_then_upload] instead.
+public class AssetLoader
+{
+    private static final Logger LOGGER = Logger.getLogger(AssetLoader.class.getName());
+
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Queue<Runnable> uploads = new ConcurrentLinkedQueue<>();
+
+    /// Runs the given loader on a virtual thread.
+    public <T> CompletableFuture<T> load(String kind, String asset, Callable<T> loader)
+    {
+        var future = new CompletableFuture<T>();
+        workers.execute(() ->
+        {
+            var event = new AssetLoadEvent();
+            event.kind = kind;
+            event.asset = asset;
+            event.begin();
+            try
+            {
+                future.complete(loader.call());
+            }
+            catch (Throwable t)
+            {
+                future.completeExceptionally(t);
+            }
+            finally
+            {
+                event.commit();
+            }
+        });
+        return future;
+    }
+
+    /// Queues the given uploader to run on the GL thread.
+    public <T> CompletableFuture<T> upload(String kind, String asset, Supplier<T> uploader)
+    {
+        var future = new CompletableFuture<T>();
+        uploads.add(() ->
+        {
+            try
+            {
+                future.complete(AssetLoadEvent.record(kind, asset, uploader));
+            }
+            catch (Throwable t)
+            {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /// Runs the given loader on a virtual thread, then hands its result to the given uploader on the GL thread.
+    public <T, R> CompletableFuture<R> load_then_upload(String kind,
+                                                        String asset,
+                                                        Callable<T> loader,
+                                                        Function<T, R> uploader)
+    {
+        return load(kind, asset, loader)
+            .thenCompose(loaded -> upload(kind, asset, () -> uploader.apply(loaded)));
+    }
+
+    /// Runs queued upload tasks until the queue is empty or the given budget has been spent. At least one task is run
+    /// if any are queued, so a single upload that is larger than the budget still makes progress. Must be called from
+    /// the GL thread. Returns the number of tasks run.
+    public int process_uploads(long budget_ns)
+    {
+        long start = System.nanoTime();
+        int count = 0;
+        Runnable next;
+        while ((next = uploads.poll()) != null)
+        {
+            next.run();
+            count++;
+            if (System.nanoTime() - start >= budget_ns) break;
+        }
+        return count;
+    }
+
+    /// Runs every queued upload task, including any queued by the tasks themselves, until nothing is left. Only for
+    /// use where blocking the GL thread is acceptable.
+    public void drain_uploads()
+    {
+        Runnable next;
+        while ((next = uploads.poll()) != null)
+        {
+            next.run();
+        }
+    }
+
+    public boolean has_uploads()
+    {
+        return !uploads.isEmpty();
+    }
+
+    public void shutdown()
+    {
+        workers.shutdownNow();
+        if (!uploads.isEmpty())
+        {
+            LOGGER.fine("Discarding " + uploads.size() + " pending uploads");
+            uploads.clear();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.controllerface.trongle.assets;
+
+import java.nio.ByteBuffer;
+
+/// Encodes RGB images into BC1 (DXT1) blocks, 8 bytes per 4x4 texel block, for a 6:1 reduction over RGB8. The encoder
+/// picks block endpoints from the bounding box of the block's colors, inset slightly so that outliers don't pull the
+/// whole palette away from the bulk of the block, then maps each texel to the nearest of the four palette colors.
+/// This is not as accurate as a least-squares fit, but it is fast, deterministic, and plenty for smooth sky textures.
+final class BC1Encoder
+{
+    static final int BLOCK_BYTES = 8;
+
+    private BC1Encoder() { }
+
+    /// Size in bytes of a BC1 image of the given dimensions. Images smaller than a block still take a whole block.
+    static int encoded_size(int width, int height)
+    {
+        return blocks(width) * blocks(height) * BLOCK_BYTES;
+    }
+
+    private static int blocks(int texels)
+    {
+        return Math.max(1, (texels + 3) / 4);
+    }
+
+    /// Encodes an image of packed `0xRRGGBB` texels, rows top to bottom, into the given buffer, which must have at
+    /// least [#encoded_size(int, int)] bytes remaining. Edge blocks of images that are not a multiple of 4 repeat their
+    /// last row and column.
+    static void encode(int[] rgb, int width, int height, ByteBuffer out)
+    {
+        var block = new int[16];
+        for (int by = 0; by < blocks(height); by++)
+        {
+            for (int bx = 0; bx < blocks(width); bx++)
+            {
+                for (int i = 0; i < 16; i++)
+                {
+                    int x = Math.min(bx * 4 + (i & 3), width - 1);
+                    int y = Math.min(by * 4 + (i >> 2), height - 1);
+                    block[i] = rgb[y * width + x];
+                }
+                encode_block(block, out);
+            }
+        }
+    }
+
+    private static void encode_block(int[] block, ByteBuffer out)
+    {
+        int min_r = 255, min_g = 255, min_b = 255;
+        int max_r = 0, max_g = 0, max_b = 0;
+        for (int texel : block)
+        {
+            int r = (texel >> 16) & 0xFF, g = (texel >> 8) & 0xFF, b = texel & 0xFF;
+            min_r = Math.min(min_r, r); max_r = Math.max(max_r, r);
+            min_g = Math.min(min_g, g); max_g = Math.max(max_g, g);
+            min_b = Math.min(min_b, b); max_b = Math.max(max_b, b);
+        }
+
+        // inset the box by 1/16th of its extent, as the endpoints of the quantized palette are rarely hit exactly
+        int inset_r = (max_r - min_r) >> 4, inset_g = (max_g - min_g) >> 4, inset_b = (max_b - min_b) >> 4;
+        int color0 = pack_565(max_r - inset_r, max_g - inset_g, max_b - inset_b);
+        int color1 = pack_565(min_r + inset_r, min_g + inset_g, min_b + inset_b);
+
+        // four color mode is selected by color0 > color1, equal endpoints mean the whole block is one color
+        if (color0 < color1)
+        {
+            int swap = color0;
+            color0 = color1;
+            color1 = swap;
+        }
+
+        int indices = 0;
+        if (color0 != color1)
+        {
+            var palette = palette(color0, color1);
+            for (int i = 0; i < 16; i++)
+            {
+                indices |= nearest(palette, block[i]) << (i * 2);
+            }
+        }
+
+        out.put((byte) color0).put((byte) (color0 >> 8));
+        out.put((byte) color1).put((byte) (color1 >> 8));
+        out.put((byte) indices).put((byte) (indices >> 8)).put((byte) (indices >> 16)).put((byte) (indices >> 24));
+    }
+
+    private static int pack_565(int r, int g, int b)
+    {
+        return ((r * 31 + 127) / 255) << 11 | ((g * 63 + 127) / 255) << 5 | ((b * 31 + 127) / 255);
+    }
+
+    /// The four palette colors as decoded by the GPU, in index order, as `r, g, b` triples.
+    private static int[] palette(int color0, int color1)
+    {
+        int r0 = expand(color0 >> 11, 31), g0 = expand((color0 >> 5) & 0x3F, 63), b0 = expand(color0 & 0x1F, 31);
+        int r1 = expand(color1 >> 11, 31), g1 = expand((color1 >> 5) & 0x3F, 63), b1 = expand(color1 & 0x1F, 31);
+        return new int[]
+            {
+                r0, g0, b0,
+                r1, g1, b1,
+                (2 * r0 + r1) / 3, (2 * g0 + g1) / 3, (2 * b0 + b1) / 3,
+                (r0 + 2 * r1) / 3, (g0 + 2 * g1) / 3, (b0 + 2 * b1) / 3,
+            };
+    }
+
+    private static int expand(int value, int max)
+    {
+        return (value * 255 + max / 2) / max;
+    }
+
+    private static int nearest(int[] palette, int texel)
+    {
+        int r = (texel >> 16) & 0xFF, g = (texel >> 8) & 0xFF, b = texel & 0xFF;
+        int best = 0;
+        int best_distance = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++)
+        {
+            int dr = r - palette[i * 3], dg = g - palette[i * 3 + 1], db = b - palette[i * 3 + 2];
+            int distance = dr * dr + dg * dg + db * db;
+            if (distance < best_distance)
+            {
+                best_distance = distance;
+                best = i;
+            }
+        }
+        return best;
+    }
+}
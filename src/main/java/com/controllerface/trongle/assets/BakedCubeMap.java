@@ -0,0 +1,190 @@
+package com.controllerface.trongle.assets;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.EXTTextureCompressionS3TC.GL_COMPRESSED_RGB_S3TC_DXT1_EXT;
+import static org.lwjgl.opengl.GL45C.*;
+
+/// A baked cube map file, memory-mapped for reading. The file holds the block-compressed texels of every face at every
+/// mip level, in the order the GPU expects them, so the cube map is uploaded straight from the mapping with no image
+/// decoding. The file is unmapped when this is closed.
+///
+/// Layout, little-endian:
+/// ```
+/// 0    int      magic "TRCM"
+/// 4    int      format version
+/// 8    byte[32] SHA-256 of the six source faces
+/// 40   int      face size, in texels
+/// 44   int      mip level count
+/// 48   int      GL compressed internal format
+/// 64   for each mip level, for each face in GL face order, the compressed blocks
+/// ```
+public final class BakedCubeMap implements AutoCloseable
+{
+    static final int FORMAT = GL_COMPRESSED_RGB_S3TC_DXT1_EXT;
+
+    private static final int MAGIC       = 0x4D435254;
+    private static final int VERSION     = 1;
+    private static final int HASH_OFFSET = 8;
+    private static final int HASH_LENGTH = 32;
+    private static final int SIZE_OFFSET = HASH_OFFSET + HASH_LENGTH;
+    private static final int HEADER_SIZE = 64;
+    private static final int FACES       = 6;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final int size;
+    private final int levels;
+    private final int format;
+
+    private BakedCubeMap(Arena arena, MemorySegment segment)
+    {
+        this.arena = arena;
+        this.segment = segment;
+
+        if (segment.byteSize() < HEADER_SIZE
+            || segment.get(INT, 0) != MAGIC
+            || segment.get(INT, 4) != VERSION)
+        {
+            throw new IllegalArgumentException("Not a baked cube map, or an unsupported version");
+        }
+
+        size   = segment.get(INT, SIZE_OFFSET);
+        levels = segment.get(INT, SIZE_OFFSET + 4);
+        format = segment.get(INT, SIZE_OFFSET + 8);
+
+        if (format != FORMAT) throw new IllegalArgumentException("Unsupported cube map format: " + format);
+        if (HEADER_SIZE + data_size(size, levels) > segment.byteSize())
+        {
+            throw new IllegalArgumentException("Baked cube map is truncated");
+        }
+    }
+
+    /// Maps the given baked cube map file. The mapping stays valid until the returned cube map is closed.
+    public static BakedCubeMap map(Path path) throws IOException
+    {
+        var arena = Arena.ofShared();
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            var segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            return new BakedCubeMap(arena, segment);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /// Reads the source hash stored in the header of the given file, or returns null if the file does not exist or is
+    /// not a baked cube map of the current version.
+    static byte[] source_hash(Path path) throws IOException
+    {
+        if (!Files.isRegularFile(path)) return null;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            var header = ByteBuffer.allocate(SIZE_OFFSET).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) { }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) return null;
+            return Arrays.copyOfRange(header.array(), HASH_OFFSET, HASH_OFFSET + HASH_LENGTH);
+        }
+    }
+
+    /// Writes a baked cube map file from compressed data laid out as described above. The file is written next to its
+    /// destination and then moved into place, so a reader never sees a partially written file.
+    static void write(Path path, byte[] source_hash, int size, int levels, ByteBuffer data) throws IOException
+    {
+        if (data.remaining() != data_size(size, levels))
+        {
+            throw new IllegalArgumentException("Cube map data does not match its size and level count");
+        }
+
+        var header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).put(source_hash, 0, HASH_LENGTH);
+        header.putInt(size).putInt(levels).putInt(FORMAT);
+        header.clear();
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        var temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(temp,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            while (header.hasRemaining()) channel.write(header);
+            while (data.hasRemaining()) channel.write(data);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static long data_size(int size, int levels)
+    {
+        long total = 0;
+        for (int level = 0; level < levels; level++)
+        {
+            total += (long) FACES * face_size(size, level);
+        }
+        return total;
+    }
+
+    private static int face_size(int size, int level)
+    {
+        int texels = Math.max(1, size >> level);
+        return BC1Encoder.encoded_size(texels, texels);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int levels()
+    {
+        return levels;
+    }
+
+    /// Creates an immutable cube map texture with every mip level, uploaded straight from the mapped file, and returns
+    /// its name. The caller owns the texture. Must be called on the GL thread.
+    public int upload()
+    {
+        int texture = glCreateTextures(GL_TEXTURE_CUBE_MAP);
+        glTextureStorage2D(texture, levels, format, size, size);
+        glTextureParameteri(texture, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
+        glTextureParameteri(texture, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+        glTextureParameteri(texture, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+        glTextureParameteri(texture, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+        glTextureParameteri(texture, GL_TEXTURE_WRAP_R, GL_CLAMP_TO_EDGE);
+
+        long offset = HEADER_SIZE;
+        for (int level = 0; level < levels; level++)
+        {
+            int texels = Math.max(1, size >> level);
+            int length = face_size(size, level);
+            for (int face = 0; face < FACES; face++)
+            {
+                // with DSA, cube map faces are addressed as layers, in the usual +X, -X, +Y, -Y, +Z, -Z order
+                var blocks = segment.asSlice(offset, length).asByteBuffer();
+                glCompressedTextureSubImage3D(texture, level, 0, 0, face, texels, texels, 1, format, blocks);
+                offset += length;
+            }
+        }
+        return texture;
+    }
+
+    @Override
+    public void close()
+    {
+        arena.close();
+    }
+}
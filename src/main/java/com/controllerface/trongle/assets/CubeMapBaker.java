@@ -0,0 +1,175 @@
+package com.controllerface.trongle.assets;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+/// Bakes the six PNG faces of a cube map into the [BakedCubeMap] format: a full mip chain, block-compressed with
+/// [BC1Encoder], so loading needs neither PNG decoding nor mipmap generation, and the texture takes a sixth of the
+/// memory. Baked files record a hash of their sources and are re-baked when the sources change.
+///
+/// Run with the output directory as its only argument to bake every cube map in [#CUBE_MAPS] ahead of time, which is
+/// what the `bakeCubeMaps` Gradle task does for the distribution. At runtime, baked cube maps are kept in
+/// `-Dtrongle.texture_cache`, `cache/textures` under [Resources#HOME] by default.
+public class CubeMapBaker
+{
+    private static final Logger LOGGER = Logger.getLogger(CubeMapBaker.class.getName());
+
+    public static final Path CACHE_DIR = Resources.home_path("trongle.texture_cache", "cache/textures");
+
+    private static final String EXTENSION = ".cube";
+
+    /// The resource paths of the six faces of a cube map, in GL face order: +X, -X, +Y, -Y, +Z, -Z.
+    public record Faces(String name, List<String> paths)
+    {
+        /// Faces named `<base>_<side><suffix>.png`, with the sides in the same order the skybox has always been loaded.
+        public static Faces of(String base, String suffix)
+        {
+            var paths = new ArrayList<String>(6);
+            for (var side : List.of("ft", "bk", "up", "dn", "rt", "lf"))
+            {
+                paths.add(base + "_" + side + suffix + ".png");
+            }
+            var name = Path.of(base).getFileName() + suffix;
+            return new Faces(name, List.copyOf(paths));
+        }
+    }
+
+    public static final Faces SKY_DAY   = Faces.of("/img/skybox/sh", "");
+    public static final Faces SKY_NIGHT = Faces.of("/img/skybox/sh", "_dark");
+
+    public static final List<Faces> CUBE_MAPS = List.of(SKY_DAY, SKY_NIGHT);
+
+    public static Path baked_path(Path directory, Faces faces)
+    {
+        return directory.resolve(faces.name() + EXTENSION);
+    }
+
+    /// Maps the baked form of the given cube map from the cache directory, baking it first if it is missing or stale.
+    public static BakedCubeMap load(Faces faces, Path directory) throws IOException
+    {
+        if (bake_if_stale(faces, directory))
+        {
+            LOGGER.info("Baked stale or missing cube map: " + faces.name());
+        }
+        return BakedCubeMap.map(baked_path(directory, faces));
+    }
+
+    /// Bakes the given cube map into the given directory if it is missing or stale. Returns true if it was baked.
+    public static boolean bake_if_stale(Faces faces, Path directory) throws IOException
+    {
+        var sources = new ArrayList<byte[]>(6);
+        for (var face : faces.paths())
+        {
+            sources.add(Objects.requireNonNull(Resources.read_bytes(face), face));
+        }
+        var hash = sha256(sources);
+        var path = baked_path(directory, faces);
+        if (Arrays.equals(hash, BakedCubeMap.source_hash(path))) return false;
+        bake(faces, sources, hash, path);
+        return true;
+    }
+
+    private static void bake(Faces faces, List<byte[]> sources, byte[] hash, Path path) throws IOException
+    {
+        var texels = new int[6][];
+        int size = -1;
+        for (int face = 0; face < 6; face++)
+        {
+            var image = ImageIO.read(new ByteArrayInputStream(sources.get(face)));
+            if (image == null) throw new IOException("Could not decode: " + faces.paths().get(face));
+            if (image.getWidth() != image.getHeight() || (size >= 0 && image.getWidth() != size))
+            {
+                throw new IOException("Cube map faces must be square and the same size: " + faces.paths().get(face));
+            }
+            size = image.getWidth();
+            texels[face] = image.getRGB(0, 0, size, size, null, 0, size);
+        }
+        if (Integer.bitCount(size) != 1) throw new IOException("Cube map size must be a power of two: " + faces.name());
+
+        int levels = Integer.numberOfTrailingZeros(size) + 1;
+        var data = ByteBuffer.allocate((int) BakedCubeMap.data_size(size, levels));
+        for (int level = 0; level < levels; level++)
+        {
+            int level_size = size >> level;
+            for (int face = 0; face < 6; face++)
+            {
+                if (level > 0) texels[face] = downsample(texels[face], level_size * 2);
+                BC1Encoder.encode(texels[face], level_size, level_size, data);
+            }
+        }
+        data.flip();
+        BakedCubeMap.write(path, hash, size, levels, data);
+    }
+
+    /// Halves a square image of packed RGB texels with a 2x2 box filter.
+    private static int[] downsample(int[] texels, int size)
+    {
+        int half = size / 2;
+        var out = new int[half * half];
+        for (int y = 0; y < half; y++)
+        {
+            for (int x = 0; x < half; x++)
+            {
+                int a = texels[(y * 2) * size + x * 2];
+                int b = texels[(y * 2) * size + x * 2 + 1];
+                int c = texels[(y * 2 + 1) * size + x * 2];
+                int d = texels[(y * 2 + 1) * size + x * 2 + 1];
+                int r = (channel(a, 16) + channel(b, 16) + channel(c, 16) + channel(d, 16) + 2) / 4;
+                int g = (channel(a, 8) + channel(b, 8) + channel(c, 8) + channel(d, 8) + 2) / 4;
+                int bl = (channel(a, 0) + channel(b, 0) + channel(c, 0) + channel(d, 0) + 2) / 4;
+                out[y * half + x] = r << 16 | g << 8 | bl;
+            }
+        }
+        return out;
+    }
+
+    private static int channel(int texel, int shift)
+    {
+        return (texel >> shift) & 0xFF;
+    }
+
+    private static byte[] sha256(List<byte[]> sources)
+    {
+        try
+        {
+            var digest = MessageDigest.getInstance("SHA-256");
+            for (var source : sources)
+            {
+                digest.update(source);
+            }
+            return digest.digest();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void main(String[] args)
+    {
+        var directory = args.length > 0 ? Path.of(args[0]) : CACHE_DIR;
+        for (var faces : CUBE_MAPS)
+        {
+            try
+            {
+                boolean baked = bake_if_stale(faces, directory);
+                LOGGER.info((baked ? "Baked: " : "Up to date: ") + baked_path(directory, faces));
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException("Could not bake: " + faces.name(), e);
+            }
+        }
+    }
+}
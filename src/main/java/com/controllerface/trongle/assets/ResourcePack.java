@@ -0,0 +1,185 @@
+package com.controllerface.trongle.assets;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/// A single file holding many resources, stored uncompressed behind an index of offsets. The whole file is
+/// memory-mapped when opened, and the index is read into a hash map, so a lookup is one map access and returns a view
+/// of the mapped file, with no inflating or copying. Resource data is aligned to 16 bytes, so views can be handed to
+/// buffer uploads directly.
+///
+/// Layout, little-endian:
+/// ```
+/// 0    int    magic "TRPK"
+/// 4    int    format version
+/// 8    int    entry count
+/// 12   entries, each: short path length, UTF-8 path, long offset, long length
+///      resource data, each aligned to 16 bytes
+/// ```
+/// Paths are stored in classpath form, with a leading `/`, e.g. `/models/test_cube.glb`.
+public final class ResourcePack implements AutoCloseable
+{
+    private static final int MAGIC     = 0x4B505254;
+    private static final int VERSION   = 1;
+    private static final int ALIGNMENT = 16;
+
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfInt   INT   = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong  LONG  = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private record Entry(long offset, long length) { }
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final Map<String, Entry> index;
+
+    private ResourcePack(Arena arena, MemorySegment segment)
+    {
+        this.arena = arena;
+        this.segment = segment;
+
+        if (segment.byteSize() < 12 || segment.get(INT, 0) != MAGIC || segment.get(INT, 4) != VERSION)
+        {
+            throw new IllegalArgumentException("Not a resource pack, or an unsupported version");
+        }
+
+        int count = segment.get(INT, 8);
+        index = HashMap.newHashMap(count);
+        long position = 12;
+        for (int i = 0; i < count; i++)
+        {
+            int path_length = Short.toUnsignedInt(segment.get(SHORT, position));
+            position += Short.BYTES;
+            var path_bytes = segment.asSlice(position, path_length).toArray(ValueLayout.JAVA_BYTE);
+            position += path_length;
+            long offset = segment.get(LONG, position);
+            long length = segment.get(LONG, position + Long.BYTES);
+            position += 2 * Long.BYTES;
+            if (offset + length > segment.byteSize()) throw new IllegalArgumentException("Resource pack is truncated");
+            index.put(new String(path_bytes, StandardCharsets.UTF_8), new Entry(offset, length));
+        }
+    }
+
+    /// Maps the given pack file. The mapping stays valid until the returned pack is closed.
+    public static ResourcePack open(Path path) throws IOException
+    {
+        var arena = Arena.ofShared();
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            return new ResourcePack(arena, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+        }
+        catch (IOException | RuntimeException e)
+        {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /// Returns a read-only view of the given resource, or null if the pack does not contain it. The buffer is direct
+    /// and only valid until this pack is closed.
+    public ByteBuffer get(String path)
+    {
+        var entry = index.get(path);
+        if (entry == null) return null;
+        return segment.asSlice(entry.offset, entry.length).asByteBuffer().asReadOnlyBuffer();
+    }
+
+    public boolean contains(String path)
+    {
+        return index.containsKey(path);
+    }
+
+    public Set<String> paths()
+    {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    @Override
+    public void close()
+    {
+        arena.close();
+    }
+
+    /// Packs every regular file under the given root directory into a pack file, keyed by its path relative to the
+    /// root. The pack is written next to its destination and then moved into place.
+    public static void write(Path root, Path destination) throws IOException
+    {
+        List<Path> files;
+        try (var walk = Files.walk(root))
+        {
+            files = walk.filter(Files::isRegularFile).sorted().toList();
+        }
+
+        var names = new ArrayList<byte[]>(files.size());
+        long index_size = 12;
+        for (var file : files)
+        {
+            var name = ("/" + root.relativize(file).toString().replace('\\', '/')).getBytes(StandardCharsets.UTF_8);
+            if (name.length > 0xFFFF) throw new IOException("Resource path too long: " + file);
+            names.add(name);
+            index_size += Short.BYTES + name.length + 2L * Long.BYTES;
+        }
+
+        var header = ByteBuffer.allocate(Math.toIntExact(index_size)).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(files.size());
+        long offset = align(index_size);
+        for (int i = 0; i < files.size(); i++)
+        {
+            long length = Files.size(files.get(i));
+            var name = names.get(i);
+            header.putShort((short) name.length).put(name).putLong(offset).putLong(length);
+            offset = align(offset + length);
+        }
+        header.flip();
+
+        Files.createDirectories(destination.toAbsolutePath().getParent());
+        var temp = destination.resolveSibling(destination.getFileName() + ".tmp");
+        try (var out = FileChannel.open(temp,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            write_fully(out, header);
+            for (var file : files)
+            {
+                write_fully(out, ByteBuffer.allocate((int) (align(out.position()) - out.position())));
+                try (var in = FileChannel.open(file, StandardOpenOption.READ))
+                {
+                    long size = in.size();
+                    long copied = 0;
+                    while (copied < size)
+                    {
+                        copied += in.transferTo(copied, size - copied, out);
+                    }
+                }
+            }
+        }
+        Files.move(temp, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void write_fully(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    private static long align(long offset)
+    {
+        return (offset + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /// Packs a resource directory: `<resource root> <pack file>`. Used by the `packResources` Gradle task.
+    void main(String[] args) throws IOException
+    {
+        if (args.length != 2) throw new IllegalArgumentException("Usage: <resource root> <pack file>");
+        write(Path.of(args[0]), Path.of(args[1]));
+    }
+}
@@ -0,0 +1,123 @@
+package com.controllerface.trongle.assets;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/// Resolves resources by classpath path, from the [ResourcePack] when one is present, otherwise from the classpath.
+/// The pack is looked for at `-Dtrongle.resource_pack`, `resources.pack` under [#HOME] by default, which is where the
+/// distribution puts it. When running from the IDE or Gradle there is no pack, and every lookup goes to the classpath,
+/// so resources can be edited without repacking.
+public final class Resources
+{
+    private static final Logger LOGGER = Logger.getLogger(Resources.class.getName());
+
+    /// The directory the game is installed in, which the resource pack and the caches are kept under, so they are
+    /// found whatever directory the game is started from. This is `-Dtrongle.home` when set, otherwise the directory
+    /// holding the game's jar, or the working directory when running from unpacked classes, as from the IDE or Gradle.
+    public static final Path HOME = find_home();
+
+    private static final Path PACK_PATH = home_path("trongle.resource_pack", "resources.pack");
+
+    private static final ResourcePack PACK = open_pack();
+
+    private Resources() { }
+
+    private static Path find_home()
+    {
+        var home = System.getProperty("trongle.home");
+        if (home != null) return Path.of(home).toAbsolutePath();
+
+        try
+        {
+            var source = Resources.class.getProtectionDomain().getCodeSource();
+            if (source != null)
+            {
+                var location = Path.of(source.getLocation().toURI());
+                if (Files.isRegularFile(location)) return location.toAbsolutePath().getParent();
+            }
+        }
+        catch (URISyntaxException | SecurityException | IllegalArgumentException e)
+        {
+            LOGGER.log(Level.FINE, "Could not locate the game jar, using the working directory as home", e);
+        }
+        return Path.of("").toAbsolutePath();
+    }
+
+    /// Returns the path given by the system property, or the default path when it is not set. Relative paths, from the
+    /// property or the default, are resolved against [#HOME].
+    public static Path home_path(String property, String default_path)
+    {
+        return HOME.resolve(System.getProperty(property, default_path));
+    }
+
+    private static ResourcePack open_pack()
+    {
+        if (!Files.isRegularFile(PACK_PATH)) return null;
+        try
+        {
+            var pack = ResourcePack.open(PACK_PATH);
+            LOGGER.fine("Using resource pack: " + PACK_PATH + " (" + pack.paths().size() + " entries)");
+            return pack;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            LOGGER.log(Level.WARNING, "Could not open resource pack, falling back to classpath: " + PACK_PATH, e);
+            return null;
+        }
+    }
+
+    public static boolean packed()
+    {
+        return PACK != null;
+    }
+
+    /// Returns the contents of the given resource, or null if it does not exist. When served from the pack, the
+    /// buffer is a read-only view of the mapped pack, otherwise it wraps a copy of the classpath resource.
+    public static ByteBuffer read(String path)
+    {
+        if (PACK != null)
+        {
+            var packed = PACK.get(path);
+            if (packed != null) return packed;
+        }
+
+        try (var stream = Resources.class.getResourceAsStream(path))
+        {
+            return stream == null ? null : ByteBuffer.wrap(stream.readAllBytes());
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Could not read resource: " + path, e);
+        }
+    }
+
+    /// Returns the contents of the given resource as a byte array, or null if it does not exist.
+    public static byte[] read_bytes(String path)
+    {
+        var buffer = read(path);
+        if (buffer == null) return null;
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.array().length == buffer.remaining())
+        {
+            return buffer.array();
+        }
+        var bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /// Opens the given resource as a stream, or returns null if it does not exist.
+    public static InputStream open(String path)
+    {
+        if (PACK == null) return Resources.class.getResourceAsStream(path);
+        var bytes = read_bytes(path);
+        return bytes == null ? null : new ByteArrayInputStream(bytes);
+    }
+}
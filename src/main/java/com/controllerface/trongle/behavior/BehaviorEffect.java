@@ -0,0 +1,12 @@
+package com.controllerface.trongle.behavior;
+
+import com.juncture.alloy.ecs.ECSWorld;
+
+/// A change to world state that reaches outside the entity whose behavior produced it, such as spawning an entity or
+/// modifying another entity's components. Effects are collected while behaviors run and applied afterward, on a single
+/// thread, in a fixed order.
+@FunctionalInterface
+public interface BehaviorEffect
+{
+    void apply(ECSWorld world);
+}
@@ -0,0 +1,266 @@
+package com.controllerface.trongle.behavior;
+
+import com.juncture.alloy.ecs.ECSWorld;
+import org.joml.Vector3dc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/// Runs bound behaviors in parallel on a fork-join pool, within a fixed time budget per execution. Behaviors are
+/// scheduled the same way a [BehaviorScheduler] schedules them: each has an update interval, and accumulates urgency
+/// each execution it waits, `waiting * priority / interval`, with priority raised near a focus point. Behaviors with an
+/// urgency of at least one are due, and are run most urgent first, so near entities are first in line when the budget
+/// is tight. Anything left over keeps its urgency and moves ahead on the next execution, so no behavior is starved, and
+/// every behavior is passed the time elapsed since it last ran.
+///
+/// Due behaviors are run in waves of a few partitions per thread. Each partition is a contiguous run of the urgency
+/// order and gets its own [EffectBuffer], and after a wave completes its buffers are applied to the world in partition
+/// order. The budget is checked between waves, and the first wave always runs. Because partition boundaries depend only
+/// on the urgency order, the effects of the behaviors that run do not depend on thread scheduling or the thread count.
+///
+/// The pool is shared with other work and owned by the caller, which is responsible for shutting it down.
+public class BehaviorExecutor
+{
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ForkJoinPool pool;
+    private final int min_partition_size;
+    private final int max_partitions;
+    private final long budget_ns;
+    private final double priority_radius;
+    private final double near_boost;
+
+    private final List<BoundBehavior> behaviors = new ArrayList<>();
+    private final List<EffectBuffer> effect_buffers = new ArrayList<>();
+
+    private Vector3dc[] positions = new Vector3dc[INITIAL_CAPACITY];
+    private int[] intervals       = new int[INITIAL_CAPACITY];
+    private int[] waiting         = new int[INITIAL_CAPACITY];
+    private double[] elapsed      = new double[INITIAL_CAPACITY];
+    private long[] due            = new long[INITIAL_CAPACITY];
+    private int[] order           = new int[INITIAL_CAPACITY];
+
+    private int last_run_count = 0;
+    private int last_due_count = 0;
+    private long last_time_ns  = 0;
+
+    /// @param min_partition_size fewest behaviors worth giving a partition of their own
+    /// @param budget_us          time after which no further wave is started in an execution, in microseconds
+    /// @param priority_radius    distance from the focus point within which behaviors get a priority boost
+    /// @param near_boost         priority multiplier applied at the focus point, falling off linearly to 1 at the
+    ///                           radius
+    public BehaviorExecutor(ForkJoinPool pool,
+                            int min_partition_size,
+                            long budget_us,
+                            double priority_radius,
+                            double near_boost)
+    {
+        this.pool = pool;
+        this.min_partition_size = min_partition_size;
+        // a few partitions per thread lets the pool balance uneven behavior costs by work stealing
+        this.max_partitions = pool.getParallelism() * 4;
+        this.budget_ns = budget_us * 1000L;
+        this.priority_radius = priority_radius;
+        this.near_boost = near_boost;
+    }
+
+    /// Adds a behavior, returning its index. The position is optional; behaviors without one are never boosted.
+    public int add(BoundBehavior behavior, int interval, Vector3dc position)
+    {
+        int index = behaviors.size();
+        if (index == intervals.length) grow();
+        behaviors.add(behavior);
+        positions[index] = position;
+        intervals[index] = Math.max(1, interval);
+        // stagger initial phase so behaviors added together do not all come due on the same execution
+        waiting[index]   = index % intervals[index];
+        elapsed[index]   = 0.0;
+        return index;
+    }
+
+    public void set(int index, BoundBehavior behavior, Vector3dc position)
+    {
+        behaviors.set(index, behavior);
+        positions[index] = position;
+    }
+
+    /// Removes the behavior at the given index by moving the last behavior into its place. Returns the index the moved
+    /// behavior was at before the removal, so callers can update their own index tracking, or -1 if nothing was moved.
+    public int remove(int index)
+    {
+        int last = behaviors.size() - 1;
+        var moved = behaviors.remove(last);
+        var moved_position = positions[last];
+        positions[last] = null;
+        if (index == last) return -1;
+        behaviors.set(index, moved);
+        positions[index] = moved_position;
+        intervals[index] = intervals[last];
+        waiting[index]   = waiting[last];
+        elapsed[index]   = elapsed[last];
+        return last;
+    }
+
+    public int size()
+    {
+        return behaviors.size();
+    }
+
+    public int parallelism()
+    {
+        return pool.getParallelism();
+    }
+
+    public void clear()
+    {
+        Arrays.fill(positions, 0, behaviors.size(), null);
+        behaviors.clear();
+    }
+
+    public void execute(double dt, ECSWorld world, Vector3dc focus)
+    {
+        long start = System.nanoTime();
+        int count = behaviors.size();
+
+        int due_count = 0;
+        for (int i = 0; i < count; i++)
+        {
+            waiting[i]++;
+            elapsed[i] += dt;
+
+            double priority = BehaviorScheduler.priority(positions[i], focus, priority_radius, near_boost);
+            double urgency = waiting[i] * priority / intervals[i];
+            if (urgency >= 1.0)
+            {
+                // urgency is positive, so its float bits sort in the same order as its value
+                due[due_count++] = ((long) Float.floatToIntBits((float) urgency) << 32) | i;
+            }
+        }
+
+        Arrays.sort(due, 0, due_count);
+        for (int d = 0; d < due_count; d++)
+        {
+            order[d] = (int) due[due_count - 1 - d];
+        }
+
+        int wave_size = max_partitions * min_partition_size;
+        long deadline = start + budget_ns;
+        int run_count = 0;
+        while (run_count < due_count)
+        {
+            // always make progress on at least one wave, even when the budget was spent before we started
+            if (run_count > 0 && System.nanoTime() >= deadline) break;
+
+            int wave_end = Math.min(due_count, run_count + wave_size);
+            run_wave(run_count, wave_end, world);
+            run_count = wave_end;
+        }
+
+        last_due_count = due_count;
+        last_run_count = run_count;
+        last_time_ns   = System.nanoTime() - start;
+    }
+
+    /// Runs the behaviors at the given range of the urgency order, then applies their effects.
+    private void run_wave(int from, int to, ECSWorld world)
+    {
+        int partitions = Math.max(1, Math.min(max_partitions, (to - from) / min_partition_size));
+        while (effect_buffers.size() < partitions)
+        {
+            effect_buffers.add(new EffectBuffer());
+        }
+
+        if (partitions == 1)
+        {
+            run_partition(from, to, effect_buffers.getFirst());
+        }
+        else
+        {
+            pool.invoke(new PartitionTask(from, to - from, partitions, 0, partitions));
+        }
+
+        // merge phase
+        for (int partition = 0; partition < partitions; partition++)
+        {
+            effect_buffers.get(partition).apply(world);
+        }
+    }
+
+    private void run_partition(int from, int to, EffectBuffer effects)
+    {
+        // each behavior appears once in the urgency order, so partitions never touch the same per-behavior state
+        for (int d = from; d < to; d++)
+        {
+            int i = order[d];
+            behaviors.get(i).behave(elapsed[i], effects);
+            waiting[i] = 0;
+            elapsed[i] = 0.0;
+        }
+    }
+
+    private void grow()
+    {
+        int capacity = intervals.length * 2;
+        positions = Arrays.copyOf(positions, capacity);
+        intervals = Arrays.copyOf(intervals, capacity);
+        waiting   = Arrays.copyOf(waiting, capacity);
+        elapsed   = Arrays.copyOf(elapsed, capacity);
+        due       = Arrays.copyOf(due, capacity);
+        order     = Arrays.copyOf(order, capacity);
+    }
+
+    /// Number of behaviors that were due on the last execution.
+    public int last_due_count()
+    {
+        return last_due_count;
+    }
+
+    /// Number of behaviors that actually ran on the last execution. Any difference from [#last_due_count] was deferred
+    /// because the budget ran out.
+    public int last_run_count()
+    {
+        return last_run_count;
+    }
+
+    public long last_time_ns()
+    {
+        return last_time_ns;
+    }
+
+    private class PartitionTask extends RecursiveAction
+    {
+        private final int base;
+        private final int count;
+        private final int partitions;
+        private final int from;
+        private final int to;
+
+        PartitionTask(int base, int count, int partitions, int from, int to)
+        {
+            this.base = base;
+            this.count = count;
+            this.partitions = partitions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from == 1)
+            {
+                int start = base + (int) ((long) count * from / partitions);
+                int end   = base + (int) ((long) count * to / partitions);
+                run_partition(start, end, effect_buffers.get(from));
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new PartitionTask(base, count, partitions, from, mid),
+                      new PartitionTask(base, count, partitions, mid, to));
+        }
+    }
+}
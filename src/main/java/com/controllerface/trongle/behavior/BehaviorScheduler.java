@@ -0,0 +1,171 @@
+package com.controllerface.trongle.behavior;
+
+import org.joml.Vector3dc;
+
+import java.util.Arrays;
+
+/// Spreads bound behavior updates across frames within a fixed time budget per tick. Each behavior has an update
+/// interval in ticks, and accumulates urgency each tick it waits: `waiting * priority / interval`. Behaviors with an
+/// urgency of at least one are due, and due behaviors are run in order of highest urgency until the budget is spent.
+/// Anything left over keeps its urgency and so moves ahead of the queue on the next tick, meaning no behavior is starved.
+///
+/// Priority is raised for behaviors whose position is close to a focus point (typically the player or camera), so near
+/// entities update more often than their declared interval, and are first in line when the budget is tight. Behaviors
+/// receive the total time elapsed since they last ran as their `dt`, so skipped ticks are not lost.
+public class BehaviorScheduler
+{
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final long budget_ns;
+    private final double priority_radius;
+    private final double near_boost;
+
+    private BoundBehavior[] behaviors = new BoundBehavior[INITIAL_CAPACITY];
+    private Vector3dc[] positions     = new Vector3dc[INITIAL_CAPACITY];
+    private int[] intervals           = new int[INITIAL_CAPACITY];
+    private int[] waiting             = new int[INITIAL_CAPACITY];
+    private double[] elapsed          = new double[INITIAL_CAPACITY];
+    private long[] due                = new long[INITIAL_CAPACITY];
+    private int count = 0;
+
+    private int last_run_count = 0;
+    private int last_due_count = 0;
+    private long last_time_ns  = 0;
+
+    /// @param budget_us       maximum time to spend running behaviors per tick, in microseconds
+    /// @param priority_radius distance from the focus point within which behaviors get a priority boost
+    /// @param near_boost      priority multiplier applied at the focus point, falling off linearly to 1 at the radius
+    public BehaviorScheduler(long budget_us, double priority_radius, double near_boost)
+    {
+        this.budget_ns = budget_us * 1000L;
+        this.priority_radius = priority_radius;
+        this.near_boost = near_boost;
+    }
+
+    /// Adds a behavior, returning its index. The position is optional; behaviors without one are never boosted.
+    public int add(BoundBehavior behavior, int interval, Vector3dc position)
+    {
+        if (count == behaviors.length) grow();
+        behaviors[count] = behavior;
+        positions[count] = position;
+        intervals[count] = Math.max(1, interval);
+        // stagger initial phase so behaviors added together do not all come due on the same tick
+        waiting[count]   = count % intervals[count];
+        elapsed[count]   = 0.0;
+        return count++;
+    }
+
+    public void set(int index, BoundBehavior behavior, Vector3dc position)
+    {
+        behaviors[index] = behavior;
+        positions[index] = position;
+    }
+
+    /// Removes the behavior at the given index by moving the last behavior into its place. Returns the index the moved
+    /// behavior was at before the removal, or -1 if nothing was moved.
+    public int remove(int index)
+    {
+        int last = --count;
+        if (index != last)
+        {
+            behaviors[index] = behaviors[last];
+            positions[index] = positions[last];
+            intervals[index] = intervals[last];
+            waiting[index]   = waiting[last];
+            elapsed[index]   = elapsed[last];
+        }
+        behaviors[last] = null;
+        positions[last] = null;
+        return index == last ? -1 : last;
+    }
+
+    public int size()
+    {
+        return count;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(behaviors, 0, count, null);
+        Arrays.fill(positions, 0, count, null);
+        count = 0;
+    }
+
+    public void tick(double dt, Vector3dc focus)
+    {
+        long start = System.nanoTime();
+        int due_count = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            waiting[i]++;
+            elapsed[i] += dt;
+
+            double urgency = waiting[i] * priority(positions[i], focus, priority_radius, near_boost) / intervals[i];
+            if (urgency >= 1.0)
+            {
+                // urgency is positive, so its float bits sort in the same order as its value
+                due[due_count++] = ((long) Float.floatToIntBits((float) urgency) << 32) | i;
+            }
+        }
+
+        Arrays.sort(due, 0, due_count);
+
+        int run_count = 0;
+        long deadline = start + budget_ns;
+        for (int d = due_count - 1; d >= 0; d--)
+        {
+            // always make progress on at least one behavior, even when the budget was spent before we started
+            if (run_count > 0 && System.nanoTime() >= deadline) break;
+
+            int i = (int) due[d];
+            behaviors[i].behave(elapsed[i]);
+            waiting[i] = 0;
+            elapsed[i] = 0.0;
+            run_count++;
+        }
+
+        last_due_count = due_count;
+        last_run_count = run_count;
+        last_time_ns   = System.nanoTime() - start;
+    }
+
+    /// Priority of a behavior at the given position, boosted by up to `near_boost` within `priority_radius` of the
+    /// focus, shared with [BehaviorExecutor] so both paths favor the same entities.
+    static double priority(Vector3dc position, Vector3dc focus, double priority_radius, double near_boost)
+    {
+        if (position == null || focus == null) return 1.0;
+        double distance = position.distance(focus);
+        if (distance >= priority_radius) return 1.0;
+        return 1.0 + (near_boost - 1.0) * (1.0 - distance / priority_radius);
+    }
+
+    private void grow()
+    {
+        int capacity = behaviors.length * 2;
+        behaviors = Arrays.copyOf(behaviors, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        intervals = Arrays.copyOf(intervals, capacity);
+        waiting   = Arrays.copyOf(waiting, capacity);
+        elapsed   = Arrays.copyOf(elapsed, capacity);
+        due       = Arrays.copyOf(due, capacity);
+    }
+
+    /// Number of behaviors that were due on the last tick.
+    public int last_due_count()
+    {
+        return last_due_count;
+    }
+
+    /// Number of behaviors that actually ran on the last tick. Any difference from [#last_due_count] was deferred
+    /// because the budget ran out.
+    public int last_run_count()
+    {
+        return last_run_count;
+    }
+
+    public long last_time_ns()
+    {
+        return last_time_ns;
+    }
+}
@@ -0,0 +1,76 @@
+package com.controllerface.trongle.behavior;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Tracks which entity holds which slot of a densely packed run of bound behaviors. Slots are handed out in order, and
+/// removing an entity moves the last slot into the one it freed, the same way [BehaviorExecutor#remove] and
+/// [BehaviorScheduler#remove] do, so an owner only has to mirror each [#add] and [#remove] on its own store.
+public final class BehaviorSlots
+{
+    private final List<String> entities = new ArrayList<>();
+    private final List<TrongleEntityBehavior> types = new ArrayList<>();
+    private final Map<String, Integer> indices = new HashMap<>();
+
+    /// Gives the entity the next slot and returns it. The entity must not already hold a slot.
+    public int add(String entity_id, TrongleEntityBehavior type)
+    {
+        int slot = entities.size();
+        if (indices.putIfAbsent(entity_id, slot) != null)
+        {
+            throw new IllegalStateException("Entity: " + entity_id + " already holds a behavior slot");
+        }
+        entities.add(entity_id);
+        types.add(type);
+        return slot;
+    }
+
+    /// Frees the entity's slot, moving the last slot into it, and returns the freed slot, or -1 if the entity held none.
+    public int remove(String entity_id)
+    {
+        var slot = indices.remove(entity_id);
+        if (slot == null) return -1;
+
+        int last = entities.size() - 1;
+        var moved = entities.remove(last);
+        var moved_type = types.remove(last);
+        if (slot != last)
+        {
+            entities.set(slot, moved);
+            types.set(slot, moved_type);
+            indices.put(moved, slot);
+        }
+        return slot;
+    }
+
+    /// Returns the entity's slot, or -1 if it holds none.
+    public int slot(String entity_id)
+    {
+        var slot = indices.get(entity_id);
+        return slot == null ? -1 : slot;
+    }
+
+    public String entity(int slot)
+    {
+        return entities.get(slot);
+    }
+
+    public TrongleEntityBehavior type(int slot)
+    {
+        return types.get(slot);
+    }
+
+    public int size()
+    {
+        return entities.size();
+    }
+
+    public void clear()
+    {
+        entities.clear();
+        types.clear();
+        indices.clear();
+    }
+}
@@ -0,0 +1,18 @@
+package com.controllerface.trongle.behavior;
+
+import com.juncture.alloy.behaviors.EntityBehavior;
+import com.juncture.alloy.ecs.ECSWorld;
+
+/// An entity behavior that can be bound to a specific entity, producing a [BoundBehavior] with all component references
+/// already resolved. Calling [#behave] directly still works, but binds a new object on every call, so callers that run
+/// the behavior every frame should bind once and keep the result.
+public interface BindableBehavior extends EntityBehavior
+{
+    BoundBehavior bind(ECSWorld world, String entity_id);
+
+    @Override
+    default void behave(double dt, ECSWorld world, String entity_id)
+    {
+        bind(world, entity_id).behave(dt);
+    }
+}
@@ -0,0 +1,15 @@
+package com.controllerface.trongle.behavior;
+
+/// A behavior that has been attached to a single entity. Implementations resolve the components they need once, when
+/// they are bound, and hold direct references to them so that no lookups are needed on each call to [#behave].
+public interface BoundBehavior
+{
+    void behave(double dt);
+
+    /// Runs the behavior with a buffer for deferred effects. Behaviors that run in parallel may only write to their own
+    /// entity's state directly, anything that touches other entities or the world must be deferred to `effects`.
+    default void behave(double dt, EffectBuffer effects)
+    {
+        behave(dt);
+    }
+}
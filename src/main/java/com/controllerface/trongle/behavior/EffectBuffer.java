@@ -0,0 +1,32 @@
+package com.controllerface.trongle.behavior;
+
+import com.juncture.alloy.ecs.ECSWorld;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/// Collects deferred [BehaviorEffect]s for one partition of behaviors. Each buffer is only ever written by a single
+/// thread at a time, and is drained in insertion order during the merge phase.
+public class EffectBuffer
+{
+    private final List<BehaviorEffect> effects = new ArrayList<>();
+
+    public void defer(BehaviorEffect effect)
+    {
+        effects.add(effect);
+    }
+
+    public int size()
+    {
+        return effects.size();
+    }
+
+    void apply(ECSWorld world)
+    {
+        for (var effect : effects)
+        {
+            effect.apply(world);
+        }
+        effects.clear();
+    }
+}
@@ -2,7 +2,6 @@ package com.controllerface.trongle.behavior;
 
 import com.controllerface.trongle.input.InputBinding;
 import com.controllerface.trongle.input.InputState;
-import com.juncture.alloy.behaviors.EntityBehavior;
 import com.juncture.alloy.camera.WorldCamera;
 import com.juncture.alloy.data.MutableFloat;
 import com.juncture.alloy.ecs.BaseComponent;
@@ -17,13 +16,16 @@ import org.joml.*;
 
 import java.lang.Math;
 
-public class PlayerBehavior implements EntityBehavior
+public class PlayerBehavior implements BindableBehavior
 {
     private final Vector2d delta_buffer = new Vector2d();
     private final Vector4d target_vec4_buffer = new Vector4d();
     private final Vector3d target_vec3_buffer = new Vector3d();
     private final Matrix4d target_mat4_buffer = new Matrix4d();
     private final Vector2f input_buffer = new Vector2f();
+    private final Matrix4d projection_buffer = new Matrix4d();
+    private final Matrix4d view_buffer = new Matrix4d();
+    private final Vector3d origin_buffer = new Vector3d();
 
     private void handle_key_inputs(InputState input_state,
                                    MutableFloat thrust,
@@ -87,17 +89,18 @@ public class PlayerBehavior implements EntityBehavior
         }
     }
 
-    private void handle_mouse_inputs(ECSLayer<PhysicsComponent> phys_layer,
-                                     ECSLayer<RenderComponent> rend_layer,
-                                     InputState input_state)
+    private void handle_mouse_inputs(InputState input_state,
+                                     Ray3d mouse_ray,
+                                     Window window,
+                                     WorldCamera camera,
+                                     MutableFloat camera_yaw,
+                                     MutableFloat camera_pitch,
+                                     MutableFloat camera_zoom)
     {
-        var mouse_ray_entity = PhysicsComponent.MouseRay.<String>global(phys_layer);
-        var mouse_ray = PhysicsComponent.RayCast.<Ray3d>for_entity(phys_layer, mouse_ray_entity);
-        var camera_yaw = RenderComponent.CameraYaw.<MutableFloat>global(rend_layer);
-        var camera_pitch = RenderComponent.CameraPitch.<MutableFloat>global(rend_layer);
-        var camera_zoom = RenderComponent.CameraZoom.<MutableFloat>global(rend_layer);
+        // when running headless there is no view to aim from, so the mouse ray is left as-is
+        if (window == null || camera == null) return;
 
-        handle_aiming(rend_layer, input_state, mouse_ray);
+        handle_aiming(window, camera, input_state, mouse_ray);
 
         double scroll = input_state.get_scroll();
         if (scroll != 0)
@@ -115,35 +118,50 @@ public class PlayerBehavior implements EntityBehavior
         }
     }
 
-    private void handle_aiming(ECSLayer<RenderComponent> rend_layer,
+    private void handle_aiming(Window window,
+                               WorldCamera camera,
                                InputState input_state,
                                Ray3d mouse_ray)
     {
-        var window = RenderComponent.MainWindow.<Window>global(rend_layer);
-        var camera = RenderComponent.MainCamera.<WorldCamera>global(rend_layer);
-
         var mouse_pos = input_state.get_mouse_pos();
 
         // Convert to NDC/Clip Space
         float xNdc = (float) ((2.0f * mouse_pos.x()) / window.width() - 1.0f);
         float yNdc = (float) (1.0f - (2.0f * mouse_pos.y()) / window.height());
+
+        projection_buffer.set(camera.projection_matrix());
+        view_buffer.set(camera.view_matrix());
+        origin_buffer.set(camera.position());
+
+        cast_mouse_ray(mouse_ray, xNdc, yNdc, projection_buffer, view_buffer, origin_buffer);
+    }
+
+    /// Projects a point in normalized device coordinates out into world space using the given camera matrices, and
+    /// updates the mouse ray to start at the camera origin and point along the projected direction.
+    void cast_mouse_ray(Ray3d mouse_ray,
+                        float xNdc,
+                        float yNdc,
+                        Matrix4dc projection,
+                        Matrix4dc view,
+                        Vector3dc origin)
+    {
         target_vec4_buffer.set(xNdc, yNdc, -1.0f, 1.0f);
 
         // Convert to View Space
-        target_mat4_buffer.set(camera.projection_matrix()).invert();
+        target_mat4_buffer.set(projection).invert();
         target_mat4_buffer.transform(target_vec4_buffer);
         target_vec3_buffer.set(target_vec4_buffer).normalize();
 
         // Convert to World Space
-        target_mat4_buffer.set(camera.view_matrix()).invert();
+        target_mat4_buffer.set(view).invert();
         target_vec4_buffer.set(target_vec3_buffer, 0.0f);
         target_mat4_buffer.transform(target_vec4_buffer);
         target_vec3_buffer.set(target_vec4_buffer).normalize();
 
         // Update mouse ray
         mouse_ray.direction().set(target_vec3_buffer);
-        mouse_ray.origin().set(camera.position());
-        mouse_ray.endpoint().set(camera.position()).add(target_vec3_buffer.mul(1000));
+        mouse_ray.origin().set(origin);
+        mouse_ray.endpoint().set(origin).add(target_vec3_buffer.mul(1000));
         mouse_ray.endpoint().sub(mouse_ray.origin(), target_vec3_buffer);
 
         target_vec3_buffer.x = (target_vec3_buffer.x != 0.0f)
@@ -161,33 +179,80 @@ public class PlayerBehavior implements EntityBehavior
         mouse_ray.inv_direction().set(target_vec3_buffer);
     }
 
-    private void behave(ECSLayer<BaseComponent> base_layer,
-                        ECSLayer<PhysicsComponent> phys_layer,
-                        ECSLayer<RenderComponent> rend_layer,
-                        String entity_id)
+    @Override
+    public BoundBehavior bind(ECSWorld world, String entity_id)
     {
-        var input_state   = BaseComponent.Input.<InputState>global(base_layer);
-        var velocity      = PhysicsComponent.Velocity.<Vector3d>for_entity(phys_layer, entity_id);
-        var position      = PhysicsComponent.Position.<Vector3d>for_entity(phys_layer, entity_id);
-        var rotation      = PhysicsComponent.Rotation.<Vector3d>for_entity(phys_layer, entity_id);
-        var heading       = PhysicsComponent.Heading.<Vector3d>for_entity(phys_layer, entity_id);
-        var thrust        = PhysicsComponent.Thrust.<MutableFloat>for_entity(phys_layer, entity_id);
-        var yaw           = PhysicsComponent.Yaw.<MutableFloat>for_entity(phys_layer, entity_id);
-        var ang_velocity  = PhysicsComponent.AngularVelocity.<MutableFloat>for_entity(phys_layer, entity_id);
-        var max_ang_speed = PhysicsComponent.MaxAngSpeed.<MutableFloat>for_entity(phys_layer, entity_id);
-
-        position.z = 0.0f;
-        thrust.value = 0.0f;
-        yaw.value = 0.0f;
-
-        heading.set(Math.sin(rotation.y), 0, Math.cos(rotation.y));
-        handle_key_inputs(input_state, thrust, velocity, ang_velocity, yaw, rotation, max_ang_speed);
-        handle_mouse_inputs(phys_layer, rend_layer, input_state);
+        return new Bound(world, entity_id);
     }
 
-    @Override
-    public void behave(double dt, ECSWorld world, String entity_id)
+    /// Player behavior attached to a single entity. All per-entity components and the input/mouse ray globals are
+    /// resolved once on construction. The view globals are owned by the camera and rendering systems and may not exist
+    /// yet when the behavior is bound (or at all when running headless), so they are resolved lazily until found.
+    private class Bound implements BoundBehavior
     {
-        behave(world.get(BaseComponent.class), world.get(PhysicsComponent.class), world.get(RenderComponent.class), entity_id);
+        private final ECSLayer<RenderComponent> rend_layer;
+
+        private final InputState input_state;
+        private final Ray3d mouse_ray;
+
+        private final Vector3d velocity;
+        private final Vector3d position;
+        private final Vector3d rotation;
+        private final Vector3d heading;
+        private final MutableFloat thrust;
+        private final MutableFloat yaw;
+        private final MutableFloat ang_velocity;
+        private final MutableFloat max_ang_speed;
+
+        private Window window;
+        private WorldCamera camera;
+        private MutableFloat camera_yaw;
+        private MutableFloat camera_pitch;
+        private MutableFloat camera_zoom;
+
+        Bound(ECSWorld world, String entity_id)
+        {
+            var base_layer = world.get(BaseComponent.class);
+            var phys_layer = world.get(PhysicsComponent.class);
+            rend_layer = world.get(RenderComponent.class);
+
+            var mouse_ray_entity = PhysicsComponent.MouseRay.<String>global(phys_layer);
+
+            input_state   = BaseComponent.Input.global(base_layer);
+            mouse_ray     = PhysicsComponent.RayCast.for_entity(phys_layer, mouse_ray_entity);
+            velocity      = PhysicsComponent.Velocity.for_entity(phys_layer, entity_id);
+            position      = PhysicsComponent.Position.for_entity(phys_layer, entity_id);
+            rotation      = PhysicsComponent.Rotation.for_entity(phys_layer, entity_id);
+            heading       = PhysicsComponent.Heading.for_entity(phys_layer, entity_id);
+            thrust        = PhysicsComponent.Thrust.for_entity(phys_layer, entity_id);
+            yaw           = PhysicsComponent.Yaw.for_entity(phys_layer, entity_id);
+            ang_velocity  = PhysicsComponent.AngularVelocity.for_entity(phys_layer, entity_id);
+            max_ang_speed = PhysicsComponent.MaxAngSpeed.for_entity(phys_layer, entity_id);
+
+            resolve_view();
+        }
+
+        private void resolve_view()
+        {
+            window       = RenderComponent.MainWindow.global(rend_layer);
+            camera       = RenderComponent.MainCamera.global(rend_layer);
+            camera_yaw   = RenderComponent.CameraYaw.global(rend_layer);
+            camera_pitch = RenderComponent.CameraPitch.global(rend_layer);
+            camera_zoom  = RenderComponent.CameraZoom.global(rend_layer);
+        }
+
+        @Override
+        public void behave(double dt)
+        {
+            if (window == null || camera == null || camera_zoom == null) resolve_view();
+
+            position.z = 0.0f;
+            thrust.value = 0.0f;
+            yaw.value = 0.0f;
+
+            heading.set(Math.sin(rotation.y), 0, Math.cos(rotation.y));
+            handle_key_inputs(input_state, thrust, velocity, ang_velocity, yaw, rotation, max_ang_speed);
+            handle_mouse_inputs(input_state, mouse_ray, window, camera, camera_yaw, camera_pitch, camera_zoom);
+        }
     }
 }
@@ -3,19 +3,43 @@ package com.controllerface.trongle.behavior;
 import com.juncture.alloy.behaviors.EntityBehavior;
 import com.juncture.alloy.ecs.ECSWorld;
 
+/// Enumerates the behaviors that can be attached to entities. Behaviors are meant to be bound to an entity once, with
+/// [#bind], and the resulting [BoundBehavior] reused every frame. Bindings are held by whoever runs them, normally the
+/// world's [com.controllerface.trongle.systems.BehaviorSystem], never by the behavior itself, as the same behavior is
+/// shared by every world in the process.
 public enum TrongleEntityBehavior implements EntityBehavior
 {
-    PLAYER(new PlayerBehavior()),
+    PLAYER(new PlayerBehavior(), false, 1),
+    WANDER(new WanderBehavior(), true,  4),
 
     ;
 
-    final EntityBehavior inner;
+    final BindableBehavior inner;
 
-    TrongleEntityBehavior(EntityBehavior inner)
+    /// When true, bound instances of this behavior only write to their own entity and defer all other effects, so they
+    /// may be run concurrently with other entities by a [BehaviorExecutor].
+    public final boolean parallel;
+
+    /// How often, in ticks, this behavior needs to run, passed the accumulated time since its last update. Parallel
+    /// behaviors are scheduled within a budget by the [BehaviorExecutor], and other behaviors with values above 1 are
+    /// left to a [BehaviorScheduler] to amortize across frames.
+    public final int update_interval;
+
+    TrongleEntityBehavior(BindableBehavior inner, boolean parallel, int update_interval)
     {
         this.inner = inner;
+        this.parallel = parallel;
+        this.update_interval = update_interval;
+    }
+
+    /// Binds this behavior to the given entity, resolving the components it uses in the given world.
+    public BoundBehavior bind(ECSWorld world, String entity_id)
+    {
+        return inner.bind(world, entity_id);
     }
 
+    /// Binds and runs this behavior in one go, for callers that do not keep bindings. Anything that runs behaviors
+    /// every frame should [#bind] once instead.
     @Override
     public void behave(double dt, ECSWorld world, String entity_id)
     {
@@ -0,0 +1,65 @@
+package com.controllerface.trongle.behavior;
+
+import com.juncture.alloy.data.MutableFloat;
+import com.juncture.alloy.ecs.ECSWorld;
+import com.juncture.alloy.physics.PhysicsComponent;
+import com.juncture.alloy.utils.math.MathEX;
+import org.joml.Vector3d;
+
+import java.util.SplittableRandom;
+
+/// A simple AI behavior that drifts the entity's target heading in a random walk and steers toward it at full thrust.
+/// All state is held per bound entity, and only the entity's own components are written, so it is safe to run in
+/// parallel with other entities.
+public class WanderBehavior implements BindableBehavior
+{
+    private static final double WANDER_RATE   = 2.0;  // radians per second, at the extremes of the random walk
+    private static final double YAW_THRESHOLD = 0.05; // radians
+
+    @Override
+    public BoundBehavior bind(ECSWorld world, String entity_id)
+    {
+        return new Bound(world, entity_id);
+    }
+
+    private static class Bound implements BoundBehavior
+    {
+        private final Vector3d rotation;
+        private final Vector3d heading;
+        private final MutableFloat thrust;
+        private final MutableFloat yaw;
+        private final MutableFloat max_ang_speed;
+
+        // seeded from the entity id so a given entity wanders the same way on every run
+        private final SplittableRandom random;
+        private double target_yaw;
+
+        Bound(ECSWorld world, String entity_id)
+        {
+            var phys_layer = world.get(PhysicsComponent.class);
+
+            rotation      = PhysicsComponent.Rotation.for_entity(phys_layer, entity_id);
+            heading       = PhysicsComponent.Heading.for_entity(phys_layer, entity_id);
+            thrust        = PhysicsComponent.Thrust.for_entity(phys_layer, entity_id);
+            yaw           = PhysicsComponent.Yaw.for_entity(phys_layer, entity_id);
+            max_ang_speed = PhysicsComponent.MaxAngSpeed.for_entity(phys_layer, entity_id);
+
+            random = new SplittableRandom(entity_id.hashCode());
+            target_yaw = rotation.y;
+        }
+
+        @Override
+        public void behave(double dt)
+        {
+            target_yaw += (random.nextDouble() * 2.0 - 1.0) * WANDER_RATE * dt;
+
+            heading.set(Math.sin(rotation.y), 0, Math.cos(rotation.y));
+            thrust.value = 1.0f;
+
+            double yaw_delta = MathEX.normalizeAngle(target_yaw - rotation.y);
+            yaw.value = Math.abs(yaw_delta) > YAW_THRESHOLD
+                ? (float) Math.signum(yaw_delta) * max_ang_speed.value
+                : 0.0f;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.controllerface.trongle.events;
+
+import com.juncture.alloy.events.Event;
+import com.juncture.alloy.events.EventBus;
+import com.juncture.alloy.events.EventType;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/// A subscription that keeps only the newest event of each type. This is intended for high-frequency telemetry, such as
+/// FPS and position updates, where a consumer only ever cares about the latest value, and would otherwise have to walk
+/// through every stale event emitted since it last polled.
+///
+/// The set of event types is fixed at construction and each type gets a single slot, so the channel never grows and
+/// emitting never allocates. Polling cycles through the types round-robin, returning each pending event once.
+/// Any thread may emit, but only the owning thread may poll. The number of events that were overwritten before they
+/// could be consumed is reported as [#coalesced].
+public class CoalescingEventChannel extends AbstractQueue<Event>
+{
+    private final String name;
+    private final EventType[] types;
+    private final AtomicReferenceArray<Event> slots;
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private int cursor = 0;
+
+    public CoalescingEventChannel(String name, EventType ... types)
+    {
+        this.name = name;
+        this.types = types.clone();
+        this.slots = new AtomicReferenceArray<>(types.length);
+    }
+
+    /// Registers this channel with the given event bus for every type it coalesces.
+    public void subscribe(EventBus event_bus)
+    {
+        for (var type : types)
+        {
+            event_bus.register(this, type);
+        }
+    }
+
+    private int slot_for(EventType type)
+    {
+        for (int i = 0; i < types.length; i++)
+        {
+            if (types[i] == type) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean offer(Event event)
+    {
+        int slot = slot_for(event.type());
+        if (slot == -1) return false;
+        if (slots.getAndSet(slot, event) != null)
+        {
+            coalesced.incrementAndGet();
+        }
+        return true;
+    }
+
+    @Override
+    public Event poll()
+    {
+        for (int i = 0; i < types.length; i++)
+        {
+            int slot = cursor;
+            cursor = (cursor + 1) % types.length;
+            var event = slots.getAndSet(slot, null);
+            if (event != null) return event;
+        }
+        return null;
+    }
+
+    @Override
+    public Event peek()
+    {
+        for (int i = 0; i < types.length; i++)
+        {
+            var event = slots.get((cursor + i) % types.length);
+            if (event != null) return event;
+        }
+        return null;
+    }
+
+    @Override
+    public int size()
+    {
+        int size = 0;
+        for (int i = 0; i < types.length; i++)
+        {
+            if (slots.get(i) != null) size++;
+        }
+        return size;
+    }
+
+    /// Returns a weakly consistent iterator over the pending events, in the order [#poll] would return them. Each slot
+    /// is read once, when the iterator reaches it, so events emitted or consumed while iterating may or may not be seen.
+    /// Events can only be removed by polling, so the iterator does not support [Iterator#remove].
+    @Override
+    public Iterator<Event> iterator()
+    {
+        return new Iterator<>()
+        {
+            private final int start = cursor;
+            private int step = 0;
+            private Event next = advance();
+
+            private Event advance()
+            {
+                while (step < types.length)
+                {
+                    var event = slots.get((start + step++) % types.length);
+                    if (event != null) return event;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                return next != null;
+            }
+
+            @Override
+            public Event next()
+            {
+                if (next == null) throw new NoSuchElementException();
+                var event = next;
+                next = advance();
+                return event;
+            }
+        };
+    }
+
+    public String name()
+    {
+        return name;
+    }
+
+    public long coalesced()
+    {
+        return coalesced.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CoalescingEventChannel[" + name + "] pending: " + size() + "/" + types.length
+            + " coalesced: " + coalesced();
+    }
+}
@@ -0,0 +1,279 @@
+package com.controllerface.trongle.events;
+
+import com.juncture.alloy.events.Event;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/// A bounded, lock-free, multi-producer/single-consumer ring buffer of events. It implements [java.util.Queue] so it
+/// can be registered with the event bus anywhere a `LinkedBlockingQueue` was used, but unlike a linked queue, it does
+/// not allocate a node per event, and its memory use is fixed at construction.
+///
+/// Any thread may emit into the channel, but only the owning thread may poll from it. What happens when the channel is
+/// full is set by its [OverflowPolicy], by default new events are dropped and counted rather than blocking the emitter.
+/// The channel also tracks its current depth and the highest depth it has reached, and logs a warning the first time
+/// the depth passes a configured threshold, re-arming once the channel drains below half of that threshold.
+///
+/// Slot ownership follows the usual sequence-numbered ring design: each slot carries a sequence value that tells
+/// producers when the slot is free for a given position, and tells the consumer when the slot has been published.
+public class EventChannel extends AbstractQueue<Event>
+{
+    private static final Logger LOGGER = Logger.getLogger(EventChannel.class.getName());
+
+    private static final long BLOCK_PARK_NS = 1_000;
+
+    private final String name;
+    private final int capacity;
+    private final int mask;
+    private final OverflowPolicy policy;
+    private final int warn_depth;
+    private final AtomicBoolean warned = new AtomicBoolean(false);
+
+    private final Event[] buffer;
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicLong drops      = new AtomicLong();
+    private final AtomicLong high_water = new AtomicLong();
+
+    /// Creates a channel that drops new events when full, and warns when three quarters full.
+    ///
+    /// @param name     used when reporting channel statistics
+    /// @param capacity maximum number of events held, rounded up to the next power of two
+    public EventChannel(String name, int capacity)
+    {
+        this(name, capacity, OverflowPolicy.DROP_NEWEST, capacity - (capacity / 4));
+    }
+
+    /// @param name       used when reporting channel statistics
+    /// @param capacity   maximum number of events held, rounded up to the next power of two, and to no less than two
+    /// @param policy     what to do with an event emitted while the channel is full
+    /// @param warn_depth depth at which a warning is logged
+    public EventChannel(String name, int capacity, OverflowPolicy policy, int warn_depth)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("EventChannel: " + name + " needs a capacity of at least one");
+        }
+        this.name = name;
+        this.policy = policy;
+        this.warn_depth = warn_depth;
+        this.capacity = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        this.mask = this.capacity - 1;
+        this.buffer = new Event[this.capacity];
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++)
+        {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public boolean offer(Event event)
+    {
+        while (!try_offer(event))
+        {
+            switch (policy)
+            {
+                case DROP_NEWEST ->
+                {
+                    drops.incrementAndGet();
+                    return false;
+                }
+                case DROP_OLDEST ->
+                {
+                    if (take() != null) drops.incrementAndGet();
+                }
+                case BLOCK -> LockSupport.parkNanos(BLOCK_PARK_NS);
+                case FAIL -> throw new IllegalStateException("EventChannel: " + name
+                    + " overflowed at capacity: " + capacity + " on event: " + event.type());
+            }
+        }
+        return true;
+    }
+
+    private boolean try_offer(Event event)
+    {
+        long position = tail.get();
+        int index;
+        while (true)
+        {
+            index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0)
+            {
+                if (tail.compareAndSet(position, position + 1)) break;
+            }
+            else if (difference < 0)
+            {
+                return false;
+            }
+            else
+            {
+                position = tail.get();
+            }
+        }
+
+        buffer[index] = event;
+        sequences.set(index, position + 1);
+
+        long depth = position + 1 - head.get();
+        if (depth > high_water.get())
+        {
+            high_water.accumulateAndGet(depth, Math::max);
+        }
+        if (depth >= warn_depth && warned.compareAndSet(false, true))
+        {
+            LOGGER.warning(this + " passed warning depth: " + warn_depth);
+        }
+        return true;
+    }
+
+    /// Same as [#offer]. Overridden so a full channel applies its overflow policy instead of always throwing.
+    @Override
+    public boolean add(Event event)
+    {
+        return offer(event);
+    }
+
+    @Override
+    public Event poll()
+    {
+        var event = take();
+        if (event != null && warned.get() && depth() < warn_depth / 2)
+        {
+            warned.set(false);
+        }
+        return event;
+    }
+
+    /// Removes the oldest published event. The head is advanced with a CAS rather than a plain write so that a producer
+    /// applying the drop-oldest policy can safely race the consumer for the same slot; whichever side wins the CAS owns
+    /// the event and releases the slot.
+    private Event take()
+    {
+        while (true)
+        {
+            long position = head.get();
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) return null;
+
+            var event = buffer[index];
+            if (head.compareAndSet(position, position + 1))
+            {
+                buffer[index] = null;
+                sequences.set(index, position + capacity);
+                return event;
+            }
+        }
+    }
+
+    @Override
+    public Event peek()
+    {
+        long position = head.get();
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) return null;
+        return buffer[index];
+    }
+
+    @Override
+    public int size()
+    {
+        return depth();
+    }
+
+    /// Returns a weakly consistent iterator over the queued events, oldest first. It never throws
+    /// [java.util.ConcurrentModificationException], reflects the channel at some point at or after its creation, and
+    /// skips any event consumed or dropped while it is in use. Events can only be removed by polling, so the iterator
+    /// does not support [Iterator#remove].
+    @Override
+    public Iterator<Event> iterator()
+    {
+        return new Iterator<>()
+        {
+            private long position = head.get();
+            private Event next = advance();
+
+            private Event advance()
+            {
+                long end = tail.get();
+                while (position < end)
+                {
+                    // anything behind the head has been consumed since the last step
+                    position = Math.max(position, head.get());
+                    if (position >= end) break;
+
+                    int index = (int) position & mask;
+                    long published = position++ + 1;
+                    if (sequences.get(index) != published) continue;
+
+                    // the slot may be taken between the two sequence reads, in which case its event is skipped
+                    var event = buffer[index];
+                    if (event != null && sequences.get(index) == published) return event;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                return next != null;
+            }
+
+            @Override
+            public Event next()
+            {
+                if (next == null) throw new NoSuchElementException();
+                var event = next;
+                next = advance();
+                return event;
+            }
+        };
+    }
+
+    public String name()
+    {
+        return name;
+    }
+
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    public OverflowPolicy policy()
+    {
+        return policy;
+    }
+
+    public int depth()
+    {
+        return (int) Math.max(0, Math.min(capacity, tail.get() - head.get()));
+    }
+
+    public long drops()
+    {
+        return drops.get();
+    }
+
+    public long high_water_mark()
+    {
+        return high_water.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "EventChannel[" + name + "] depth: " + depth() + "/" + capacity
+            + " high water: " + high_water_mark() + " drops: " + drops();
+    }
+}
@@ -6,4 +6,6 @@ public enum GameEvent implements EventType
 {
     MODE_SWiTCH,
     ENTITY_DESTROYED,
+    SYSTEM_TIMING,
+    HUD_TELEMETRY,
 }
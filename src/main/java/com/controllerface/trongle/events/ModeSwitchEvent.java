@@ -4,6 +4,9 @@ import com.juncture.alloy.events.Event;
 
 public record ModeSwitchEvent(GameEvent type) implements Event
 {
+    /// Mode switch events carry no data, so a single shared instance is emitted rather than allocating one per switch.
+    public static final ModeSwitchEvent INSTANCE = new ModeSwitchEvent();
+
     public ModeSwitchEvent()
     {
         this(GameEvent.MODE_SWiTCH);
@@ -0,0 +1,21 @@
+package com.controllerface.trongle.events;
+
+/// Determines what an [EventChannel] does when an event is emitted while the channel is full.
+public enum OverflowPolicy
+{
+    /// The new event is discarded and counted as a drop. This is the default, and is appropriate for any channel where
+    /// losing an event under load is preferable to stalling the emitter.
+    DROP_NEWEST,
+
+    /// The oldest queued event is discarded to make room for the new one, and counted as a drop. Appropriate for
+    /// streams where only recent events matter.
+    DROP_OLDEST,
+
+    /// The emitter waits until the consumer makes room. Only safe when the emitter and consumer run on different
+    /// threads, otherwise the emitter will wait forever.
+    BLOCK,
+
+    /// An [IllegalStateException] is thrown on the emitting thread. Appropriate for channels where a lost event would
+    /// leave the consumer in an inconsistent state, so overflowing is a bug that should be surfaced immediately.
+    FAIL,
+}
@@ -0,0 +1,9 @@
+package com.controllerface.trongle.events;
+
+import com.juncture.alloy.events.Event;
+
+/// Signals that coalesced debug HUD telemetry is waiting to be shown.
+public record TelemetryEvent(GameEvent type) implements Event
+{
+    public static final TelemetryEvent INSTANCE = new TelemetryEvent(GameEvent.HUD_TELEMETRY);
+}
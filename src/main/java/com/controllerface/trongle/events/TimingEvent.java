@@ -0,0 +1,9 @@
+package com.controllerface.trongle.events;
+
+import com.juncture.alloy.events.Event;
+
+/// Signals that a new interval of system tick timings has been published.
+public record TimingEvent(GameEvent type) implements Event
+{
+    public static final TimingEvent INSTANCE = new TimingEvent(GameEvent.SYSTEM_TIMING);
+}
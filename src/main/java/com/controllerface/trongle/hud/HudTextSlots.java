@@ -0,0 +1,246 @@
+package com.controllerface.trongle.hud;
+
+import com.juncture.alloy.ui.TextContainer;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/// A fixed set of mutable HUD text slots, addressed by int index. Each slot mirrors one entry in a text box map, and
+/// holds its current characters in a reusable buffer. Updates are formatted into a scratch buffer and compared against
+/// the current characters, so the text box entry is only replaced, and the HUD only needs rebuilding, when the visible
+/// text actually changes. Each slot can also limit how often it accepts updates, for values that change every frame but
+/// do not need to be read at that rate. An update that arrives too soon is held as the slot's pending text rather than
+/// dropped, and [#flush] shows it once the interval has passed, so the last value set is always the one shown.
+///
+/// Setting a value does not allocate. Text containers are immutable, so showing new text needs a new `String` and
+/// `TextContainer`, unless the slot showed the same text recently, in which case that container is put back instead.
+public class HudTextSlots
+{
+    private static final int RECENT_TEXTS = 8;
+
+    private final String[] keys;
+    private final char[][] chars;
+    private final int[] lengths;
+    private final char[][] pending;
+    private final int[] pending_lengths;
+    private final boolean[] has_pending;
+    private final TextContainer[][] recent;
+    private final int[] recent_next;
+    private final long[] min_interval_ns;
+    private final long[] last_update_ns;
+    private final char[] scratch;
+
+    private Map<String, TextContainer> text_boxes;
+    private int count = 0;
+
+    /// @param capacity        maximum number of slots
+    /// @param max_text_length maximum characters per slot, longer text is truncated
+    public HudTextSlots(int capacity, int max_text_length)
+    {
+        keys            = new String[capacity];
+        chars           = new char[capacity][max_text_length];
+        lengths         = new int[capacity];
+        pending         = new char[capacity][max_text_length];
+        pending_lengths = new int[capacity];
+        has_pending     = new boolean[capacity];
+        recent          = new TextContainer[capacity][RECENT_TEXTS];
+        recent_next     = new int[capacity];
+        min_interval_ns = new long[capacity];
+        last_update_ns  = new long[capacity];
+        scratch         = new char[max_text_length];
+    }
+
+    /// Sets the text box map that slots write into. Must be called before any slot is updated.
+    public void bind(Map<String, TextContainer> text_boxes)
+    {
+        this.text_boxes = text_boxes;
+        for (int slot = 0; slot < count; slot++)
+        {
+            var current = text_boxes.get(keys[slot]);
+            if (current != null) lengths[slot] = copy(current.message(), chars[slot]);
+            Arrays.fill(recent[slot], null);
+        }
+    }
+
+    /// Adds a slot for the given text box key, returning its index.
+    ///
+    /// @param min_interval_ms updates that arrive sooner than this after the last shown update are held until [#flush]
+    public int add(String key, long min_interval_ms)
+    {
+        if (count == keys.length)
+        {
+            throw new IllegalStateException("HUD text slots full, capacity: " + keys.length);
+        }
+        keys[count] = key;
+        min_interval_ns[count] = min_interval_ms * 1_000_000L;
+        last_update_ns[count] = Long.MIN_VALUE / 2;
+        return count++;
+    }
+
+    /// Sets the slot to the given text. Returns true if the visible text changed.
+    public boolean set(int slot, CharSequence text, long now_ns)
+    {
+        return offer(slot, copy(text, scratch), now_ns);
+    }
+
+    /// Sets the slot to the given value, formatted with a fixed number of decimal places. Returns true if the visible
+    /// text changed.
+    public boolean set(int slot, double value, int decimals, long now_ns)
+    {
+        return offer(slot, format(value, decimals, scratch), now_ns);
+    }
+
+    /// Shows the pending text of every slot whose update interval has passed. Returns true if any visible text changed.
+    public boolean flush(long now_ns)
+    {
+        boolean changed = false;
+        for (int slot = 0; slot < count; slot++)
+        {
+            if (!has_pending[slot] || !due(slot, now_ns)) continue;
+
+            int length = pending_lengths[slot];
+            System.arraycopy(pending[slot], 0, scratch, 0, length);
+            has_pending[slot] = false;
+            last_update_ns[slot] = now_ns;
+            changed |= commit(slot, length);
+        }
+        return changed;
+    }
+
+    /// Returns true if any slot holds text that arrived too soon to be shown, and is waiting on [#flush].
+    public boolean pending()
+    {
+        for (int slot = 0; slot < count; slot++)
+        {
+            if (has_pending[slot]) return true;
+        }
+        return false;
+    }
+
+    private boolean due(int slot, long now_ns)
+    {
+        return now_ns - last_update_ns[slot] >= min_interval_ns[slot];
+    }
+
+    /// Shows the text in the scratch buffer if the slot's interval has passed, otherwise holds it as pending.
+    private boolean offer(int slot, int length, long now_ns)
+    {
+        if (!due(slot, now_ns))
+        {
+            System.arraycopy(scratch, 0, pending[slot], 0, length);
+            pending_lengths[slot] = length;
+            has_pending[slot] = true;
+            return false;
+        }
+        has_pending[slot] = false;
+        last_update_ns[slot] = now_ns;
+        return commit(slot, length);
+    }
+
+    private boolean commit(int slot, int length)
+    {
+        var current = chars[slot];
+        if (length == lengths[slot])
+        {
+            boolean same = true;
+            for (int i = 0; i < length; i++)
+            {
+                if (current[i] != scratch[i])
+                {
+                    same = false;
+                    break;
+                }
+            }
+            if (same) return false;
+        }
+
+        System.arraycopy(scratch, 0, current, 0, length);
+        lengths[slot] = length;
+
+        // replacing the value of an existing key does not allocate a new map entry
+        text_boxes.put(keys[slot], container(slot, current, length));
+        return true;
+    }
+
+    /// Returns a container showing the given text, reusing one the slot showed recently if there is one.
+    private TextContainer container(int slot, char[] text, int length)
+    {
+        var containers = recent[slot];
+        for (var container : containers)
+        {
+            if (container != null && matches(container.message(), text, length)) return container;
+        }
+
+        var box = text_boxes.get(keys[slot]);
+        var container = new TextContainer(box.snap(), new String(text, 0, length), box.x(), box.y(), box.scale());
+        containers[recent_next[slot]] = container;
+        recent_next[slot] = (recent_next[slot] + 1) % RECENT_TEXTS;
+        return container;
+    }
+
+    private static boolean matches(String message, char[] text, int length)
+    {
+        if (message.length() != length) return false;
+        for (int i = 0; i < length; i++)
+        {
+            if (message.charAt(i) != text[i]) return false;
+        }
+        return true;
+    }
+
+    private static int copy(CharSequence text, char[] out)
+    {
+        int length = Math.min(text.length(), out.length);
+        for (int i = 0; i < length; i++)
+        {
+            out[i] = text.charAt(i);
+        }
+        return length;
+    }
+
+    /// Formats a value in fixed-point notation into the output buffer, returning the number of characters written.
+    /// Values too large to fit in a `long` after scaling are written as "OVF". If the buffer is too short, decimal
+    /// places are dropped from the end, and if even the whole part and sign do not fit, "OVF" is written instead, so a
+    /// short buffer never shows a different number.
+    public static int format(double value, int decimals, char[] out)
+    {
+        if (Double.isNaN(value)) return copy("NaN", out);
+        if (Double.isInfinite(value)) return copy(value > 0 ? "Inf" : "-Inf", out);
+
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) scale *= 10;
+
+        double scaled = Math.abs(value) * scale;
+        if (scaled >= Long.MAX_VALUE) return copy("OVF", out);
+
+        long fixed = Math.round(scaled);
+        boolean negative = value < 0 && fixed != 0;
+
+        int whole_digits = 1;
+        for (long whole = fixed / scale; whole >= 10; whole /= 10) whole_digits++;
+        int whole_length = whole_digits + (negative ? 1 : 0);
+        if (whole_length > out.length) return copy("OVF", out);
+
+        // decimal places that fit after the whole part, and the point, which is left off if none of them do
+        int shown = Math.min(decimals, Math.max(0, out.length - whole_length - 1));
+        for (int i = shown; i < decimals; i++) fixed /= 10;
+
+        // write digits back to front, then the sign
+        int length = whole_length + (shown > 0 ? shown + 1 : 0);
+        int pos = length;
+        for (int i = 0; i < shown; i++)
+        {
+            out[--pos] = (char) ('0' + (fixed % 10));
+            fixed /= 10;
+        }
+        if (shown > 0) out[--pos] = '.';
+        do
+        {
+            out[--pos] = (char) ('0' + (fixed % 10));
+            fixed /= 10;
+        }
+        while (fixed > 0);
+        if (negative) out[--pos] = '-';
+        return length;
+    }
+}
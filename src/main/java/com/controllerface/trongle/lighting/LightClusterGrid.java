@@ -0,0 +1,416 @@
+package com.controllerface.trongle.lighting;
+
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import org.joml.Vector4f;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/// A froxel grid over the view frustum, listing for each cell the point and spot lights whose range reaches into it,
+/// so a fragment shader only has to shade the lights in its own cell. The grid is `tiles_x` by `tiles_y` screen tiles
+/// and `slices` depth slices, spaced exponentially between the near and far planes given to [#set_projection], so
+/// cells stay roughly cube shaped with distance. Fragments before the first or past the last boundary fall into the
+/// first or last slice, which extend to the projection's own near and far planes.
+///
+/// Lights are given as bounding spheres, four floats each, `x, y, z, radius` in world space, and a radius of zero or
+/// less skips the light. Each build first bounds every light in view space, in parallel across lights, then fills the
+/// cells, in parallel across slices, testing each light against the boxes of the cells its bounds overlap. Lights are
+/// listed in index order, points before spots, so the result doesn't depend on how work was split. A cell holds at
+/// most `max_per_cell` lights, any past that are dropped and counted in [#dropped].
+///
+/// After a build the grid is read through [#cells], two ints per cell, the offset of its lights in [#lights] and its
+/// point count in the low 16 bits with its spot count in the high 16, and [#lights], which holds [#light_count] light
+/// indices. Cells are ordered by slice, then tile row, then tile column.
+///
+/// Builds run on the given fork-join pool, which is shared with the rest of the game and not owned by the grid, and a
+/// grid must only be built from one thread at a time.
+public final class LightClusterGrid
+{
+    private static final int LIGHT_GRAIN = 512;
+
+    private final ForkJoinPool pool;
+    private final int tiles_x;
+    private final int tiles_y;
+    private final int slices;
+    private final int max_per_cell;
+    private final int cell_count;
+
+    /// View space bounds of each cell: min x, y, z then max x, y, z.
+    private final float[] cell_bounds;
+    private final float[] slice_depth;
+
+    private final int[] point_counts;
+    private final int[] spot_counts;
+    private final int[] scratch;
+    private final int[] cells;
+    private int[] lights;
+    private int light_count = 0;
+    private int dropped = 0;
+
+    private float near = 1.0f;
+    private float far = 2.0f;
+    private float log_depth_ratio = (float) Math.log(2.0);
+    private float p00, p11, p20, p21;
+
+    /// View space sphere of each light, cx, cy, cz and radius, and the first and last slice it reaches. A first slice
+    /// greater than the last marks a light with nothing in view.
+    private float[] point_view = new float[0];
+    private int[] point_range = new int[0];
+    private float[] spot_view = new float[0];
+    private int[] spot_range = new int[0];
+
+    private final Matrix4f inverse_projection = new Matrix4f();
+    private final Vector4f corner = new Vector4f();
+
+    public LightClusterGrid(int tiles_x, int tiles_y, int slices, int max_per_cell, ForkJoinPool pool)
+    {
+        if (tiles_x <= 0 || tiles_y <= 0 || slices <= 0 || max_per_cell <= 0 || max_per_cell > 0xFFFF)
+        {
+            throw new IllegalArgumentException("Invalid light cluster grid dimensions");
+        }
+        this.pool = pool;
+        this.tiles_x = tiles_x;
+        this.tiles_y = tiles_y;
+        this.slices = slices;
+        this.max_per_cell = max_per_cell;
+        this.cell_count = tiles_x * tiles_y * slices;
+
+        cell_bounds = new float[cell_count * 6];
+        slice_depth = new float[slices + 1];
+        point_counts = new int[cell_count];
+        spot_counts = new int[cell_count];
+        scratch = new int[cell_count * max_per_cell];
+        cells = new int[cell_count * 2];
+        lights = new int[cell_count * 4];
+    }
+
+    public int tiles_x()
+    {
+        return tiles_x;
+    }
+
+    public int tiles_y()
+    {
+        return tiles_y;
+    }
+
+    public int slices()
+    {
+        return slices;
+    }
+
+    public int cell_count()
+    {
+        return cell_count;
+    }
+
+    public float near()
+    {
+        return near;
+    }
+
+    public float far()
+    {
+        return far;
+    }
+
+    public int[] cells()
+    {
+        return cells;
+    }
+
+    public int[] lights()
+    {
+        return lights;
+    }
+
+    public int light_count()
+    {
+        return light_count;
+    }
+
+    /// Number of light entries dropped from full cells in the last build.
+    public int dropped()
+    {
+        return dropped;
+    }
+
+    /// Slices the frustum of the given projection between `near` and `far`, which are clamped to the projection's own
+    /// planes, and recomputes the bounds of every cell. Only needs calling again when the projection changes.
+    public void set_projection(Matrix4fc projection, float near, float far)
+    {
+        float projection_near = projection.perspectiveNear();
+        float projection_far = projection.perspectiveFar();
+        this.near = Math.clamp(near, projection_near, projection_far);
+        this.far = Math.clamp(far, this.near * 1.001f, projection_far);
+        this.log_depth_ratio = (float) Math.log(this.far / this.near);
+
+        p00 = projection.m00();
+        p11 = projection.m11();
+        p20 = projection.m20();
+        p21 = projection.m21();
+
+        for (int k = 0; k <= slices; k++)
+        {
+            slice_depth[k] = (float) (this.near * Math.pow(this.far / this.near, (double) k / slices));
+        }
+        slice_depth[0] = projection_near;
+        slice_depth[slices] = projection_far;
+
+        projection.invert(inverse_projection);
+        for (int k = 0; k < slices; k++)
+        {
+            for (int ty = 0; ty < tiles_y; ty++)
+            {
+                for (int tx = 0; tx < tiles_x; tx++)
+                {
+                    set_cell_bounds(tx, ty, k);
+                }
+            }
+        }
+    }
+
+    /// Bounds of a cell are the box around the tile's four corner rays, cut at the slice's two depths.
+    private void set_cell_bounds(int tx, int ty, int k)
+    {
+        int base = cell_index(tx, ty, k) * 6;
+        float min_x = Float.MAX_VALUE, min_y = Float.MAX_VALUE, max_x = -Float.MAX_VALUE, max_y = -Float.MAX_VALUE;
+        for (int c = 0; c < 4; c++)
+        {
+            float ndc_x = (float) (tx + (c & 1)) / tiles_x * 2.0f - 1.0f;
+            float ndc_y = (float) (ty + (c >> 1)) / tiles_y * 2.0f - 1.0f;
+            inverse_projection.transform(corner.set(ndc_x, ndc_y, -1.0f, 1.0f));
+            float dx = corner.x / corner.w;
+            float dy = corner.y / corner.w;
+            float dz = -corner.z / corner.w;
+            for (int d = 0; d < 2; d++)
+            {
+                float depth = slice_depth[k + d];
+                float x = dx * depth / dz;
+                float y = dy * depth / dz;
+                min_x = Math.min(min_x, x);
+                min_y = Math.min(min_y, y);
+                max_x = Math.max(max_x, x);
+                max_y = Math.max(max_y, y);
+            }
+        }
+        cell_bounds[base]     = min_x;
+        cell_bounds[base + 1] = min_y;
+        cell_bounds[base + 2] = -slice_depth[k + 1];
+        cell_bounds[base + 3] = max_x;
+        cell_bounds[base + 4] = max_y;
+        cell_bounds[base + 5] = -slice_depth[k];
+    }
+
+    private int cell_index(int tx, int ty, int k)
+    {
+        return (k * tiles_y + ty) * tiles_x + tx;
+    }
+
+    /// Rebuilds the cell lists for the given view from the given light spheres.
+    public void build(Matrix4fc view, float[] points, int point_count, float[] spots, int spot_count)
+    {
+        if (point_view.length < point_count * 4)
+        {
+            point_view = new float[point_count * 4];
+            point_range = new int[point_count * 2];
+        }
+        if (spot_view.length < spot_count * 4)
+        {
+            spot_view = new float[spot_count * 4];
+            spot_range = new int[spot_count * 2];
+        }
+
+        run(point_count, LIGHT_GRAIN, i -> bound_light(view, points, point_view, point_range, i));
+        run(spot_count, LIGHT_GRAIN, i -> bound_light(view, spots, spot_view, spot_range, i));
+
+        Arrays.fill(point_counts, 0);
+        Arrays.fill(spot_counts, 0);
+        dropped = 0;
+        run(slices, 1, k ->
+        {
+            fill_slice(k, point_view, point_range, point_count, point_counts, 0);
+            fill_slice(k, spot_view, spot_range, spot_count, spot_counts, 1);
+        });
+
+        compact();
+    }
+
+    private void bound_light(Matrix4fc view, float[] spheres, float[] out_view, int[] out_range, int i)
+    {
+        int s = i * 4;
+        int r = i * 2;
+        float radius = spheres[s + 3];
+        float x = spheres[s], y = spheres[s + 1], z = spheres[s + 2];
+
+        float cx = view.m00() * x + view.m10() * y + view.m20() * z + view.m30();
+        float cy = view.m01() * x + view.m11() * y + view.m21() * z + view.m31();
+        float cz = view.m02() * x + view.m12() * y + view.m22() * z + view.m32();
+        out_view[s]     = cx;
+        out_view[s + 1] = cy;
+        out_view[s + 2] = cz;
+        out_view[s + 3] = radius;
+
+        // the sphere's depth range, clipped to the frustum, decides the slices it can reach
+        float depth_near = Math.max(-cz - radius, slice_depth[0]);
+        float depth_far = Math.min(-cz + radius, slice_depth[slices]);
+        if (radius <= 0.0f || depth_near > depth_far || !on_screen(cx, cy, radius, depth_near, depth_far, null))
+        {
+            out_range[r] = 1;
+            out_range[r + 1] = 0;
+            return;
+        }
+        out_range[r] = slice(depth_near);
+        out_range[r + 1] = slice(depth_far);
+    }
+
+    /// Finds the tiles covered by the box around a view space sphere, cut to the given depths, and writes the first
+    /// and last tile x then tile y into `tiles`, if given. Returns false if the box is entirely off screen.
+    private boolean on_screen(float cx, float cy, float radius, float depth_near, float depth_far, int[] tiles)
+    {
+        // screen position is monotonic in x and in depth separately, so the box's extremes are at its corners
+        float min_x = Float.MAX_VALUE, max_x = -Float.MAX_VALUE, min_y = Float.MAX_VALUE, max_y = -Float.MAX_VALUE;
+        for (int c = 0; c < 4; c++)
+        {
+            float depth = (c & 2) == 0 ? depth_near : depth_far;
+            float side = (c & 1) == 0 ? -radius : radius;
+            float ndc_x = (p00 * (cx + side) - p20 * depth) / depth;
+            float ndc_y = (p11 * (cy + side) - p21 * depth) / depth;
+            min_x = Math.min(min_x, ndc_x);
+            max_x = Math.max(max_x, ndc_x);
+            min_y = Math.min(min_y, ndc_y);
+            max_y = Math.max(max_y, ndc_y);
+        }
+        if (min_x > 1.0f || max_x < -1.0f || min_y > 1.0f || max_y < -1.0f) return false;
+
+        if (tiles != null)
+        {
+            tiles[0] = tile(min_x, tiles_x);
+            tiles[1] = tile(max_x, tiles_x);
+            tiles[2] = tile(min_y, tiles_y);
+            tiles[3] = tile(max_y, tiles_y);
+        }
+        return true;
+    }
+
+    private static int tile(float ndc, int tiles)
+    {
+        return Math.clamp((int) Math.floor((ndc * 0.5f + 0.5f) * tiles), 0, tiles - 1);
+    }
+
+    /// The slice containing the given view depth, matching the lookup in `_layout/LightClusters.glsl`.
+    private int slice(float depth)
+    {
+        return Math.clamp((int) Math.floor(Math.log(depth / near) / log_depth_ratio * slices), 0, slices - 1);
+    }
+
+    private void fill_slice(int k, float[] view, int[] range, int count, int[] counts, int kind)
+    {
+        var tiles = new int[4];
+        for (int i = 0; i < count; i++)
+        {
+            if (k < range[i * 2] || k > range[i * 2 + 1]) continue;
+
+            int s = i * 4;
+            float cx = view[s], cy = view[s + 1], cz = view[s + 2], radius = view[s + 3];
+
+            // only the part of the sphere within this slice matters, which covers fewer tiles than the whole sphere
+            float depth_near = Math.max(-cz - radius, slice_depth[k]);
+            float depth_far = Math.min(-cz + radius, slice_depth[k + 1]);
+            if (!on_screen(cx, cy, radius, depth_near, depth_far, tiles)) continue;
+
+            float radius_sq = radius * radius;
+            for (int ty = tiles[2]; ty <= tiles[3]; ty++)
+            {
+                for (int tx = tiles[0]; tx <= tiles[1]; tx++)
+                {
+                    int cell = cell_index(tx, ty, k);
+                    if (distance_sq(cell, cx, cy, cz) > radius_sq) continue;
+
+                    // points are listed first, so a spot goes after however many points the cell ended up with
+                    int used = point_counts[cell] + (kind == 0 ? 0 : spot_counts[cell]);
+                    if (used >= max_per_cell)
+                    {
+                        synchronized (this) { dropped++; }
+                        continue;
+                    }
+                    scratch[cell * max_per_cell + used] = i;
+                    counts[cell]++;
+                }
+            }
+        }
+    }
+
+    private float distance_sq(int cell, float x, float y, float z)
+    {
+        int b = cell * 6;
+        float dx = Math.max(Math.max(cell_bounds[b] - x, 0.0f), x - cell_bounds[b + 3]);
+        float dy = Math.max(Math.max(cell_bounds[b + 1] - y, 0.0f), y - cell_bounds[b + 4]);
+        float dz = Math.max(Math.max(cell_bounds[b + 2] - z, 0.0f), z - cell_bounds[b + 5]);
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private void compact()
+    {
+        int total = 0;
+        for (int cell = 0; cell < cell_count; cell++)
+        {
+            total += point_counts[cell] + spot_counts[cell];
+        }
+        if (lights.length < total) lights = new int[Math.max(total, lights.length * 2)];
+
+        int offset = 0;
+        for (int cell = 0; cell < cell_count; cell++)
+        {
+            int count = point_counts[cell] + spot_counts[cell];
+            System.arraycopy(scratch, cell * max_per_cell, lights, offset, count);
+            cells[cell * 2] = offset;
+            cells[cell * 2 + 1] = point_counts[cell] | spot_counts[cell] << 16;
+            offset += count;
+        }
+        light_count = total;
+    }
+
+    /// Runs the task for every index below `count`, split across the pool in ranges of at least `grain` indices.
+    private void run(int count, int grain, IntConsumer task)
+    {
+        if (count == 0) return;
+        if (count <= grain || pool.getParallelism() == 1)
+        {
+            for (int i = 0; i < count; i++) task.accept(i);
+            return;
+        }
+        pool.invoke(new RangeTask(task, 0, count, grain));
+    }
+
+    private static final class RangeTask extends RecursiveAction
+    {
+        private final IntConsumer task;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        private RangeTask(IntConsumer task, int from, int to, int grain)
+        {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= grain)
+            {
+                for (int i = from; i < to; i++) task.accept(i);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(task, from, mid, grain), new RangeTask(task, mid, to, grain));
+        }
+    }
+}
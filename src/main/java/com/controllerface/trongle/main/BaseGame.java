@@ -1,13 +1,31 @@
 package com.controllerface.trongle.main;
 
+import com.controllerface.trongle.assets.AssetLoader;
+import com.controllerface.trongle.assets.CubeMapBaker;
 import com.controllerface.trongle.behavior.TrongleEntityBehavior;
+import com.controllerface.trongle.events.CoalescingEventChannel;
+import com.controllerface.trongle.events.EventChannel;
 import com.controllerface.trongle.events.GameEvent;
+import com.controllerface.trongle.events.OverflowPolicy;
+import com.controllerface.trongle.events.TelemetryEvent;
+import com.controllerface.trongle.events.TimingEvent;
+import com.controllerface.trongle.hud.HudTextSlots;
+import com.controllerface.trongle.metrics.SystemTimings;
+import com.controllerface.trongle.shaders.ShaderSource;
 import com.controllerface.trongle.events.ModeSwitchEvent;
+import com.controllerface.trongle.systems.BehaviorSystem;
+import com.controllerface.trongle.systems.CloudSystem;
+import com.controllerface.trongle.systems.LightClusterSystem;
+import com.controllerface.trongle.systems.NoiseBakingSystem;
+import com.controllerface.trongle.systems.SkyBlendSystem;
+import com.controllerface.trongle.systems.TerrainLodSystem;
 import com.controllerface.trongle.systems.UpkeepSystem;
+import com.controllerface.trongle.terrain.TerrainLod;
+import com.controllerface.trongle.terrain.TerrainShape;
 import com.controllerface.trongle.input.InputBinding;
 import com.controllerface.trongle.input.InputState;
+import com.controllerface.trongle.lighting.LightClusterGrid;
 import com.juncture.alloy.base.CameraSystem;
-import com.juncture.alloy.base.EntityBehaviorSystem;
 import com.juncture.alloy.base.TransformUpdateSystem;
 import com.juncture.alloy.base.debug.*;
 import com.juncture.alloy.camera.WorldCamera;
@@ -40,10 +58,17 @@ import org.joml.Vector4f;
 
 import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.LinkedBlockingQueue;
-
-public class BaseGame extends GameMode
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+public class BaseGame extends GameMode implements ReleasableMode
 {
+    private static final Logger LOGGER = Logger.getLogger(BaseGame.class.getName());
+
     private static final boolean DEBUG_MODE = true;
 
     private static final float CENTER_PITCH = -90f;
@@ -55,7 +80,64 @@ public class BaseGame extends GameMode
     private static final float ZOOM_SPEED   =  10.0f;
     private static final float ZOOM_RATE    =  0.001f;
 
-    private final Queue<Event> event_queue = new LinkedBlockingQueue<>();
+    private static final int  HUD_TEXT_LENGTH = 64;
+    private static final long HUD_POSITION_MS = 100;
+    private static final long HUD_VIEW_MS     = 50;
+    private static final long HUD_FPS_MS      = 250;
+    private static final int  HUD_TIMING_ROWS = 16;
+
+    /// The terrain pass's patch grid, shared with the terrain LOD so the patches it culls are the ones drawn.
+    private static final TerrainShape TERRAIN_SHAPE = new TerrainShape(512.0f * 8, 128);
+
+    /// Patches are culled against a box spanning the lowest and highest heights the terrain pass is configured with,
+    /// padded by the most the shaders displace a vertex, and each patch edge is split into segments of about eight
+    /// pixels on screen, scaled down when the visible terrain would need more than the triangle budget.
+    private static final float TERRAIN_MIN_HEIGHT   = -1000.0f - 15.0f;
+    private static final float TERRAIN_MAX_HEIGHT   =  2048.0f + 15.0f;
+    private static final float TESS_MIN_LEVEL       =  1.0f;
+    private static final float TESS_MAX_LEVEL       =  64.0f;
+    private static final float TESS_TARGET_PIXELS   =  8.0f;
+    private static final long  TESS_TRIANGLE_BUDGET =  Long.getLong("trongle.terrain_triangle_budget", 2_000_000);
+
+    // the cloud layer is drawn at a fraction of the window size, shading half its texels each frame by default, and
+    // both can be changed at runtime through the CloudQuality MBean
+    private static final float   CLOUD_HEIGHT       = 2000.0f;
+    private static final float   CLOUD_EXTENT       = 32_768.0f;
+    private static final float   CLOUD_SCALE        =
+        Float.parseFloat(System.getProperty("trongle.cloud_scale", "0.5"));
+    private static final boolean CLOUD_CHECKERBOARD =
+        Boolean.parseBoolean(System.getProperty("trongle.cloud_checkerboard", "true"));
+
+    // a single black texel, used for every face of the cube map that stands in for the skies the alloy passes bind
+    private static final String PLACEHOLDER_SKY_FACE = "/img/placeholder_sky.png";
+
+    // point and spot lights are culled into a 16:9 grid of froxels, sliced out to the furthest a light is ever seen,
+    // with light ranges padded by how far a light can move in the frame or two the light readback lags behind
+    private static final int   CLUSTER_TILES_X      = 16;
+    private static final int   CLUSTER_TILES_Y      = 9;
+    private static final int   CLUSTER_SLICES       = 24;
+    private static final int   CLUSTER_MAX_LIGHTS   = 128;
+    private static final float CLUSTER_NEAR         = 1.0f;
+    private static final float CLUSTER_FAR          = 4096.0f;
+    private static final float CLUSTER_LIGHT_MARGIN = 8.0f;
+
+    // work split across cores within a frame, and the noise tiles produced in the background, all run on one pool owned
+    // by the game, leaving a core for the main thread, and the pool only starts its threads once there is work to
+    // split. The background work holds itself to part of the pool, so the frame work is never starved
+    private static final int WORKER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    private static final long LOAD_POLL_NS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final EventChannel event_queue = new EventChannel("base_game", 1024, OverflowPolicy.DROP_OLDEST, 256);
+
+    // the debug HUD only ever shows the newest of each value, so they are coalesced here and handed over once a frame
+    private final CoalescingEventChannel hud_telemetry = new CoalescingEventChannel("hud_telemetry",
+        CoreEvent.FPS,
+        DebugEvent.VIEW_PITCH,
+        DebugEvent.VIEW_YAW,
+        DebugEvent.VIEW_DIST,
+        DebugEvent.CAMERA_POSITION,
+        DebugEvent.PLAYER_POSITION);
 
     private final Duration DAY_LENGTH = Duration.ofMinutes(15);
     private final Vector3f sun_direction = new Vector3f(0.0f, -1.0f, 0.0f);
@@ -66,10 +148,12 @@ public class BaseGame extends GameMode
 
     private String player_entity;
     private InputState input_state;
+    private BehaviorSystem behaviors;
     private final EventBus event_bus;
     private boolean latched = false;
 
     private final GL_GraphicsController gl_controller;
+    private final boolean headless;
 
     private final ECSLayer<BaseComponent>    base_layer;
     private final ECSLayer<PhysicsComponent> phys_layer;
@@ -78,7 +162,28 @@ public class BaseGame extends GameMode
 
     private final MutableFloat time_index = new MutableFloat(0.0f);
 
-    private final GPUResourceGroup resources = new GPUResourceGroup();
+    private final ForkJoinPool workers = new ForkJoinPool(WORKER_THREADS);
+
+    private GPUResourceGroup resources = new GPUResourceGroup();
+
+    private boolean active = false;
+    private boolean initialized = false;
+    private boolean simulation_initialized = false;
+    private List<ECSSystem> rendering_systems = List.of();
+    private int rendering_index = -1;
+
+    private final SystemTimings system_timings = new SystemTimings();
+    private final StringBuilder timing_line = new StringBuilder(HUD_TEXT_LENGTH);
+    private final char[] timing_digits = new char[32];
+
+    private final HudTextSlots hud_slots = new HudTextSlots(6 + HUD_TIMING_ROWS, HUD_TEXT_LENGTH);
+    private final int hud_fps             = hud_slots.add("fps", HUD_FPS_MS);
+    private final int hud_pitch           = hud_slots.add("pitch", HUD_VIEW_MS);
+    private final int hud_yaw             = hud_slots.add("yaw", HUD_VIEW_MS);
+    private final int hud_dist            = hud_slots.add("dist", HUD_VIEW_MS);
+    private final int hud_camera_position = hud_slots.add("1_position", HUD_POSITION_MS);
+    private final int hud_player_position = hud_slots.add("2_position", HUD_POSITION_MS);
+    private final int[] hud_timing_slots  = new int[HUD_TIMING_ROWS];
 
     public BaseGame(ECSWorld world, GL_GraphicsController glController)
     {
@@ -88,6 +193,19 @@ public class BaseGame extends GameMode
         phys_layer = world.get(PhysicsComponent.class);
         rend_layer = world.get(RenderComponent.class);
         gl_controller = glController;
+        headless = gl_controller == null;
+
+        for (int row = 0; row < HUD_TIMING_ROWS; row++)
+        {
+            hud_timing_slots[row] = hud_slots.add("timing_" + row, 0);
+        }
+    }
+
+    /// Creates a game mode with no graphics controller. When initialized, only the simulation systems are created, no
+    /// GPU resources are allocated, and no camera or rendering systems are registered.
+    public BaseGame(ECSWorld world)
+    {
+        this(world, null);
     }
 
     @Override
@@ -98,11 +216,15 @@ public class BaseGame extends GameMode
 
         // Process events
 
+        // todo: score, drops, etc. on entity death. Whatever destroys an entity releases its behavior first, so for now
+        //  destroyed entity events are only drained here to keep the queue from filling up.
+        event_queue.clear();
+
         boolean escape = input_state.is_active(InputBinding.ESCAPE);
         if (escape && !latched)
         {
             latched = true;
-            event_bus.emit_event(new ModeSwitchEvent());
+            event_bus.emit_event(ModeSwitchEvent.INSTANCE);
         }
         else if (!escape)
         {
@@ -110,6 +232,19 @@ public class BaseGame extends GameMode
         }
 
 
+        // Metrics
+
+        if (system_timings.publish_if_due(System.nanoTime()) && DEBUG_MODE && !headless)
+        {
+            event_bus.emit_event(TimingEvent.INSTANCE);
+        }
+        // slots holding rate limited text are flushed on the same event once their interval passes
+        if (DEBUG_MODE && !headless && (!hud_telemetry.isEmpty() || hud_slots.pending()))
+        {
+            event_bus.emit_event(TelemetryEvent.INSTANCE);
+        }
+
+
         // Day/Night Cycle
 
         sun_angle += (float) (day_speed * dt);
@@ -132,38 +267,243 @@ public class BaseGame extends GameMode
         sun_direction.negate(moon_direction);
     }
 
+    String player_entity()
+    {
+        return player_entity;
+    }
+
+    /// Advances the game by one step and ticks every system owned by this mode directly, without going through the
+    /// world's system registry. Used to drive the simulation when there is no window or GL context.
+    void simulate(double dt)
+    {
+        update(dt);
+        for (var system : systems)
+        {
+            system.tick(dt);
+        }
+    }
+
     @Override
     public void activate()
     {
         latched = true;
+        active = true;
         systems.forEach(world::register_system);
     }
 
     @Override
     public void deactivate()
     {
+        active = false;
         systems.forEach(world::deregister_system);
     }
 
+    boolean initialized()
+    {
+        return initialized;
+    }
+
+    /// Shuts down the sky blend, terrain LOD, noise baking and main rendering systems, which own the skybox textures,
+    /// the terrain LOD buffers, the noise textures and the terrain, model, skybox and cloud passes, and releases the
+    /// textures they use. The camera, light space and debug systems are kept, as they are cheap to keep around.
+    @Override
+    public boolean release_gpu_resources()
+    {
+        if (active || rendering_systems.isEmpty()) return false;
+
+        systems.subList(rendering_index, rendering_index + rendering_systems.size()).clear();
+        for (var system : rendering_systems)
+        {
+            system_timings.remove(system);
+            system.shutdown();
+        }
+        rendering_systems = List.of();
+        resources.release_all();
+
+        LOGGER.info("Released rendering resources");
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Void> rebuild_gpu_resources(AssetLoader loader)
+    {
+        if (headless || !initialized || !rendering_systems.isEmpty()) return CompletableFuture.completedFuture(null);
+
+        resources = new GPUResourceGroup();
+        return create_rendering_systems(loader).thenAccept(rendering ->
+        {
+            rendering_systems = system_timings.wrap(world, rendering);
+            systems.addAll(rendering_index, rendering_systems);
+            LOGGER.info("Rebuilt rendering resources");
+        });
+    }
+
+    /// Initializes everything up front, blocking until all GPU resources have been created.
     @Override
     public void init()
     {
+        var loader = new AssetLoader();
+        var ready = init_async(loader);
+
+        // loads finish on loader threads and queue more uploads as they do, so uploads are drained until every load
+        // is done, and the loader is only shut down after that
+        while (!ready.isDone())
+        {
+            loader.drain_uploads();
+            if (!ready.isDone()) LockSupport.parkNanos(LOAD_POLL_NS);
+        }
+        loader.drain_uploads();
+        loader.shutdown();
+        ready.join();
+    }
+
+    /// Sets up the simulation immediately, and queues the creation of GPU resources and rendering systems as upload
+    /// tasks on the given loader, one per texture or group of passes, so they can be spread across several frames. The
+    /// returned future completes on the GL thread once every system has been created, and this mode must not be
+    /// activated before then. The model registry global must be set before this is called.
+    ///
+    /// If the returned future fails, every GPU resource and rendering system it created has been released again, and
+    /// this can be called again to retry. The simulation is only set up by the first call, as it loads no assets of its
+    /// own and so is not what a failed load leaves unfinished.
+    public CompletableFuture<Void> init_async(AssetLoader loader)
+    {
+        init_simulation();
+
+        if (headless)
+        {
+            finish_init(List.of(), List.of(), null);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        init_camera();
+
+        var main_rendering = create_rendering_systems(loader);
+
+        // for debugging todo: move below code to a proper debug start up process
+        var debug_system = DEBUG_MODE
+            ? loader.upload("render_passes", "BaseGame debug", this::create_debug_system)
+            : CompletableFuture.<ECSSystem>completedFuture(null);
+
+        return all_or_nothing(loader, main_rendering, debug_system).thenRun(() ->
+            finish_init(List.of(new CameraSystem(world), new LightSpaceSystem(world)),
+                main_rendering.join(), debug_system.join()));
+    }
+
+    /// Completes once every part is done. If any part failed, the systems created by the parts that did not are shut
+    /// down on the GL thread and the GPU resources created so far are released, and only then does the returned future
+    /// fail, with the original error, so a retry starts from nothing.
+    private CompletableFuture<Void> all_or_nothing(AssetLoader loader, CompletableFuture<?> ... parts)
+    {
+        var all = CompletableFuture.allOf(parts);
+        return all.exceptionallyCompose(_ -> loader.<Void>upload("render_passes", "BaseGame rollback", () ->
+            {
+                for (var part : parts)
+                {
+                    if (part.state() == Future.State.SUCCESS) shut_down(part.resultNow());
+                }
+                resources.release_all();
+                resources = new GPUResourceGroup();
+                return null;
+            })
+            .thenCompose(_ -> all));
+    }
+
+    private static void shut_down(Object created)
+    {
+        if (created instanceof ECSSystem system) system.shutdown();
+        else if (created instanceof List<?> list) list.forEach(BaseGame::shut_down);
+    }
+
+    /// Queues the creation of the textures, buffers and render passes used by the sky blend, terrain LOD, noise baking,
+    /// light cluster, main rendering and cloud systems, with the baked skyboxes mapped off the GL thread, then one
+    /// upload for the skyboxes, one per texture, one for the terrain LOD buffers, one for the noise fields, one for the
+    /// light clusters, one for the passes and one for the clouds. The returned future completes on the GL thread with
+    /// the unwrapped systems, in tick order.
+    private CompletableFuture<List<ECSSystem>> create_rendering_systems(AssetLoader loader)
+    {
+        var sky_day = loader.load("cube_map", CubeMapBaker.SKY_DAY.name(),
+            () -> CubeMapBaker.load(CubeMapBaker.SKY_DAY, CubeMapBaker.CACHE_DIR));
+
+        var sky_night = loader.load("cube_map", CubeMapBaker.SKY_NIGHT.name(),
+            () -> CubeMapBaker.load(CubeMapBaker.SKY_NIGHT, CubeMapBaker.CACHE_DIR));
+
+        var sky_blend = CompletableFuture.allOf(sky_day, sky_night)
+            .thenCompose(_ -> loader.<ECSSystem>upload("cube_map", "sky_blend",
+                () -> new SkyBlendSystem(world, sky_day.join(), sky_night.join())));
+
+        var shadow_map_texture = loader.upload("texture", "shadow_map", () ->
+            GPU.GL.new_shadow_texture(resources));
+
+        // the alloy model and skybox passes still take day and night cube maps, but the shaders read the blended sky
+        // from the sky blend system's units instead, so both passes are given one black 1x1 placeholder for both
+        var placeholder_sky_texture = loader.upload("cube_map", "placeholder_sky", () ->
+            GPU.GL.new_cube_map(resources,
+                PLACEHOLDER_SKY_FACE,
+                PLACEHOLDER_SKY_FACE,
+                PLACEHOLDER_SKY_FACE,
+                PLACEHOLDER_SKY_FACE,
+                PLACEHOLDER_SKY_FACE,
+                PLACEHOLDER_SKY_FACE));
+
+        var terrain_metrics = new TerrainMetrics(
+            TERRAIN_SHAPE.patches(),
+            512.0f,
+            2048.0f,
+            0.0f,
+            -1000.0f,
+            500.0f,
+            TERRAIN_SHAPE.extent()
+        );
+
+        // render passes compile their shaders and allocate their buffers on construction
+        var main_rendering = CompletableFuture.allOf(shadow_map_texture, placeholder_sky_texture)
+            .thenCompose(_ -> loader.<ECSSystem>upload("render_passes", "BaseGame", () ->
+            {
+                SkyBlendSystem.check_placeholder_unsampled(ShaderSource.load("model"), ShaderSource.load("skybox"));
+
+                var shadow_map = shadow_map_texture.join();
+                var placeholder_sky = placeholder_sky_texture.join();
+                var render_passes = List.of(
+                    new LightRenderPass(rend_layer),
+                    new TerrainRenderPass(base_layer, rend_layer, terrain_metrics),
+                    new ModelRenderPass<>(rend_layer, GLTFModel.class, placeholder_sky, placeholder_sky, shadow_map),
+                    new SkyboxRenderPass(placeholder_sky, placeholder_sky)
+                );
+                return new RenderingSystem<>(world, gl_controller, render_passes);
+            }));
+
+        var terrain_lod = loader.<ECSSystem>upload("render_passes", "terrain_lod", () ->
+            new TerrainLodSystem(world, new TerrainLod(TERRAIN_SHAPE,
+                TERRAIN_MIN_HEIGHT, TERRAIN_MAX_HEIGHT,
+                TESS_MIN_LEVEL, TESS_MAX_LEVEL, TESS_TARGET_PIXELS, TESS_TRIANGLE_BUDGET)));
+
+        var noise_baking = loader.<NoiseBakingSystem>upload("texture", "noise_fields",
+            () -> new NoiseBakingSystem(world, workers));
+
+        var light_clusters = loader.<ECSSystem>upload("render_passes", "light_clusters", () ->
+            new LightClusterSystem(world,
+                new LightClusterGrid(CLUSTER_TILES_X, CLUSTER_TILES_Y, CLUSTER_SLICES, CLUSTER_MAX_LIGHTS, workers),
+                CLUSTER_NEAR, CLUSTER_FAR, CLUSTER_LIGHT_MARGIN));
+
+        // drawn after the main passes, over their depth buffer, rather than as one of them
+        var clouds = noise_baking.thenCompose(noise -> loader.<ECSSystem>upload("render_passes", "clouds", () ->
+            new CloudSystem(world, noise, CLOUD_HEIGHT, CLOUD_EXTENT, CLOUD_SCALE, CLOUD_CHECKERBOARD)));
+
+        return all_or_nothing(loader, sky_blend, terrain_lod, noise_baking, light_clusters, main_rendering, clouds)
+            .thenApply(_ -> List.of(sky_blend.join(), terrain_lod.join(), noise_baking.join(), light_clusters.join(),
+                main_rendering.join(), clouds.join()));
+    }
+
+    private void init_simulation()
+    {
+        if (simulation_initialized) return;
+
         // Misc
 
         input_state = BaseComponent.Input.global(base_layer);
         world.event_bus.register(event_queue, GameEvent.ENTITY_DESTROYED);
         base_layer.set_global(BaseComponent.TimeIndex, time_index);
 
-        // Camera
-
-        var camera = RenderComponent.MainCamera.<WorldCamera>global(rend_layer);
-        camera.set_pitch_range(CENTER_PITCH - PITCH_RANGE, CENTER_PITCH + PITCH_RANGE);
-        camera.set_yaw_range(CENTER_YAW - YAW_RANGE, CENTER_YAW + YAW_RANGE);
-        camera.set_zoom_speed_limits(ZOOM_SPEED, ZOOM_RATE);
-        camera.set_zoom_distance_limits(ZOOM_MIN, ZOOM_MAX);
-        camera.set_pitch(CENTER_PITCH);
-        camera.set_yaw(CENTER_YAW);
-
         // Mouse
 
         var mouse_ray = Ray3d.generate_empty(player_entity);
@@ -208,8 +548,7 @@ public class BaseGame extends GameMode
         var hulls = RenderTypes.model_hulls(rend_layer, model, player_entity);
 
         rend_layer.set_component(player_entity, RenderComponent.CameraFollow, Marker.MARKED);
-        base_layer.set_component(player_entity, BaseComponent.Player,   Marker.MARKED);
-        base_layer.set_component(player_entity, BaseComponent.Behavior, TrongleEntityBehavior.PLAYER);
+        base_layer.set_component(player_entity, BaseComponent.Player, Marker.MARKED);
 
         RenderTypes.model(rend_layer, player_entity, model, lights);
         PhysicsTypes.physics(phys_layer, player_entity, mass, inertia, drag,
@@ -220,76 +559,72 @@ public class BaseGame extends GameMode
         // Systems
         systems.add(new PhysicsSystem(world));
         systems.add(new TransformUpdateSystem(world));
-        systems.add(new EntityBehaviorSystem(world));
-        systems.add(new CameraSystem(world));
-        systems.add(new LightSpaceSystem(world));
-
-        var skybox_texture = GPU.GL.new_cube_map(resources,
-            "/img/skybox/sh_ft.png",
-            "/img/skybox/sh_bk.png",
-            "/img/skybox/sh_up.png",
-            "/img/skybox/sh_dn.png",
-            "/img/skybox/sh_rt.png",
-            "/img/skybox/sh_lf.png");
-
-        var skybox_texture_dark = GPU.GL.new_cube_map(resources,
-            "/img/skybox/sh_ft_dark.png",
-            "/img/skybox/sh_bk_dark.png",
-            "/img/skybox/sh_up_dark.png",
-            "/img/skybox/sh_dn_dark.png",
-            "/img/skybox/sh_rt_dark.png",
-            "/img/skybox/sh_lf_dark.png");
-
-        var shadow_map_texture = GPU.GL.new_shadow_texture(resources);
 
-        var terrain_metrics = new TerrainMetrics(
-            128,
-            512.0f,
-            2048.0f,
-            0.0f,
-            -1000.0f,
-            500.0f,
-            512.0f * 8
-        );
+        // behaviors bind to their entity's components when assigned, so they're assigned once the player is complete
+        behaviors = new BehaviorSystem(world, workers);
+        behaviors.set_focus(player_entity);
+        behaviors.assign(player_entity, TrongleEntityBehavior.PLAYER);
+        systems.add(behaviors);
 
-        var render_passes = List.of(
-            new LightRenderPass(rend_layer),
-            new TerrainRenderPass(base_layer, rend_layer, terrain_metrics),
-            new ModelRenderPass<>(rend_layer, GLTFModel.class, skybox_texture, skybox_texture_dark, shadow_map_texture),
-            new SkyboxRenderPass(skybox_texture, skybox_texture_dark),
-            new CloudRenderPass(base_layer, rend_layer, shadow_map_texture, 2000, 32_768.0f)
-        );
-
-        systems.add(new RenderingSystem<>(world, gl_controller, render_passes));
+        simulation_initialized = true;
+    }
 
+    /// Adds the view and debug systems, if any, in their place after the simulation systems, and wraps every system
+    /// for timing.
+    private void finish_init(List<ECSSystem> view_systems, List<ECSSystem> rendering, ECSSystem debug_system)
+    {
+        systems.addAll(view_systems);
+        rendering_index = rendering.isEmpty() ? -1 : systems.size();
+        systems.addAll(rendering);
         systems.add(new UpkeepSystem(world));
+        if (debug_system != null)
+        {
+            // subscribed here, not when the debug system is created, so a retried load only subscribes once
+            hud_telemetry.subscribe(event_bus);
+            systems.add(debug_system);
+        }
 
-        // for debugging todo: move below code to a proper debug start up process
-        if (DEBUG_MODE)
+        var timed_systems = system_timings.wrap(world, List.copyOf(systems));
+        systems.clear();
+        systems.addAll(timed_systems);
+
+        if (rendering_index >= 0)
         {
-            var passes = List.of(
-                new ConvexHullRenderPass(phys_layer),
-                new RayCastRenderPass(phys_layer),
-                new BoundingBoxRenderPass(phys_layer, rend_layer),
-                new RenderingBoundsRenderPass(rend_layer),
-
-                new DebugHUDRenderer(world,
-                    this::debug_hud_setup,
-                    this::process_hud_event,
-                    CoreEvent.WINDOW_RESIZE,
-                    CoreEvent.FPS,
-                    DebugEvent.VIEW_PITCH,
-                    DebugEvent.VIEW_YAW,
-                    DebugEvent.VIEW_DIST,
-                    DebugEvent.CAMERA_POSITION,
-                    DebugEvent.PLAYER_POSITION)
-            );
-            systems.add(new DebugRenderingSystem(world, passes));
+            rendering_systems = List.copyOf(systems.subList(rendering_index, rendering_index + rendering.size()));
         }
+        initialized = true;
+    }
+
+    private void init_camera()
+    {
+        var camera = RenderComponent.MainCamera.<WorldCamera>global(rend_layer);
+        camera.set_pitch_range(CENTER_PITCH - PITCH_RANGE, CENTER_PITCH + PITCH_RANGE);
+        camera.set_yaw_range(CENTER_YAW - YAW_RANGE, CENTER_YAW + YAW_RANGE);
+        camera.set_zoom_speed_limits(ZOOM_SPEED, ZOOM_RATE);
+        camera.set_zoom_distance_limits(ZOOM_MIN, ZOOM_MAX);
+        camera.set_pitch(CENTER_PITCH);
+        camera.set_yaw(CENTER_YAW);
     }
 
+    private ECSSystem create_debug_system()
+    {
+        var passes = List.of(
+            new ConvexHullRenderPass(phys_layer),
+            new RayCastRenderPass(phys_layer),
+            new BoundingBoxRenderPass(phys_layer, rend_layer),
+            new RenderingBoundsRenderPass(rend_layer),
+
+            new DebugHUDRenderer(world,
+                this::debug_hud_setup,
+                this::process_hud_event,
+                CoreEvent.WINDOW_RESIZE,
+                GameEvent.SYSTEM_TIMING,
+                GameEvent.HUD_TELEMETRY)
+        );
+        return new DebugRenderingSystem(world, passes);
+    }
 
-    private void debug_hud_setup(Map<String, TextContainer> text_boxes)
+    void debug_hud_setup(Map<String, TextContainer> text_boxes)
     {
         text_boxes.put("title", new TextContainer(SnapPosition.BOTTOM_LEFT,
             "The Return of Trongle - Prototype", 100, 100, .75f));
@@ -339,75 +674,123 @@ public class BaseGame extends GameMode
         text_boxes.put("2_position", new TextContainer(SnapPosition.TOP_LEFT,
             "0", 350, 350, .75f));
 
+        for (int row = 0; row < HUD_TIMING_ROWS; row++)
+        {
+            text_boxes.put("timing_" + row, new TextContainer(SnapPosition.TOP_LEFT,
+                "", 100, 450 + row * 40, .5f));
+        }
+
+        hud_slots.bind(text_boxes);
     }
 
 
-    private boolean process_hud_event(Map<String, TextContainer> text_boxes, Event next_event)
+    boolean process_hud_event(Map<String, TextContainer> text_boxes, Event next_event)
+    {
+        return process_hud_event(text_boxes, next_event, System.nanoTime());
+    }
+
+    /// Handles a HUD event as of the given time, which decides whether rate limited slots show it now or hold it.
+    boolean process_hud_event(Map<String, TextContainer> text_boxes, Event next_event, long now)
     {
         if (next_event.type() == CoreEvent.WINDOW_RESIZE)
         {
             return true;
         }
+
+        if (next_event.type() == GameEvent.SYSTEM_TIMING)
+        {
+            return update_timing_rows(now);
+        }
+
+        if (next_event.type() == GameEvent.HUD_TELEMETRY)
+        {
+            boolean changed = false;
+            Event telemetry;
+            while ((telemetry = hud_telemetry.poll()) != null)
+            {
+                changed |= update_telemetry(telemetry, now);
+            }
+            return hud_slots.flush(now) | changed;
+        }
+
+        return update_telemetry(next_event, now);
+    }
+
+    private boolean update_telemetry(Event next_event, long now)
+    {
         if (next_event instanceof PositionEvent(var type, var position))
         {
-            if (type == DebugEvent.CAMERA_POSITION) {
-                var current = text_boxes.get("1_position");
-                var next = new TextContainer(current.snap(), position, current.x(), current.y(), current.scale());
-                text_boxes.put("1_position", next);
+            if (type == DebugEvent.CAMERA_POSITION)
+            {
+                return hud_slots.set(hud_camera_position, position, now);
             }
             if (type == DebugEvent.PLAYER_POSITION)
             {
-                var current = text_boxes.get("2_position");
-                var next = new TextContainer(current.snap(), position, current.x(), current.y(), current.scale());
-                text_boxes.put("2_position", next);
+                return hud_slots.set(hud_player_position, position, now);
             }
-            return true;
+            return false;
         }
         if (next_event instanceof MessageEvent(var type, var message))
         {
             if (Objects.requireNonNull(type) == CoreEvent.FPS)
             {
-                var current = text_boxes.get("fps");
-                var next = new TextContainer(current.snap(), message, current.x(), current.y(), current.scale());
-                text_boxes.put("fps", next);
-                return true;
+                return hud_slots.set(hud_fps, message, now);
             }
         }
         if (next_event instanceof ViewDebugEvent(var type, float value))
         {
-            switch (type)
+            return switch (type)
             {
-                case VIEW_PITCH ->
-                {
-                    var current_pitch = text_boxes.get("pitch");
-                    var next_pitch = new TextContainer(current_pitch.snap(), String.valueOf(Math.toDegrees(value)), current_pitch.x(), current_pitch.y(), current_pitch.scale());
-                    text_boxes.put("pitch", next_pitch);
-                }
-
-                case VIEW_YAW ->
-                {
-                    var current_yaw = text_boxes.get("yaw");
-                    var next_yaw = new TextContainer(current_yaw.snap(), String.valueOf(Math.toDegrees(value)), current_yaw.x(), current_yaw.y(), current_yaw.scale());
-                    text_boxes.put("yaw", next_yaw);
-                }
-
-                case VIEW_DIST ->
-                {
-                    var current_dist = text_boxes.get("dist");
-                    var next_dist = new TextContainer(current_dist.snap(), String.valueOf(value), current_dist.x(), current_dist.y(), current_dist.scale());
-                    text_boxes.put("dist", next_dist);
-                }
-            }
-
-            return true;
+                case VIEW_PITCH -> hud_slots.set(hud_pitch, Math.toDegrees(value), 2, now);
+                case VIEW_YAW   -> hud_slots.set(hud_yaw, Math.toDegrees(value), 2, now);
+                case VIEW_DIST  -> hud_slots.set(hud_dist, value, 2, now);
+                default         -> false;
+            };
         }
         return false;
     }
 
+    private boolean update_timing_rows(long now)
+    {
+        boolean changed = false;
+        var timed = system_timings.systems();
+        for (int row = 0; row < HUD_TIMING_ROWS && row < timed.size(); row++)
+        {
+            var system = timed.get(row);
+            timing_line.setLength(0);
+            timing_line.append(system.getSystemName());
+            append_timing(" p50: ", system.getP50Micros());
+            append_timing(" p99: ", system.getP99Micros());
+            append_timing(" p999: ", system.getP999Micros());
+            append_timing(" max: ", system.getMaxMicros());
+            timing_line.append(" us");
+            changed |= hud_slots.set(hud_timing_slots[row], timing_line, now);
+        }
+        return changed;
+    }
+
+    private void append_timing(String label, double micros)
+    {
+        int length = HudTextSlots.format(micros, 1, timing_digits);
+        timing_line.append(label).append(timing_digits, 0, length);
+    }
+
+    /// Shuts down every system this mode owns, simulation, view, rendering and debug alike, which frees their buffers,
+    /// textures and passes and unregisters their MBeans, then stops the worker pool. Must be called on the GL thread
+    /// when not headless.
     @Override
     public void destroy()
     {
         // todo: game save or something
+        if (active) deactivate();
+        for (var system : systems)
+        {
+            system.shutdown();
+        }
+        systems.clear();
+        rendering_systems = List.of();
+        system_timings.unregister();
         resources.release_all();
+        workers.shutdown();
     }
 }
@@ -0,0 +1,135 @@
+package com.controllerface.trongle.main;
+
+import com.controllerface.trongle.input.InputState;
+import com.juncture.alloy.data.MutableDouble;
+import com.juncture.alloy.data.MutableInt;
+import com.juncture.alloy.ecs.BaseComponent;
+import com.juncture.alloy.ecs.ECSLayer;
+import com.juncture.alloy.ecs.ECSWorld;
+import com.juncture.alloy.events.EventBus;
+import com.juncture.alloy.models.ModelRegistry;
+import com.juncture.alloy.physics.PhysicsComponent;
+import com.juncture.alloy.rendering.RenderComponent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/// Runs the [BaseGame] simulation with no window and no GL context. Only the non-rendering systems are created, and the
+/// game is stepped at a fixed time step, either as fast as possible or paced to a target tick rate. Once per second of
+/// wall clock time, the achieved tick rate and the min/avg/max latency of a single tick are logged.
+public class HeadlessSimulation
+{
+    private static final Logger LOGGER = Logger.getLogger(HeadlessSimulation.class.getName());
+
+    private static final double FIXED_DT = 1.0 / 60.0;
+    private static final long REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final EventBus event_bus = new EventBus();
+    private final ECSWorld world = new ECSWorld(event_bus);
+    private final BaseGame base_game;
+
+    private long interval_ticks   = 0;
+    private long interval_total   = 0;
+    private long interval_min     = Long.MAX_VALUE;
+    private long interval_max     = 0;
+    private long interval_start   = 0;
+
+    public HeadlessSimulation()
+    {
+        var base_layer = new ECSLayer<>(BaseComponent.class);
+        var rend_layer = new ECSLayer<>(RenderComponent.class);
+        var phys_layer = new ECSLayer<>(PhysicsComponent.class);
+
+        world.register(BaseComponent.class, base_layer);
+        world.register(RenderComponent.class, rend_layer);
+        world.register(PhysicsComponent.class, phys_layer);
+
+        rend_layer.set_global(RenderComponent.Models, new ModelRegistry(GLTFModel.class, "/models/"));
+        rend_layer.set_global(RenderComponent.PointLightCount, new MutableInt(0));
+        rend_layer.set_global(RenderComponent.SpotLightCount, new MutableInt(0));
+
+        phys_layer.set_global(PhysicsComponent.SimulationRemainder, new MutableDouble(0.0f));
+
+        base_layer.set_global(BaseComponent.Input, new InputState());
+
+        base_game = new BaseGame(world);
+        base_game.init();
+    }
+
+    ECSWorld world()
+    {
+        return world;
+    }
+
+    BaseGame base_game()
+    {
+        return base_game;
+    }
+
+    /// Runs the simulation for the given number of ticks, or forever if `tick_count` is zero or less. When `target_rate`
+    /// is greater than zero, ticks are paced to that many per second, otherwise they run back-to-back.
+    public void run(long tick_count, double target_rate)
+    {
+        LOGGER.info("Starting headless simulation: dt=" + FIXED_DT
+            + " ticks=" + (tick_count > 0 ? tick_count : "unbounded")
+            + " rate=" + (target_rate > 0 ? target_rate : "unbounded"));
+
+        long tick_period = target_rate > 0
+            ? (long) (TimeUnit.SECONDS.toNanos(1) / target_rate)
+            : 0;
+
+        long next_tick = System.nanoTime();
+        interval_start = next_tick;
+
+        for (long tick = 0; tick_count <= 0 || tick < tick_count; tick++)
+        {
+            if (tick_period > 0)
+            {
+                long wait = next_tick - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+                next_tick += tick_period;
+            }
+
+            long start = System.nanoTime();
+            base_game.simulate(FIXED_DT);
+            long end = System.nanoTime();
+
+            record_tick(end - start, end);
+        }
+
+        if (interval_ticks > 0) report(System.nanoTime());
+
+        LOGGER.info("Headless simulation complete");
+        base_game.destroy();
+    }
+
+    private void record_tick(long latency, long now)
+    {
+        interval_ticks++;
+        interval_total += latency;
+        interval_min = Math.min(interval_min, latency);
+        interval_max = Math.max(interval_max, latency);
+
+        if (now - interval_start >= REPORT_INTERVAL)
+        {
+            report(now);
+        }
+    }
+
+    private void report(long now)
+    {
+        double elapsed = (now - interval_start) / (double) TimeUnit.SECONDS.toNanos(1);
+        double tps = interval_ticks / elapsed;
+        double avg = interval_total / (double) interval_ticks;
+
+        LOGGER.info(String.format("tps: %.1f | tick latency (us) min: %.2f avg: %.2f max: %.2f",
+            tps, interval_min / 1000.0, avg / 1000.0, interval_max / 1000.0));
+
+        interval_ticks = 0;
+        interval_total = 0;
+        interval_min   = Long.MAX_VALUE;
+        interval_max   = 0;
+        interval_start = now;
+    }
+}
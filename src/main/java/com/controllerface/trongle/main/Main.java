@@ -1,11 +1,22 @@
 package com.controllerface.trongle.main;
 
+import com.controllerface.trongle.metrics.jfr.GameRecording;
 import com.juncture.alloy.game.GameConfig;
 
 public class Main
 {
     void main()
     {
+        GameRecording.start_if_enabled();
+
+        if (Boolean.getBoolean("trongle.headless"))
+        {
+            new HeadlessSimulation().run(
+                Long.getLong("trongle.headless.ticks", 0L),
+                Double.parseDouble(System.getProperty("trongle.headless.rate", "0")));
+            return;
+        }
+
         GameConfig.setup();
         new Trongle().run();
     }
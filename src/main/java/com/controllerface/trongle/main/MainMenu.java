@@ -4,8 +4,10 @@ import com.controllerface.trongle.events.ModeSwitchEvent;
 import com.controllerface.trongle.input.InputBinding;
 import com.controllerface.trongle.input.InputState;
 import com.controllerface.trongle.menu.MenuRenderSystem;
+import com.controllerface.trongle.metrics.TracedSystem;
 import com.juncture.alloy.ecs.BaseComponent;
 import com.juncture.alloy.ecs.ECSLayer;
+import com.juncture.alloy.ecs.ECSSystem;
 import com.juncture.alloy.ecs.ECSWorld;
 import com.juncture.alloy.ecs.GameMode;
 import com.juncture.alloy.events.EventBus;
@@ -27,6 +29,7 @@ public class MainMenu extends GameMode
     }
 
     private MenuRenderSystem rendering_system;
+    private ECSSystem traced_rendering_system;
 
     @Override
     public void init()
@@ -34,6 +37,7 @@ public class MainMenu extends GameMode
         input_state = BaseComponent.Input.global(base_layer);
         event_bus = world.event_bus;
         rendering_system = new MenuRenderSystem(world);
+        traced_rendering_system = new TracedSystem(world, rendering_system);
     }
 
     @Override
@@ -43,7 +47,7 @@ public class MainMenu extends GameMode
         if (escape && !latched)
         {
             latched = true;
-            event_bus.emit_event(new ModeSwitchEvent());
+            event_bus.emit_event(ModeSwitchEvent.INSTANCE);
         }
         else if (!escape)
         {
@@ -57,13 +61,13 @@ public class MainMenu extends GameMode
         if (!first_load) rendering_system.capture_screen();
         if (first_load) first_load = false;
         latched = true;
-        world.register_system(rendering_system);
+        world.register_system(traced_rendering_system);
     }
 
     @Override
     public void deactivate()
     {
-        world.deregister_system(rendering_system);
+        world.deregister_system(traced_rendering_system);
     }
 
     @Override
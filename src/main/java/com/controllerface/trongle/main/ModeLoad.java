@@ -0,0 +1,57 @@
+package com.controllerface.trongle.main;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/// Tracks the background load of a game mode. A load that fails is not left in place, where it would look like a load
+/// still in progress forever, but is handed back once by [#take_failure] and forgotten, so the next [#start] tries
+/// again. Only the owning thread may call these methods, failures are noticed when it polls rather than from whichever
+/// thread completed the load, so they can never race the owner starting or dropping a load.
+class ModeLoad
+{
+    /// Completes once the mode is ready to be activated, null when no load has been started since the last reset.
+    private CompletableFuture<Void> ready;
+
+    /// Starts a load, unless one is already in progress or done. A load that throws before returning its future is
+    /// treated as one that failed. Returns true if a load was started.
+    boolean start(Supplier<CompletableFuture<Void>> load)
+    {
+        if (ready != null) return false;
+        try
+        {
+            ready = load.get();
+        }
+        catch (RuntimeException e)
+        {
+            ready = CompletableFuture.failedFuture(e);
+        }
+        return true;
+    }
+
+    /// Returns true if a load has been started and not yet reset, whether it is still running, done, or failed.
+    boolean started()
+    {
+        return ready != null;
+    }
+
+    boolean loaded()
+    {
+        return ready != null && ready.isDone() && !ready.isCompletedExceptionally();
+    }
+
+    /// If the load has failed, forgets it and returns the cause, otherwise returns null.
+    Throwable take_failure()
+    {
+        if (ready == null || !ready.isCompletedExceptionally()) return null;
+        var error = ready.handle((_, e) -> e).join();
+        ready = null;
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /// Forgets the load, so the next [#start] loads again. Used once the loaded mode has released its resources.
+    void reset()
+    {
+        ready = null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.controllerface.trongle.main;
+
+import com.controllerface.trongle.assets.AssetLoader;
+
+import java.util.concurrent.CompletableFuture;
+
+/// A game mode that can give up its heavy GPU resources while it is inactive, to lower resident memory, and rebuild
+/// them before it is next activated.
+public interface ReleasableMode
+{
+    /// Releases GPU resources that can be rebuilt later. Does nothing and returns false if the mode is active, or
+    /// there is nothing to release. Must be called from the GL thread.
+    boolean release_gpu_resources();
+
+    /// Queues the rebuilding of any released GPU resources on the given loader. The mode must not be activated until
+    /// the returned future completes, which it does immediately if nothing was released.
+    CompletableFuture<Void> rebuild_gpu_resources(AssetLoader loader);
+}
@@ -1,8 +1,15 @@
 package com.controllerface.trongle.main;
 
+import com.controllerface.trongle.assets.AssetLoader;
+import com.controllerface.trongle.events.EventChannel;
 import com.controllerface.trongle.events.GameEvent;
 import com.controllerface.trongle.events.ModeSwitchEvent;
 import com.controllerface.trongle.input.InputState;
+import com.controllerface.trongle.metrics.TracedSystem;
+import com.controllerface.trongle.metrics.jfr.AssetLoadEvent;
+import com.controllerface.trongle.metrics.jfr.FrameEvent;
+import com.controllerface.trongle.metrics.jfr.LoopPhaseEvent;
+import com.controllerface.trongle.metrics.jfr.ModeChangeEvent;
 import com.juncture.alloy.camera.WorldCamera;
 import com.juncture.alloy.data.MutableDouble;
 import com.juncture.alloy.data.MutableInt;
@@ -17,6 +24,10 @@ import com.juncture.alloy.physics.PhysicsComponent;
 import com.juncture.alloy.rendering.RenderComponent;
 import com.juncture.alloy.rendering.camera.UniformViewSystem;
 
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class Trongle extends GameContext
@@ -25,8 +36,31 @@ public class Trongle extends GameContext
 
     private static final Logger LOGGER = Logger.getLogger(Trongle.class.getName());
 
+    private static final long UPLOAD_BUDGET = TimeUnit.MILLISECONDS.toNanos(4);
+
+    /// When enabled, the game is loaded in the background once the menu has been up for the prewarm delay, instead of
+    /// waiting for the player to enter it.
+    private static final boolean PREWARM = Boolean.parseBoolean(System.getProperty("trongle.prewarm", "true"));
+    private static final long PREWARM_DELAY =
+        TimeUnit.MILLISECONDS.toNanos(Long.getLong("trongle.prewarm.delay_ms", 1000L));
+
+    /// How long the game can sit inactive before its rendering resources are released, zero to never release them.
+    private static final long RELEASE_AFTER = TimeUnit.SECONDS.toNanos(Long.getLong("trongle.release_after_s", 120L));
+
+    private final EventChannel mode_events = new EventChannel("mode_switch", 16);
+    private final AssetLoader asset_loader = new AssetLoader();
+
     private final GameMode main_menu;
-    private final GameMode base_game;
+    private final BaseGame base_game;
+
+    /// Loads the game, in full the first time, and only its released rendering resources after that.
+    private final ModeLoad base_game_load = new ModeLoad();
+
+    private long frame = 0;
+    private long first_frame_time = 0;
+    private long base_game_inactive_since = 0;
+    private boolean switch_pending = false;
+    private boolean prewarm_attempted = false;
 
     public Trongle()
     {
@@ -42,7 +76,6 @@ public class Trongle extends GameContext
 
         rend_layer.set_global(RenderComponent.MainWindow, window);
         rend_layer.set_global(RenderComponent.MainCamera, new WorldCamera(window, event_bus));
-        rend_layer.set_global(RenderComponent.Models, new ModelRegistry(GLTFModel.class, "/models/"));
         rend_layer.set_global(RenderComponent.PointLightCount, new MutableInt(0));
         rend_layer.set_global(RenderComponent.SpotLightCount, new MutableInt(0));
 
@@ -51,39 +84,156 @@ public class Trongle extends GameContext
         var input_state = new InputState();
         base_layer.set_global(BaseComponent.Input, input_state);
 
-        world.register_system(new InputSystem<>(world, input_state));
-        world.register_system(new UniformViewSystem(world));
+        world.register_system(new TracedSystem(world, new InputSystem<>(world, input_state)));
+        world.register_system(new TracedSystem(world, new UniformViewSystem(world)));
 
-        event_bus.register(event_queue, GameEvent.MODE_SWiTCH);
+        event_bus.register(mode_events, GameEvent.MODE_SWiTCH);
 
         base_game = new BaseGame(world, gl_controller());
         main_menu = new MainMenu(world);
 
-        main_menu.init();
-        base_game.init();
+        // the menu is needed for the first frame, so it is loaded up front, the game is loaded later while the menu is
+        // showing, either when prewarmed or when the player first enters it
+
+        AssetLoadEvent.record("mode", "MainMenu", () ->
+        {
+            main_menu.init();
+            return main_menu;
+        });
 
         current_mode = main_menu;
     }
 
+    private static long uptime_ms()
+    {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    /// Starts loading the game if it is not loaded or loading already. The first load initializes the game in full,
+    /// after that only released rendering resources are rebuilt.
+    private void load_base_game()
+    {
+        base_game_load.start(this::begin_base_game_load);
+    }
+
+    private CompletableFuture<Void> begin_base_game_load()
+    {
+        long start = System.nanoTime();
+        var load = base_game.initialized()
+            ? base_game.rebuild_gpu_resources(asset_loader)
+            : asset_loader
+                .load_then_upload("models", "/models/",
+                    () -> new ModelRegistry(GLTFModel.class, "/models/"),
+                    models ->
+                    {
+                        var rend_layer = world.get(RenderComponent.class);
+                        rend_layer.set_global(RenderComponent.Models, models);
+                        return models;
+                    })
+                .thenCompose(_ -> base_game.init_async(asset_loader));
+
+        return load.thenRun(() ->
+        {
+            base_game_inactive_since = System.nanoTime();
+            LOGGER.info("Game ready after: " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        });
+    }
+
+    /// Drops a failed load of the game, and any switch into the game that was waiting on it, so the menu stays usable
+    /// and the next attempt to enter the game loads it again. A failed prewarm is not retried by itself.
+    private void check_base_game_load()
+    {
+        var error = base_game_load.take_failure();
+        if (error == null) return;
+
+        LOGGER.log(Level.SEVERE, "Failed to load game", error);
+        switch_pending = false;
+    }
+
+    /// While the menu is up, prewarms the game once the menu has settled, and releases the game's rendering resources
+    /// once it has gone unused for long enough.
+    private void manage_base_game(long now)
+    {
+        if (current_mode == base_game) return;
+
+        if (!base_game_load.started())
+        {
+            if (PREWARM && !prewarm_attempted && !base_game.initialized() && now - first_frame_time >= PREWARM_DELAY)
+            {
+                prewarm_attempted = true;
+                load_base_game();
+            }
+            return;
+        }
+
+        if (RELEASE_AFTER > 0
+            && !switch_pending
+            && base_game_load.loaded()
+            && now - base_game_inactive_since >= RELEASE_AFTER
+            && base_game.release_gpu_resources())
+        {
+            base_game_load.reset();
+        }
+    }
+
+    private void switch_mode()
+    {
+        var mode_change = new ModeChangeEvent();
+        mode_change.begin();
+        mode_change.from = current_mode.getClass().getSimpleName();
+
+        current_mode.deactivate();
+        if (current_mode == main_menu)
+        {
+            current_mode = base_game;
+        }
+        else
+        {
+            current_mode = main_menu;
+            base_game_inactive_since = System.nanoTime();
+        }
+        current_mode.activate();
+
+        mode_change.to = current_mode.getClass().getSimpleName();
+        mode_change.commit();
+    }
+
     private void process_events()
     {
+        check_base_game_load();
+
         Event next_event;
-        while ((next_event = event_queue.poll()) != null)
+        while ((next_event = mode_events.poll()) != null)
         {
             if (next_event instanceof ModeSwitchEvent)
             {
-                current_mode.deactivate();
-                if (current_mode == main_menu)
+                // the game can't be entered until it has finished loading, so the switch is held until then
+                if (current_mode == main_menu && !base_game_load.loaded())
                 {
-                    current_mode = base_game;
+                    switch_pending = true;
+                    load_base_game();
                 }
                 else
                 {
-                    current_mode = main_menu;
+                    switch_mode();
                 }
-                current_mode.activate();
             }
         }
+
+        if (switch_pending && base_game_load.loaded())
+        {
+            switch_pending = false;
+            switch_mode();
+        }
+    }
+
+    private LoopPhaseEvent begin_phase(String phase)
+    {
+        var event = new LoopPhaseEvent();
+        event.phase = phase;
+        event.frame = frame;
+        event.begin();
+        return event;
     }
 
     @Override
@@ -94,9 +244,34 @@ public class Trongle extends GameContext
 
         while (window.should_update() && dt < MAX_DT)
         {
+            var frame_event = new FrameEvent();
+            frame_event.frame = frame;
+            frame_event.begin();
+
+            var tick_phase = begin_phase(LoopPhaseEvent.TICK);
             tick();
+            tick_phase.commit();
+
+            var events_phase = begin_phase(LoopPhaseEvent.PROCESS_EVENTS);
             process_events();
+            events_phase.commit();
+
+            var upload_phase = begin_phase(LoopPhaseEvent.UPLOAD_ASSETS);
+            if (frame > 0) manage_base_game(System.nanoTime());
+            asset_loader.process_uploads(UPLOAD_BUDGET);
+            upload_phase.commit();
+
+            var complete_phase = begin_phase(LoopPhaseEvent.FRAME_COMPLETE);
             frame_complete();
+            complete_phase.commit();
+
+            frame_event.commit();
+            if (frame == 0)
+            {
+                first_frame_time = System.nanoTime();
+                LOGGER.info("Time to first frame: " + uptime_ms() + " ms");
+            }
+            frame++;
         }
 
         LOGGER.fine("Exiting Game loop");
@@ -107,6 +282,7 @@ public class Trongle extends GameContext
     public void shutdown()
     {
         super.shutdown();
+        asset_loader.shutdown();
         main_menu.destroy();
         base_game.destroy();
     }
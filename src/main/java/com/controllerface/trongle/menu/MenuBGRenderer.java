@@ -1,9 +1,9 @@
 package com.controllerface.trongle.menu;
 
+import com.controllerface.trongle.shaders.ShaderProgram;
 import com.juncture.alloy.gpu.GPU;
 import com.juncture.alloy.gpu.Renderer;
 import com.juncture.alloy.gpu.gl.buffers.GL_VertexArray;
-import com.juncture.alloy.gpu.gl.shaders.GL_Shader;
 import com.juncture.alloy.gpu.gl.textures.GL_Texture;
 import com.juncture.alloy.rendering.Texture_BindPoint;
 
@@ -16,7 +16,7 @@ public class MenuBGRenderer extends Renderer
     private static final int UV_ATTRIBUTE = 1;
 
     private final GL_VertexArray vao;
-    private final GL_Shader shader;
+    private final ShaderProgram shader;
     private final GL_Texture bg_texture;
 
     public static float[] SCREEN_QUAD_VERTICES = new float[]
@@ -35,12 +35,12 @@ public class MenuBGRenderer extends Renderer
             1.0f, 1.0f, // top-right
         };
 
-    public MenuBGRenderer(GL_Texture bg_texture)
+    public MenuBGRenderer(GL_Texture bg_texture, ShaderProgram shader)
     {
         this.bg_texture = bg_texture;
+        this.shader = shader;
 
-        vao     = GPU.GL.new_vao(resources);
-        shader  = GPU.GL.new_shader(resources, "background");
+        vao = GPU.GL.new_vao(resources);
 
         GPU.GL.vec2_buffer_static(resources, vao, XY_ATTRIBUTE, SCREEN_QUAD_VERTICES);
         GPU.GL.vec2_buffer_static(resources, vao, UV_ATTRIBUTE, UVS);
@@ -49,7 +49,7 @@ public class MenuBGRenderer extends Renderer
         vao.enable_attribute(UV_ATTRIBUTE);
 
         shader.use();
-        shader.uploadInt(Texture_BindPoint.BACKGROUND.varName, 0);
+        shader.upload_int(Texture_BindPoint.BACKGROUND.varName, 0);
         shader.detach();
     }
 
@@ -63,4 +63,11 @@ public class MenuBGRenderer extends Renderer
         shader.detach();
         vao.unbind();
     }
+
+    @Override
+    public void destroy()
+    {
+        super.destroy();
+        shader.release();
+    }
 }
@@ -1,5 +1,8 @@
 package com.controllerface.trongle.menu;
 
+import com.controllerface.trongle.metrics.jfr.AssetLoadEvent;
+import com.controllerface.trongle.shaders.ProgramCompiler;
+import com.controllerface.trongle.shaders.ShaderSource;
 import com.juncture.alloy.ecs.ECSSystem;
 import com.juncture.alloy.ecs.ECSWorld;
 import com.juncture.alloy.gpu.GPU;
@@ -32,10 +35,17 @@ public class MenuRenderSystem extends ECSSystem
 
         window = RenderComponent.MainWindow.global(rend_layer);
 
-        gl_texture = GPU.GL.new_texture(resources, true, "/img/bg.png");
+        gl_texture = AssetLoadEvent.record("texture", "/img/bg.png", () ->
+            GPU.GL.new_texture(resources, true, "/img/bg.png"));
 
-        renderers.add(new MenuBGRenderer(gl_texture));
-        renderers.add(new MenuRenderer(world));
+        // both menu programs are built in one batch, so they can be compiled in parallel
+        var programs = AssetLoadEvent.record("shaders", "menu", () -> new ProgramCompiler().compile_all(List.of(
+            ShaderSource.load("background"),
+            ShaderSource.load("text_sdf"))));
+
+        renderers.add(new MenuBGRenderer(gl_texture, programs.get("background")));
+        renderers.add(AssetLoadEvent.record("renderer", "MenuRenderer",
+            () -> new MenuRenderer(world, programs.get("text_sdf"))));
 
         this.r = 0.01f;
         this.g = 0.01f;
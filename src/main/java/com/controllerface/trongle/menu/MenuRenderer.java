@@ -1,87 +1,102 @@
 package com.controllerface.trongle.menu;
 
+import com.controllerface.trongle.events.CoalescingEventChannel;
+import com.controllerface.trongle.shaders.ShaderProgram;
+import com.controllerface.trongle.text.GlyphAtlas;
 import com.juncture.alloy.ecs.ECSWorld;
 import com.juncture.alloy.events.CoreEvent;
 import com.juncture.alloy.events.Event;
 import com.juncture.alloy.gpu.GPU;
+import com.juncture.alloy.gpu.GPUResourceGroup;
 import com.juncture.alloy.gpu.Renderer;
-import com.juncture.alloy.gpu.TextGlyph;
 import com.juncture.alloy.gpu.Window;
 import com.juncture.alloy.gpu.gl.buffers.GL_CommandBuffer;
 import com.juncture.alloy.gpu.gl.buffers.GL_VertexArray;
-import com.juncture.alloy.gpu.gl.shaders.GL_Shader;
-import com.juncture.alloy.gpu.gl.textures.GL_TextureArray;
 import com.juncture.alloy.rendering.RenderComponent;
 import com.juncture.alloy.ui.SnapPosition;
 import com.juncture.alloy.ui.TextContainer;
 
 import java.nio.FloatBuffer;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
 
 import static com.juncture.alloy.gpu.Constants.*;
 import static org.lwjgl.opengl.GL11C.*;
 import static org.lwjgl.opengl.GL43C.glMultiDrawArraysIndirect;
 
+/// Renders menu text. Glyph storage is allocated in whole batches of `RENDER_BATCH_SIZE` glyphs, and grows by adding
+/// batches whenever the text no longer fits, so there is no upper limit on the amount of text. Each batch is drawn with
+/// its own indirect multi-draw call. Text layout is incremental, see [TextLayout], so changing one text box only writes
+/// that box's range of the persistently mapped vertex buffers. Glyphs are drawn from the shared signed distance field
+/// [GlyphAtlas], so text stays sharp at any scale.
 public class MenuRenderer extends Renderer
 {
-    // todo: Currently, this renderer doesn't properly batch rendering calls, essentially it creates one batch
-    //  worth of space in the command buffer, and draws that, assuming the amount of text to draw will never be
-    //  more than will fit into the buffer. This is obviously not a long-term solution, so at some point we will
-    //  need to add logic to determine how many batches are actually required, and render them accordingly.
-
     private static final int VERTICES_PER_LETTER = 4;
-    private static final int COMMAND_BUFFER_SIZE = RENDER_BATCH_SIZE * Integer.BYTES * 4;
-    private final int[] raw_cmd = new int[VERTICES_PER_LETTER * RENDER_BATCH_SIZE];
+    private static final int INTS_PER_COMMAND    = 4;
+    private static final int COMMAND_SIZE        = Integer.BYTES * INTS_PER_COMMAND;
 
-    private static final int TEXTURE_SIZE = 64;
+    static final String FONT = "/font/Inconsolata-Light.ttf";
+    static final int GLYPH_SIZE = 64;
 
     private static final int XY_ATTRIBUTE = 0;
     private static final int UV_ATTRIBUTE = 1;
     private static final int ID_ATTRIBUTE = 2;
 
-    private final GL_VertexArray vao;
-    private final GL_CommandBuffer cbo;
-    private final GL_TextureArray texture;
-    private final GL_Shader shader;
-
-    private final FloatBuffer xy_buffer;
-    private final FloatBuffer uv_buffer;
-    private final FloatBuffer id_buffer;
+    private final GlyphAtlas atlas;
+    private final ShaderProgram shader;
 
-    private final Map<Character, TextGlyph> character_map = new HashMap<>();
-    private final Queue<Event> event_queue = new LinkedBlockingQueue<>();
-    private final Map<String, TextContainer> text_boxes = new HashMap<>();
+    // glyph buffers are kept in their own group so they can be released and rebuilt with more batches
+    private final GPUResourceGroup glyph_resources = new GPUResourceGroup();
+    private GL_VertexArray vao;
+    private GL_CommandBuffer cbo;
+    private FloatBuffer xy_buffer;
+    private FloatBuffer uv_buffer;
+    private FloatBuffer id_buffer;
+    private int batch_count = 0;
 
-    private float max_char_height = 0;
-
-    private boolean dirty = true;
-    private int current_glyph_count = 0;
+    private final CoalescingEventChannel event_queue = new CoalescingEventChannel("menu_renderer", CoreEvent.WINDOW_RESIZE);
+    private final TextLayout layout;
 
     private final Window window;
 
-    public MenuRenderer(ECSWorld world)
+    public MenuRenderer(ECSWorld world, ShaderProgram shader)
     {
         var rend_layer = world.get(RenderComponent.class);
 
         this.window = RenderComponent.MainWindow.global(rend_layer);
-        world.event_bus.register(event_queue, CoreEvent.WINDOW_RESIZE);
+        event_queue.subscribe(world.event_bus);
+
+        this.shader = shader;
 
-        build_cmd();
+        atlas = GlyphAtlas.acquire(FONT, GLYPH_SIZE);
+        layout = new TextLayout(atlas);
+
+        shader.use();
+        shader.upload_int("uTexture", 0);
+        shader.detach();
 
-        text_boxes.put("title", new TextContainer(SnapPosition.CENTER,
+        set_text("title", new TextContainer(SnapPosition.CENTER,
             "Press ESC to resume", 50, 50, .75f));
+    }
+
+    /// Adds or replaces a text box. Only the glyphs of this box are rewritten on the next frame.
+    public void set_text(String key, TextContainer text_box)
+    {
+        layout.put(key, text_box);
+    }
+
+    private void ensure_capacity(int glyph_count)
+    {
+        int required = Math.max(1, (glyph_count + RENDER_BATCH_SIZE - 1) / RENDER_BATCH_SIZE);
+        if (required <= batch_count) return;
 
-        shader = GPU.GL.new_shader(resources, "text");
+        glyph_resources.release_all();
+        batch_count = required;
+        int capacity = batch_count * RENDER_BATCH_SIZE;
 
-        vao = GPU.GL.new_vao(resources);
+        vao = GPU.GL.new_vao(glyph_resources);
 
-        var xy_vbo = GPU.GL.vec2_buffer(resources, vao, XY_ATTRIBUTE, VECTOR_FLOAT_2D_SIZE * VERTICES_PER_LETTER * RENDER_BATCH_SIZE);
-        var uv_vbo = GPU.GL.vec2_buffer(resources, vao, UV_ATTRIBUTE, VECTOR_FLOAT_2D_SIZE * VERTICES_PER_LETTER * RENDER_BATCH_SIZE);
-        var id_vbo = GPU.GL.float_buffer(resources, vao, ID_ATTRIBUTE, SCALAR_FLOAT_SIZE * RENDER_BATCH_SIZE);
+        var xy_vbo = GPU.GL.vec2_buffer(glyph_resources, vao, XY_ATTRIBUTE, VECTOR_FLOAT_2D_SIZE * VERTICES_PER_LETTER * capacity);
+        var uv_vbo = GPU.GL.vec2_buffer(glyph_resources, vao, UV_ATTRIBUTE, VECTOR_FLOAT_2D_SIZE * VERTICES_PER_LETTER * capacity);
+        var id_vbo = GPU.GL.float_buffer(glyph_resources, vao, ID_ATTRIBUTE, SCALAR_FLOAT_SIZE * capacity);
 
         xy_buffer = xy_vbo.map_as_float_buffer_persistent();
         uv_buffer = uv_vbo.map_as_float_buffer_persistent();
@@ -92,21 +107,18 @@ public class MenuRenderer extends Renderer
         vao.enable_attribute(ID_ATTRIBUTE);
         vao.instance_attribute(ID_ATTRIBUTE, 1);
 
-        cbo = GPU.GL.command_buffer(resources, COMMAND_BUFFER_SIZE);
-        cbo.load_int_sub_data(raw_cmd, 0);
-        texture = GPU.GL.build_character_map(resources, TEXTURE_SIZE, "/font/Inconsolata-Light.ttf", character_map);
+        cbo = GPU.GL.command_buffer(glyph_resources, capacity * COMMAND_SIZE);
+        cbo.load_int_sub_data(build_cmd(capacity), 0);
 
-        shader.use();
-        shader.uploadInt("uTexture", 0);
-        shader.detach();
-
-        gather_text_metrics();
+        // the new buffers are empty, so every text box must be written again
+        layout.invalidate_all();
     }
 
-    private void build_cmd()
+    private static int[] build_cmd(int capacity)
     {
+        var raw_cmd = new int[capacity * INTS_PER_COMMAND];
         int cmd_offset = 0;
-        for (int i = 0; i < RENDER_BATCH_SIZE; i++)
+        for (int i = 0; i < capacity; i++)
         {
             int index = i * VERTICES_PER_LETTER;
             raw_cmd[cmd_offset++] = VERTICES_PER_LETTER;
@@ -114,136 +126,48 @@ public class MenuRenderer extends Renderer
             raw_cmd[cmd_offset++] = index;
             raw_cmd[cmd_offset++] = i;
         }
-    }
-
-    private void gather_text_metrics()
-    {
-        for (var character : character_map.values())
-        {
-            max_char_height = Math.max(max_char_height, character.size()[1]);
-        }
-    }
-
-    private float calculate_text_width(String text, float scale)
-    {
-        float width = 0.0f;
-        for (var character : text.toCharArray())
-        {
-            var glyph = character_map.get(character);
-            width += (glyph.advance() >> 6) * scale;
-        }
-        return width;
-    }
-
-    private void rebuild_hud()
-    {
-        current_glyph_count = 0;
-        int pos_offset = 0;
-        int uv_offset = 0;
-        int id_offset = 0;
-
-        xy_buffer.clear();
-        uv_buffer.clear();
-        id_buffer.clear();
-
-        var text_containers = new ArrayList<>(text_boxes.values());
-
-        for (var text_box : text_containers)
-        {
-            float x      = text_box.x();
-            float y      = text_box.y();
-            float scale  = text_box.scale();
-
-            float window_width  = window.width();
-            float window_height = window.height();
-
-            float width = calculate_text_width(text_box.message(), scale);
-            float height = max_char_height * scale;
-
-            switch (text_box.snap())
-            {
-                case NONE, BOTTOM, LEFT, BOTTOM_LEFT -> { }
-                case CENTER ->
-                {
-                    y = (window_height) / 2 - (height / 2);
-                    x = (window_width) / 2 - (width / 2);
-                }
-                case TOP, TOP_LEFT -> y = window_height - height - y;
-                case RIGHT, BOTTOM_RIGHT -> x = window_width - width - x;
-                case TOP_RIGHT ->
-                {
-                    y = window_height - height - y;
-                    x = window_width - width - x;
-                }
-            }
-
-            for (var character : text_box.message().toCharArray())
-            {
-                var glyph = character_map.get(character);
-                current_glyph_count++;
-
-                float w = glyph.size()[0] * scale;
-                float h = glyph.size()[1] * scale;
-                float x1 = x + glyph.bearing()[0] * scale;
-                float y1 = y - (glyph.size()[1] - glyph.bearing()[1]) * scale;
-                float x2 = x1 + w;
-                float y2 = y1 + h;
-                float u1 = 0.0f;
-                float v1 = 0.0f;
-                float u2 = (float) glyph.size()[0] / TEXTURE_SIZE;
-                float v2 = (float) glyph.size()[1] / TEXTURE_SIZE;
-
-                xy_buffer.put(pos_offset++, x2);
-                xy_buffer.put(pos_offset++, y1);
-                xy_buffer.put(pos_offset++, x2);
-                xy_buffer.put(pos_offset++, y2);
-                xy_buffer.put(pos_offset++, x1);
-                xy_buffer.put(pos_offset++, y1);
-                xy_buffer.put(pos_offset++, x1);
-                xy_buffer.put(pos_offset++, y2);
-
-                uv_buffer.put(uv_offset++, u2);
-                uv_buffer.put(uv_offset++, v1);
-                uv_buffer.put(uv_offset++, u2);
-                uv_buffer.put(uv_offset++, v2);
-                uv_buffer.put(uv_offset++, u1);
-                uv_buffer.put(uv_offset++, v1);
-                uv_buffer.put(uv_offset++, u1);
-                uv_buffer.put(uv_offset++, v2);
-
-                id_buffer.put(id_offset++, glyph.texture_id());
-
-                x += (glyph.advance() >> 6) * scale;
-            }
-        }
-
-        dirty = false;
+        return raw_cmd;
     }
 
     @Override
     public void render()
     {
-
         Event next_event;
         while ((next_event = event_queue.poll()) != null)
         {
             if (next_event.type() == CoreEvent.WINDOW_RESIZE)
             {
-                dirty = true;
-                System.out.println("window resize");
+                layout.invalidate_all();
             }
         }
 
-        if (dirty) rebuild_hud();
+        if (layout.needs_relayout()) ensure_capacity(layout.relayout());
+        layout.write_dirty(window.width(), window.height(), xy_buffer, uv_buffer, id_buffer);
+
+        int glyph_count = layout.glyph_count();
 
         glDisable(GL_DEPTH_TEST);
         vao.bind();
         shader.use();
-        texture.bind(0);
+        atlas.bind(0);
         cbo.bind();
-        glMultiDrawArraysIndirect(GL_TRIANGLE_STRIP, 0, current_glyph_count, 0);
+        for (int batch = 0; batch * RENDER_BATCH_SIZE < glyph_count; batch++)
+        {
+            int first = batch * RENDER_BATCH_SIZE;
+            int count = Math.min(RENDER_BATCH_SIZE, glyph_count - first);
+            glMultiDrawArraysIndirect(GL_TRIANGLE_STRIP, (long) first * COMMAND_SIZE, count, 0);
+        }
         vao.unbind();
         shader.detach();
         glEnable(GL_DEPTH_TEST);
     }
+
+    @Override
+    public void destroy()
+    {
+        super.destroy();
+        glyph_resources.release_all();
+        shader.release();
+        atlas.release();
+    }
 }
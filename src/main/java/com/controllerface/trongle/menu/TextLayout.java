@@ -0,0 +1,233 @@
+package com.controllerface.trongle.menu;
+
+import com.controllerface.trongle.text.AtlasGlyph;
+import com.controllerface.trongle.text.GlyphAtlas;
+import com.juncture.alloy.ui.TextContainer;
+
+import java.nio.FloatBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/// CPU-side glyph layout for a set of keyed text boxes. Each text box is given a fixed range of glyph slots in the
+/// vertex buffers, with some headroom, so when a single box changes, only its range is rewritten. Boxes are only moved,
+/// and every range rewritten, when a box outgrows its range or new boxes are added. Glyph slots in a range that are not
+/// used by the current text are written as degenerate quads.
+///
+/// Glyph quads and texture coordinates come from a shared [GlyphAtlas], which looks glyphs up in a flat array indexed
+/// by character, so layout does not box characters.
+class TextLayout
+{
+    static final int FLOATS_PER_GLYPH_XY = 8;
+    static final int FLOATS_PER_GLYPH_UV = 8;
+    static final int FLOATS_PER_GLYPH_ID = 1;
+
+    private static final int RESERVE_ALIGNMENT = 8;
+
+    private final GlyphAtlas atlas;
+    private final AtlasGlyph fallback;
+    private final float max_char_height;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    private int glyph_count = 0;
+    private boolean relayout = true;
+
+    private static class Entry
+    {
+        TextContainer box;
+        int offset;
+        int reserved;
+        boolean dirty = true;
+
+        Entry(TextContainer box)
+        {
+            this.box = box;
+        }
+    }
+
+    TextLayout(GlyphAtlas atlas)
+    {
+        this.atlas = atlas;
+        fallback = atlas.glyph('?');
+        max_char_height = atlas.glyph_height();
+    }
+
+    private AtlasGlyph glyph_or_fallback(char character)
+    {
+        var glyph = atlas.glyph(character);
+        return glyph != null ? glyph : fallback;
+    }
+
+    /// Adds or replaces the text box with the given key. Only that box's glyph range is rewritten on the next write,
+    /// unless the new text no longer fits in the range reserved for it.
+    void put(String key, TextContainer box)
+    {
+        var entry = entries.get(key);
+        if (entry == null)
+        {
+            entries.put(key, new Entry(box));
+            relayout = true;
+            return;
+        }
+        entry.box = box;
+        entry.dirty = true;
+        if (box.message().length() > entry.reserved) relayout = true;
+    }
+
+    /// Marks every text box as needing to be rewritten, without moving any of them. Used when the window is resized,
+    /// since snapped positions depend on the window size.
+    void invalidate_all()
+    {
+        for (var entry : entries.values())
+        {
+            entry.dirty = true;
+        }
+    }
+
+    boolean needs_relayout()
+    {
+        return relayout;
+    }
+
+    /// Reassigns glyph ranges for all text boxes, and returns the total number of glyph slots needed.
+    int relayout()
+    {
+        int offset = 0;
+        for (var entry : entries.values())
+        {
+            int length = entry.box.message().length();
+            entry.offset = offset;
+            entry.reserved = Math.max(RESERVE_ALIGNMENT,
+                (length + RESERVE_ALIGNMENT - 1) / RESERVE_ALIGNMENT * RESERVE_ALIGNMENT);
+            entry.dirty = true;
+            offset += entry.reserved;
+        }
+        glyph_count = offset;
+        relayout = false;
+        return glyph_count;
+    }
+
+    /// Total number of glyph slots in use, including unused headroom in each range.
+    int glyph_count()
+    {
+        return glyph_count;
+    }
+
+    /// Writes the glyph ranges of all dirty text boxes into the given buffers, returning the number of boxes written.
+    int write_dirty(float window_width, float window_height, FloatBuffer xy_buffer, FloatBuffer uv_buffer, FloatBuffer id_buffer)
+    {
+        int written = 0;
+        for (var entry : entries.values())
+        {
+            if (!entry.dirty) continue;
+            write_entry(entry, window_width, window_height, xy_buffer, uv_buffer, id_buffer);
+            entry.dirty = false;
+            written++;
+        }
+        return written;
+    }
+
+    private float text_width(String text, float scale)
+    {
+        float width = 0.0f;
+        for (int i = 0; i < text.length(); i++)
+        {
+            var glyph = glyph_or_fallback(text.charAt(i));
+            if (glyph == null) continue;
+            width += glyph.advance() * scale;
+        }
+        return width;
+    }
+
+    private void write_entry(Entry entry,
+                             float window_width,
+                             float window_height,
+                             FloatBuffer xy_buffer,
+                             FloatBuffer uv_buffer,
+                             FloatBuffer id_buffer)
+    {
+        var text_box = entry.box;
+        var message = text_box.message();
+
+        float x     = text_box.x();
+        float y     = text_box.y();
+        float scale = text_box.scale();
+
+        float width  = text_width(message, scale);
+        float height = max_char_height * scale;
+
+        switch (text_box.snap())
+        {
+            case NONE, BOTTOM, LEFT, BOTTOM_LEFT -> { }
+            case CENTER ->
+            {
+                y = (window_height) / 2 - (height / 2);
+                x = (window_width) / 2 - (width / 2);
+            }
+            case TOP, TOP_LEFT -> y = window_height - height - y;
+            case RIGHT, BOTTOM_RIGHT -> x = window_width - width - x;
+            case TOP_RIGHT ->
+            {
+                y = window_height - height - y;
+                x = window_width - width - x;
+            }
+        }
+
+        int pos_offset = entry.offset * FLOATS_PER_GLYPH_XY;
+        int uv_offset  = entry.offset * FLOATS_PER_GLYPH_UV;
+        int id_offset  = entry.offset * FLOATS_PER_GLYPH_ID;
+        int end        = entry.offset + entry.reserved;
+        int slot       = entry.offset;
+
+        for (int i = 0; i < message.length() && slot < end; i++)
+        {
+            var glyph = glyph_or_fallback(message.charAt(i));
+            if (glyph == null) continue;
+
+            float w = glyph.width() * scale;
+            float h = glyph.height() * scale;
+            float x1 = x + glyph.bearing_x() * scale;
+            float y1 = y - (glyph.height() - glyph.bearing_y()) * scale;
+            float x2 = x1 + w;
+            float y2 = y1 + h;
+
+            // atlas rows run top to bottom, so the top of the quad samples the glyph's first row
+            float u1 = glyph.u1();
+            float v1 = glyph.v2();
+            float u2 = glyph.u2();
+            float v2 = glyph.v1();
+
+            xy_buffer.put(pos_offset++, x2);
+            xy_buffer.put(pos_offset++, y1);
+            xy_buffer.put(pos_offset++, x2);
+            xy_buffer.put(pos_offset++, y2);
+            xy_buffer.put(pos_offset++, x1);
+            xy_buffer.put(pos_offset++, y1);
+            xy_buffer.put(pos_offset++, x1);
+            xy_buffer.put(pos_offset++, y2);
+
+            uv_buffer.put(uv_offset++, u2);
+            uv_buffer.put(uv_offset++, v1);
+            uv_buffer.put(uv_offset++, u2);
+            uv_buffer.put(uv_offset++, v2);
+            uv_buffer.put(uv_offset++, u1);
+            uv_buffer.put(uv_offset++, v1);
+            uv_buffer.put(uv_offset++, u1);
+            uv_buffer.put(uv_offset++, v2);
+
+            id_buffer.put(id_offset++, 0.0f);
+
+            x += glyph.advance() * scale;
+            slot++;
+        }
+
+        // collapse any unused headroom in the range to degenerate quads
+        for (; slot < end; slot++)
+        {
+            for (int i = 0; i < FLOATS_PER_GLYPH_XY; i++)
+            {
+                xy_buffer.put(pos_offset++, 0.0f);
+            }
+        }
+    }
+}
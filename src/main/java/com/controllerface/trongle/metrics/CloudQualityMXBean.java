@@ -0,0 +1,13 @@
+package com.controllerface.trongle.metrics;
+
+/// JMX controls for the cloud layer's quality and performance trade-off. Changes take effect on the next frame. The
+/// target size is read-only, and reflects the current window size and scale.
+public interface CloudQualityMXBean
+{
+    float getScale();
+    void setScale(float scale);
+    boolean isCheckerboard();
+    void setCheckerboard(boolean checkerboard);
+    int getTargetWidth();
+    int getTargetHeight();
+}
@@ -0,0 +1,105 @@
+package com.controllerface.trongle.metrics;
+
+import java.util.Arrays;
+
+/// A fixed-memory, log-linear histogram of latencies in nanoseconds. Values are grouped by power of two, and each power
+/// of two is split into linear sub-buckets, so every recorded value is reported within ~6% of its true value regardless
+/// of magnitude, from single nanoseconds up to several minutes. Percentiles report the top of their bucket, so they are
+/// never below the true value and at most 1/16 above it. The minimum and maximum are tracked exactly. Recording is a few
+/// shifts and an array increment, and never allocates.
+///
+/// Instances are not thread-safe. They are intended to be written by a single thread, and copied with [#copy_into]
+/// when another thread needs to read them.
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS  = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT     = 40; // ~18 minutes in nanoseconds
+    private static final int BUCKET_COUNT     = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long total_count = 0;
+    private long total_ns    = 0;
+    private long min_ns      = Long.MAX_VALUE;
+    private long max_ns      = 0;
+
+    private static int index_of(long value)
+    {
+        if (value < SUB_BUCKET_COUNT) return (int) Math.max(0, value);
+        int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(value));
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + sub;
+    }
+
+    /// The highest value that maps to the given bucket, used when reporting percentiles.
+    private static long upper_bound(int index)
+    {
+        if (index < SUB_BUCKET_COUNT) return index;
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        long sub = index % SUB_BUCKET_COUNT;
+        long base = (SUB_BUCKET_COUNT | sub) << (exponent - SUB_BUCKET_BITS);
+        return base + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    public void record(long value_ns)
+    {
+        counts[index_of(value_ns)]++;
+        total_count++;
+        total_ns += value_ns;
+        if (value_ns < min_ns) min_ns = value_ns;
+        if (value_ns > max_ns) max_ns = value_ns;
+    }
+
+    /// Returns the value at the given percentile, in the range 0 to 100.
+    public long percentile(double percentile)
+    {
+        if (total_count == 0) return 0;
+        long target = (long) Math.ceil(total_count * (percentile / 100.0));
+        target = Math.max(1, Math.min(total_count, target));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++)
+        {
+            seen += counts[i];
+            if (seen >= target) return Math.min(max_ns, upper_bound(i));
+        }
+        return max_ns;
+    }
+
+    public long count()
+    {
+        return total_count;
+    }
+
+    public long min()
+    {
+        return total_count == 0 ? 0 : min_ns;
+    }
+
+    public long max()
+    {
+        return max_ns;
+    }
+
+    public double mean()
+    {
+        return total_count == 0 ? 0.0 : (double) total_ns / total_count;
+    }
+
+    public void copy_into(LatencyHistogram other)
+    {
+        System.arraycopy(counts, 0, other.counts, 0, counts.length);
+        other.total_count = total_count;
+        other.total_ns    = total_ns;
+        other.min_ns      = min_ns;
+        other.max_ns      = max_ns;
+    }
+
+    public void reset()
+    {
+        Arrays.fill(counts, 0);
+        total_count = 0;
+        total_ns    = 0;
+        min_ns      = Long.MAX_VALUE;
+        max_ns      = 0;
+    }
+}
@@ -0,0 +1,14 @@
+package com.controllerface.trongle.metrics;
+
+/// JMX view of the tick timing of a single ECS system. Values cover the most recently published interval, so they
+/// describe recent behavior rather than an all-time aggregate.
+public interface SystemTimingMXBean
+{
+    String getSystemName();
+    long getTickCount();
+    double getMeanMicros();
+    double getP50Micros();
+    double getP99Micros();
+    double getP999Micros();
+    double getMaxMicros();
+}
@@ -0,0 +1,130 @@
+package com.controllerface.trongle.metrics;
+
+import com.juncture.alloy.ecs.ECSSystem;
+import com.juncture.alloy.ecs.ECSWorld;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/// Tracks tick timing for a list of ECS systems. Systems are wrapped in a [TimedSystem] that records each tick into a
+/// histogram, and once per interval the histograms are published and exposed as JMX MBeans under
+/// `com.controllerface.trongle:type=SystemTiming`. Timing costs two `nanoTime` calls per system tick, and can be turned
+/// off with `-Dtrongle.system_timing=false`, in which case systems are wrapped in a plain [TracedSystem], so their
+/// ticks are still recorded when flight recording is enabled.
+public class SystemTimings
+{
+    private static final Logger LOGGER = Logger.getLogger(SystemTimings.class.getName());
+
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("trongle.system_timing", "true"));
+
+    private static final String DOMAIN = "com.controllerface.trongle";
+    private static final long PUBLISH_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final List<TimedSystem> timed = new ArrayList<>();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private long last_publish = System.nanoTime();
+
+    /// Returns the systems to register with the world: timed wrappers when timing is enabled, otherwise traced ones.
+    public List<ECSSystem> wrap(ECSWorld world, List<ECSSystem> systems)
+    {
+        if (!ENABLED)
+        {
+            var traced = new ArrayList<ECSSystem>(systems.size());
+            for (var system : systems)
+            {
+                traced.add(new TracedSystem(world, system));
+            }
+            return traced;
+        }
+
+        var wrapped = new ArrayList<ECSSystem>(systems.size());
+        for (var system : systems)
+        {
+            var timed_system = new TimedSystem(world, system);
+            timed.add(timed_system);
+            wrapped.add(timed_system);
+            register_mbean(timed_system);
+        }
+        return wrapped;
+    }
+
+    private static ObjectName object_name(TimedSystem system) throws JMException
+    {
+        return new ObjectName(DOMAIN + ":type=SystemTiming,name=" + ObjectName.quote(system.getSystemName()));
+    }
+
+    private void register_mbean(TimedSystem system)
+    {
+        try
+        {
+            var name = object_name(system);
+            var server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(system, name);
+            registered.add(name);
+        }
+        catch (JMException e)
+        {
+            LOGGER.log(Level.WARNING, "Could not register timing MBean for: " + system.getSystemName(), e);
+        }
+    }
+
+    /// Stops tracking a system previously returned by [#wrap], and unregisters its MBean. Systems that were not wrapped
+    /// are ignored.
+    public void remove(ECSSystem system)
+    {
+        if (!(system instanceof TimedSystem timed_system) || !timed.remove(timed_system)) return;
+        try
+        {
+            var name = object_name(timed_system);
+            var server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            registered.remove(name);
+        }
+        catch (JMException e)
+        {
+            LOGGER.log(Level.FINE, "Could not unregister timing MBean for: " + timed_system.getSystemName(), e);
+        }
+    }
+
+    /// Publishes the current interval if it has run long enough. Returns true when new values were published.
+    public boolean publish_if_due(long now)
+    {
+        if (timed.isEmpty() || now - last_publish < PUBLISH_INTERVAL) return false;
+        last_publish = now;
+        for (var system : timed)
+        {
+            system.publish();
+        }
+        return true;
+    }
+
+    public List<TimedSystem> systems()
+    {
+        return Collections.unmodifiableList(timed);
+    }
+
+    public void unregister()
+    {
+        var server = ManagementFactory.getPlatformMBeanServer();
+        for (var name : registered)
+        {
+            try
+            {
+                if (server.isRegistered(name)) server.unregisterMBean(name);
+            }
+            catch (JMException e)
+            {
+                LOGGER.log(Level.FINE, "Could not unregister timing MBean: " + name, e);
+            }
+        }
+        registered.clear();
+    }
+}
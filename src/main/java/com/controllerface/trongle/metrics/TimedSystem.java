@@ -0,0 +1,73 @@
+package com.controllerface.trongle.metrics;
+
+import com.juncture.alloy.ecs.ECSSystem;
+import com.juncture.alloy.ecs.ECSWorld;
+
+/// A [TracedSystem] that also records the duration of every tick into a latency histogram.
+public class TimedSystem extends TracedSystem implements SystemTimingMXBean
+{
+    private final LatencyHistogram active    = new LatencyHistogram();
+    private final LatencyHistogram published = new LatencyHistogram();
+
+    TimedSystem(ECSWorld world, ECSSystem inner)
+    {
+        super(world, inner);
+    }
+
+    @Override
+    protected void run(double dt)
+    {
+        long start = System.nanoTime();
+        inner.tick(dt);
+        active.record(System.nanoTime() - start);
+    }
+
+    /// Makes the current interval's timings visible to readers and starts a new interval.
+    synchronized void publish()
+    {
+        active.copy_into(published);
+        active.reset();
+    }
+
+    @Override
+    public String getSystemName()
+    {
+        return name;
+    }
+
+    @Override
+    public synchronized long getTickCount()
+    {
+        return published.count();
+    }
+
+    @Override
+    public synchronized double getMeanMicros()
+    {
+        return published.mean() / 1000.0;
+    }
+
+    @Override
+    public synchronized double getP50Micros()
+    {
+        return published.percentile(50.0) / 1000.0;
+    }
+
+    @Override
+    public synchronized double getP99Micros()
+    {
+        return published.percentile(99.0) / 1000.0;
+    }
+
+    @Override
+    public synchronized double getP999Micros()
+    {
+        return published.percentile(99.9) / 1000.0;
+    }
+
+    @Override
+    public synchronized double getMaxMicros()
+    {
+        return published.max() / 1000.0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.controllerface.trongle.metrics;
+
+import com.controllerface.trongle.metrics.jfr.SystemTickEvent;
+import com.juncture.alloy.ecs.ECSSystem;
+import com.juncture.alloy.ecs.ECSWorld;
+import jdk.jfr.EventType;
+
+/// Wraps an ECS system and records each of its ticks as a [SystemTickEvent] when flight recording is enabled. This is
+/// independent of [SystemTimings], so every system registered with a world can be traced, whether or not its ticks are
+/// also timed. The wrapper is registered with the world in place of the system it wraps, and forwards all calls to it.
+/// While no recording has the event enabled, a tick costs one flag check and creates no event.
+public class TracedSystem extends ECSSystem
+{
+    private static final EventType TICK_EVENT = EventType.getEventType(SystemTickEvent.class);
+
+    protected final ECSSystem inner;
+    protected final String name;
+
+    public TracedSystem(ECSWorld world, ECSSystem inner)
+    {
+        super(world);
+        this.inner = inner;
+        this.name = inner.getClass().getSimpleName();
+    }
+
+    public ECSSystem inner()
+    {
+        return inner;
+    }
+
+    @Override
+    public final void tick(double dt)
+    {
+        if (!TICK_EVENT.isEnabled())
+        {
+            run(dt);
+            return;
+        }
+
+        var event = new SystemTickEvent();
+        event.begin();
+        run(dt);
+        if (event.shouldCommit())
+        {
+            event.system = name;
+            event.commit();
+        }
+    }
+
+    /// Ticks the wrapped system, within the traced span.
+    protected void run(double dt)
+    {
+        inner.tick(dt);
+    }
+
+    @Override
+    public void shutdown()
+    {
+        inner.shutdown();
+    }
+}
@@ -0,0 +1,36 @@
+package com.controllerface.trongle.metrics.jfr;
+
+import jdk.jfr.*;
+
+import java.util.function.Supplier;
+
+@Name("trongle.AssetLoad")
+@Label("Asset Load")
+@Category({"Trongle", "Assets"})
+@Description("Loading and preparing an asset, including any decoding and GPU upload")
+@StackTrace(false)
+public class AssetLoadEvent extends Event
+{
+    @Label("Kind")
+    public String kind;
+
+    @Label("Asset")
+    public String asset;
+
+    /// Runs the given loader inside an asset load event and returns its result.
+    public static <T> T record(String kind, String asset, Supplier<T> loader)
+    {
+        var event = new AssetLoadEvent();
+        event.kind = kind;
+        event.asset = asset;
+        event.begin();
+        try
+        {
+            return loader.get();
+        }
+        finally
+        {
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.controllerface.trongle.metrics.jfr;
+
+import jdk.jfr.*;
+
+@Name("trongle.Frame")
+@Label("Frame")
+@Category({"Trongle", "Game Loop"})
+@Description("One full iteration of the game loop")
+@StackTrace(false)
+public class FrameEvent extends Event
+{
+    @Label("Frame Number")
+    public long frame;
+}
@@ -0,0 +1,52 @@
+package com.controllerface.trongle.metrics.jfr;
+
+import com.controllerface.trongle.assets.Resources;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/// Starts a continuous flight recording using the bundled `/jfr/trongle.jfc` settings, which enable the game's own
+/// events with thresholds that keep only slow frames and ticks, along with GC, JIT, and safepoint events. The recording
+/// keeps a rolling window in memory and is written out when the game exits.
+///
+/// Enabled with `-Dtrongle.jfr=<output file>`. The same settings can also be used without this class, e.g.
+/// `-XX:StartFlightRecording:settings=trongle.jfc` with the file from the distribution.
+public class GameRecording
+{
+    private static final Logger LOGGER = Logger.getLogger(GameRecording.class.getName());
+
+    private static final String SETTINGS = "/jfr/trongle.jfc";
+    private static final Duration MAX_AGE = Duration.ofMinutes(10);
+
+    public static void start_if_enabled()
+    {
+        var output = System.getProperty("trongle.jfr");
+        if (output == null || output.isBlank()) return;
+
+        try (var stream = Objects.requireNonNull(Resources.open(SETTINGS), SETTINGS);
+             var reader = new InputStreamReader(stream, StandardCharsets.UTF_8))
+        {
+            var recording = new Recording(Configuration.create(reader));
+            recording.setName("trongle");
+            recording.setToDisk(true);
+            recording.setMaxAge(MAX_AGE);
+            recording.setDestination(Path.of(output));
+            recording.setDumpOnExit(true);
+            recording.start();
+            LOGGER.info("Flight recording started, will be written to: " + output);
+        }
+        catch (IOException | ParseException e)
+        {
+            LOGGER.log(Level.WARNING, "Could not start flight recording", e);
+        }
+    }
+}
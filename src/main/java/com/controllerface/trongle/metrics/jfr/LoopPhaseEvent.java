@@ -0,0 +1,22 @@
+package com.controllerface.trongle.metrics.jfr;
+
+import jdk.jfr.*;
+
+@Name("trongle.LoopPhase")
+@Label("Loop Phase")
+@Category({"Trongle", "Game Loop"})
+@Description("A single phase of a game loop iteration: tick, process_events, upload_assets or frame_complete")
+@StackTrace(false)
+public class LoopPhaseEvent extends Event
+{
+    public static final String TICK           = "tick";
+    public static final String PROCESS_EVENTS = "process_events";
+    public static final String UPLOAD_ASSETS  = "upload_assets";
+    public static final String FRAME_COMPLETE = "frame_complete";
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Frame Number")
+    public long frame;
+}
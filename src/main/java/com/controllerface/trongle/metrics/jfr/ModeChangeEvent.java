@@ -0,0 +1,17 @@
+package com.controllerface.trongle.metrics.jfr;
+
+import jdk.jfr.*;
+
+@Name("trongle.ModeChange")
+@Label("Mode Change")
+@Category({"Trongle", "Game Loop"})
+@Description("Switching between game modes, covering deactivation of the old mode and activation of the new one")
+@StackTrace(false)
+public class ModeChangeEvent extends Event
+{
+    @Label("From Mode")
+    public String from;
+
+    @Label("To Mode")
+    public String to;
+}
@@ -0,0 +1,14 @@
+package com.controllerface.trongle.metrics.jfr;
+
+import jdk.jfr.*;
+
+@Name("trongle.SystemTick")
+@Label("System Tick")
+@Category({"Trongle", "Systems"})
+@Description("A single tick of an ECS system")
+@StackTrace(false)
+public class SystemTickEvent extends Event
+{
+    @Label("System")
+    public String system;
+}
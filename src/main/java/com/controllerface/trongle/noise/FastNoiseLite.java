@@ -0,0 +1,253 @@
+package com.controllerface.trongle.noise;
+
+/// A Java port of the 2D parts of FastNoiseLite, matching `_lib/FastNoiseLite.glsl` so the CPU can reproduce noise the
+/// shaders compute. Only the noise and fractal types the shaders actually use are ported. Settings are plain fields,
+/// as in the GLSL `fnl_state`, and the defaults are those of `fnlCreateState`. All arithmetic is done in `float` with
+/// the same operation order as the shader, so results agree with the GPU to within float rounding.
+///
+/// Instances are not thread safe while their settings are being changed, but sampling does not mutate them, so a
+/// configured instance can be shared by any number of threads.
+public final class FastNoiseLite
+{
+    public enum NoiseType
+    {
+        OPENSIMPLEX2,
+        PERLIN,
+    }
+
+    public enum FractalType
+    {
+        NONE,
+        FBM,
+    }
+
+    public int seed;
+    public float frequency = 0.01f;
+    public NoiseType noise_type = NoiseType.OPENSIMPLEX2;
+    public FractalType fractal_type = FractalType.NONE;
+    public int octaves = 3;
+    public float lacunarity = 2.0f;
+    public float gain = 0.5f;
+    public float weighted_strength = 0.0f;
+
+    private static final int PRIME_X = 501125321;
+    private static final int PRIME_Y = 1136930381;
+
+    private static final float SQRT3 = 1.7320508075688772935274463415059f;
+    private static final float F2 = 0.5f * (SQRT3 - 1.0f);
+    private static final float G2 = (3.0f - SQRT3) / 6.0f;
+
+    private static final float[] GRADIENTS_2D =
+        {
+            0.130526192220052f, 0.99144486137381f, 0.38268343236509f, 0.923879532511287f, 0.608761429008721f, 0.793353340291235f, 0.793353340291235f, 0.608761429008721f,
+            0.923879532511287f, 0.38268343236509f, 0.99144486137381f, 0.130526192220051f, 0.99144486137381f, -0.130526192220051f, 0.923879532511287f, -0.38268343236509f,
+            0.793353340291235f, -0.60876142900872f, 0.608761429008721f, -0.793353340291235f, 0.38268343236509f, -0.923879532511287f, 0.130526192220052f, -0.99144486137381f,
+            -0.130526192220052f, -0.99144486137381f, -0.38268343236509f, -0.923879532511287f, -0.608761429008721f, -0.793353340291235f, -0.793353340291235f, -0.608761429008721f,
+            -0.923879532511287f, -0.38268343236509f, -0.99144486137381f, -0.130526192220052f, -0.99144486137381f, 0.130526192220051f, -0.923879532511287f, 0.38268343236509f,
+            -0.793353340291235f, 0.608761429008721f, -0.608761429008721f, 0.793353340291235f, -0.38268343236509f, 0.923879532511287f, -0.130526192220052f, 0.99144486137381f,
+            0.130526192220052f, 0.99144486137381f, 0.38268343236509f, 0.923879532511287f, 0.608761429008721f, 0.793353340291235f, 0.793353340291235f, 0.608761429008721f,
+            0.923879532511287f, 0.38268343236509f, 0.99144486137381f, 0.130526192220051f, 0.99144486137381f, -0.130526192220051f, 0.923879532511287f, -0.38268343236509f,
+            0.793353340291235f, -0.60876142900872f, 0.608761429008721f, -0.793353340291235f, 0.38268343236509f, -0.923879532511287f, 0.130526192220052f, -0.99144486137381f,
+            -0.130526192220052f, -0.99144486137381f, -0.38268343236509f, -0.923879532511287f, -0.608761429008721f, -0.793353340291235f, -0.793353340291235f, -0.608761429008721f,
+            -0.923879532511287f, -0.38268343236509f, -0.99144486137381f, -0.130526192220052f, -0.99144486137381f, 0.130526192220051f, -0.923879532511287f, 0.38268343236509f,
+            -0.793353340291235f, 0.608761429008721f, -0.608761429008721f, 0.793353340291235f, -0.38268343236509f, 0.923879532511287f, -0.130526192220052f, 0.99144486137381f,
+            0.130526192220052f, 0.99144486137381f, 0.38268343236509f, 0.923879532511287f, 0.608761429008721f, 0.793353340291235f, 0.793353340291235f, 0.608761429008721f,
+            0.923879532511287f, 0.38268343236509f, 0.99144486137381f, 0.130526192220051f, 0.99144486137381f, -0.130526192220051f, 0.923879532511287f, -0.38268343236509f,
+            0.793353340291235f, -0.60876142900872f, 0.608761429008721f, -0.793353340291235f, 0.38268343236509f, -0.923879532511287f, 0.130526192220052f, -0.99144486137381f,
+            -0.130526192220052f, -0.99144486137381f, -0.38268343236509f, -0.923879532511287f, -0.608761429008721f, -0.793353340291235f, -0.793353340291235f, -0.608761429008721f,
+            -0.923879532511287f, -0.38268343236509f, -0.99144486137381f, -0.130526192220052f, -0.99144486137381f, 0.130526192220051f, -0.923879532511287f, 0.38268343236509f,
+            -0.793353340291235f, 0.608761429008721f, -0.608761429008721f, 0.793353340291235f, -0.38268343236509f, 0.923879532511287f, -0.130526192220052f, 0.99144486137381f,
+            0.130526192220052f, 0.99144486137381f, 0.38268343236509f, 0.923879532511287f, 0.608761429008721f, 0.793353340291235f, 0.793353340291235f, 0.608761429008721f,
+            0.923879532511287f, 0.38268343236509f, 0.99144486137381f, 0.130526192220051f, 0.99144486137381f, -0.130526192220051f, 0.923879532511287f, -0.38268343236509f,
+            0.793353340291235f, -0.60876142900872f, 0.608761429008721f, -0.793353340291235f, 0.38268343236509f, -0.923879532511287f, 0.130526192220052f, -0.99144486137381f,
+            -0.130526192220052f, -0.99144486137381f, -0.38268343236509f, -0.923879532511287f, -0.608761429008721f, -0.793353340291235f, -0.793353340291235f, -0.608761429008721f,
+            -0.923879532511287f, -0.38268343236509f, -0.99144486137381f, -0.130526192220052f, -0.99144486137381f, 0.130526192220051f, -0.923879532511287f, 0.38268343236509f,
+            -0.793353340291235f, 0.608761429008721f, -0.608761429008721f, 0.793353340291235f, -0.38268343236509f, 0.923879532511287f, -0.130526192220052f, 0.99144486137381f,
+            0.130526192220052f, 0.99144486137381f, 0.38268343236509f, 0.923879532511287f, 0.608761429008721f, 0.793353340291235f, 0.793353340291235f, 0.608761429008721f,
+            0.923879532511287f, 0.38268343236509f, 0.99144486137381f, 0.130526192220051f, 0.99144486137381f, -0.130526192220051f, 0.923879532511287f, -0.38268343236509f,
+            0.793353340291235f, -0.60876142900872f, 0.608761429008721f, -0.793353340291235f, 0.38268343236509f, -0.923879532511287f, 0.130526192220052f, -0.99144486137381f,
+            -0.130526192220052f, -0.99144486137381f, -0.38268343236509f, -0.923879532511287f, -0.608761429008721f, -0.793353340291235f, -0.793353340291235f, -0.608761429008721f,
+            -0.923879532511287f, -0.38268343236509f, -0.99144486137381f, -0.130526192220052f, -0.99144486137381f, 0.130526192220051f, -0.923879532511287f, 0.38268343236509f,
+            -0.793353340291235f, 0.608761429008721f, -0.608761429008721f, 0.793353340291235f, -0.38268343236509f, 0.923879532511287f, -0.130526192220052f, 0.99144486137381f,
+            0.38268343236509f, 0.923879532511287f, 0.923879532511287f, 0.38268343236509f, 0.923879532511287f, -0.38268343236509f, 0.38268343236509f, -0.923879532511287f,
+            -0.38268343236509f, -0.923879532511287f, -0.923879532511287f, -0.38268343236509f, -0.923879532511287f, 0.38268343236509f, -0.38268343236509f, 0.923879532511287f,
+        };
+
+    public FastNoiseLite(int seed)
+    {
+        this.seed = seed;
+    }
+
+    /// 2D noise at the given position using the current settings, bounded between -1 and 1.
+    public float noise_2d(float x, float y)
+    {
+        x *= frequency;
+        y *= frequency;
+
+        if (noise_type == NoiseType.OPENSIMPLEX2)
+        {
+            float t = (x + y) * F2;
+            x += t;
+            y += t;
+        }
+
+        return switch (fractal_type)
+        {
+            case FBM -> fractal_fbm_2d(x, y);
+            case NONE -> single_2d(seed, x, y);
+        };
+    }
+
+    private float fractal_bounding()
+    {
+        float abs_gain = Math.abs(gain);
+        float amp = abs_gain;
+        float amp_fractal = 1.0f;
+        for (int i = 1; i < octaves; i++)
+        {
+            amp_fractal += amp;
+            amp *= abs_gain;
+        }
+        return 1.0f / amp_fractal;
+    }
+
+    private float fractal_fbm_2d(float x, float y)
+    {
+        int octave_seed = seed;
+        float sum = 0.0f;
+        float amp = fractal_bounding();
+
+        for (int i = 0; i < octaves; i++)
+        {
+            float noise = single_2d(octave_seed++, x, y);
+            sum += noise * amp;
+            amp *= lerp(1.0f, Math.min(noise + 1.0f, 2.0f) * 0.5f, weighted_strength);
+
+            x *= lacunarity;
+            y *= lacunarity;
+            amp *= gain;
+        }
+
+        return sum;
+    }
+
+    private float single_2d(int seed, float x, float y)
+    {
+        return switch (noise_type)
+        {
+            case OPENSIMPLEX2 -> single_simplex_2d(seed, x, y);
+            case PERLIN -> single_perlin_2d(seed, x, y);
+        };
+    }
+
+    private static int fast_floor(float f)
+    {
+        return (int) Math.floor(f);
+    }
+
+    private static float lerp(float a, float b, float t)
+    {
+        return a + t * (b - a);
+    }
+
+    private static float interp_quintic(float t)
+    {
+        return t * t * t * (t * (t * 6.0f - 15.0f) + 10.0f);
+    }
+
+    private static int hash_2d(int seed, int x_primed, int y_primed)
+    {
+        int hash = seed ^ x_primed ^ y_primed;
+        hash *= 0x27d4eb2d;
+        return hash;
+    }
+
+    private static float grad_coord_2d(int seed, int x_primed, int y_primed, float xd, float yd)
+    {
+        int hash = hash_2d(seed, x_primed, y_primed);
+        hash ^= hash >> 15;
+        hash &= 127 << 1;
+        return xd * GRADIENTS_2D[hash] + yd * GRADIENTS_2D[hash | 1];
+    }
+
+    /// 2D OpenSimplex2 uses the same algorithm as ordinary simplex noise, with the skew applied by [#noise_2d].
+    private static float single_simplex_2d(int seed, float x, float y)
+    {
+        int i = fast_floor(x);
+        int j = fast_floor(y);
+        float xi = x - i;
+        float yi = y - j;
+
+        float t = (xi + yi) * G2;
+        float x0 = xi - t;
+        float y0 = yi - t;
+
+        i *= PRIME_X;
+        j *= PRIME_Y;
+
+        float n0, n1, n2;
+
+        float a = 0.5f - x0 * x0 - y0 * y0;
+        if (a <= 0.0f)
+        {
+            n0 = 0.0f;
+        }
+        else
+        {
+            n0 = (a * a) * (a * a) * grad_coord_2d(seed, i, j, x0, y0);
+        }
+
+        float c = (2.0f * (1.0f - 2.0f * G2) * (1.0f / G2 - 2.0f)) * t + ((-2.0f * (1.0f - 2.0f * G2) * (1.0f - 2.0f * G2)) + a);
+        if (c <= 0.0f)
+        {
+            n2 = 0.0f;
+        }
+        else
+        {
+            float x2 = x0 + (2.0f * G2 - 1.0f);
+            float y2 = y0 + (2.0f * G2 - 1.0f);
+            n2 = (c * c) * (c * c) * grad_coord_2d(seed, i + PRIME_X, j + PRIME_Y, x2, y2);
+        }
+
+        if (y0 > x0)
+        {
+            float x1 = x0 + G2;
+            float y1 = y0 + G2 - 1.0f;
+            float b = 0.5f - x1 * x1 - y1 * y1;
+            n1 = b <= 0.0f ? 0.0f : (b * b) * (b * b) * grad_coord_2d(seed, i, j + PRIME_Y, x1, y1);
+        }
+        else
+        {
+            float x1 = x0 + (G2 - 1.0f);
+            float y1 = y0 + G2;
+            float b = 0.5f - x1 * x1 - y1 * y1;
+            n1 = b <= 0.0f ? 0.0f : (b * b) * (b * b) * grad_coord_2d(seed, i + PRIME_X, j, x1, y1);
+        }
+
+        return (n0 + n1 + n2) * 99.83685446303647f;
+    }
+
+    private static float single_perlin_2d(int seed, float x, float y)
+    {
+        int x0 = fast_floor(x);
+        int y0 = fast_floor(y);
+
+        float xd0 = x - x0;
+        float yd0 = y - y0;
+        float xd1 = xd0 - 1.0f;
+        float yd1 = yd0 - 1.0f;
+
+        float xs = interp_quintic(xd0);
+        float ys = interp_quintic(yd0);
+
+        x0 *= PRIME_X;
+        y0 *= PRIME_Y;
+        int x1 = x0 + PRIME_X;
+        int y1 = y0 + PRIME_Y;
+
+        float xf0 = lerp(grad_coord_2d(seed, x0, y0, xd0, yd0), grad_coord_2d(seed, x1, y0, xd1, yd0), xs);
+        float xf1 = lerp(grad_coord_2d(seed, x0, y1, xd0, yd1), grad_coord_2d(seed, x1, y1, xd1, yd1), xs);
+
+        return lerp(xf0, xf1, ys) * 1.4247691104677813f;
+    }
+}
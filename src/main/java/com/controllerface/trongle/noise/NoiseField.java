@@ -0,0 +1,310 @@
+package com.controllerface.trongle.noise;
+
+import com.controllerface.trongle.assets.Resources;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.lwjgl.opengl.GL45C.*;
+
+/// A window of baked 2D noise that follows a moving center, so shaders can sample noise from a texture instead of
+/// evaluating [FastNoiseLite] per fragment or vertex. The window is a square grid of tiles stored in a single
+/// repeating texture, with each tile kept in the slot given by its world tile coordinate modulo the grid size, so a
+/// shader finds any point in the window with `texture(noise, world / window_size())`. When the center moves, only the
+/// tiles that scroll into the window are produced, and they replace the tiles that scrolled out.
+///
+/// Tiles are produced on the given executor, and each is cached on disk under a directory keyed by the noise settings
+/// and the tile resolution, under `-Dtrongle.noise_cache` or `cache/noise` under [Resources#HOME] by default, so after
+/// the first run tiles are read back instead of generated. Finished tiles are uploaded by [#update], at most
+/// `max_uploads` per call, and never waited on, so until a tile arrives its slot shows whatever it held before. Values
+/// are stored as half floats, exactly as the noise returns them.
+///
+/// Apart from the tile work on the executor, a field must only be used from the GL thread.
+public final class NoiseField
+{
+    private static final Logger LOGGER = Logger.getLogger(NoiseField.class.getName());
+
+    public static final Path CACHE_DIR = Resources.home_path("trongle.noise_cache", "cache/noise");
+
+    private static final int MAGIC = 0x544E5254; // "TRNT"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private record Tile(long key, short[] texels) { }
+
+    private final String name;
+    private final FastNoiseLite noise;
+    private final float texel_size;
+    private final int tile_texels;
+    private final int tiles;
+    private final int max_uploads;
+    private final Executor executor;
+    private final Path cache_dir;
+    private final int texture;
+
+    /// Tile offsets from the window's center tile, nearest first, the order tiles are requested in.
+    private final int[] offset_x;
+    private final int[] offset_z;
+
+    private final long[] slot_keys;
+    private final Set<Long> requested = new HashSet<>();
+    private final Queue<Tile> completed = new ConcurrentLinkedQueue<>();
+
+    private int center_x = Integer.MIN_VALUE;
+    private int center_z = Integer.MIN_VALUE;
+
+    /// Creates the texture for a window of `tiles` by `tiles` tiles, each `tile_texels` texels across, with texels
+    /// `texel_size` world units apart. Must be called on the GL thread.
+    public NoiseField(String name,
+                      NoiseSettings settings,
+                      float texel_size,
+                      int tile_texels,
+                      int tiles,
+                      int max_uploads,
+                      Executor executor,
+                      Path cache_root)
+    {
+        this.name = name;
+        this.noise = settings.create();
+        this.texel_size = texel_size;
+        this.tile_texels = tile_texels;
+        this.tiles = tiles;
+        this.max_uploads = max_uploads;
+        this.executor = executor;
+        this.cache_dir = cache_root.resolve(settings.key()
+            + "-" + tile_texels + "-" + Integer.toHexString(Float.floatToIntBits(texel_size)));
+
+        slot_keys = new long[tiles * tiles];
+        Arrays.fill(slot_keys, EMPTY);
+
+        var offsets = new ArrayList<int[]>();
+        int low = -(tiles / 2);
+        for (int z = low; z < low + tiles; z++)
+        {
+            for (int x = low; x < low + tiles; x++)
+            {
+                offsets.add(new int[]{ x, z });
+            }
+        }
+        offsets.sort(Comparator.comparingInt(o -> o[0] * o[0] + o[1] * o[1]));
+        offset_x = new int[offsets.size()];
+        offset_z = new int[offsets.size()];
+        for (int i = 0; i < offsets.size(); i++)
+        {
+            offset_x[i] = offsets.get(i)[0];
+            offset_z[i] = offsets.get(i)[1];
+        }
+
+        int size = tile_texels * tiles;
+        texture = glCreateTextures(GL_TEXTURE_2D);
+        glTextureStorage2D(texture, 1, GL_R16F, size, size);
+        glTextureParameteri(texture, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+        glTextureParameteri(texture, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+        glTextureParameteri(texture, GL_TEXTURE_WRAP_S, GL_REPEAT);
+        glTextureParameteri(texture, GL_TEXTURE_WRAP_T, GL_REPEAT);
+        glClearTexImage(texture, 0, GL_RED, GL_FLOAT, new float[]{ 0.0f });
+    }
+
+    /// World units covered by the window along each axis, which is also the period at which the texture repeats.
+    public float window_size()
+    {
+        return tile_world_size() * tiles;
+    }
+
+    private float tile_world_size()
+    {
+        return tile_texels * texel_size;
+    }
+
+    private static long key(int tile_x, int tile_z)
+    {
+        return ((long) tile_x << 32) | (tile_z & 0xFFFFFFFFL);
+    }
+
+    private int slot(int tile_x, int tile_z)
+    {
+        return Math.floorMod(tile_z, tiles) * tiles + Math.floorMod(tile_x, tiles);
+    }
+
+    /// Moves the window to be centered on the given world position, requests any tiles that scrolled into it, and
+    /// uploads tiles that have finished since the last call.
+    public void update(double world_x, double world_z)
+    {
+        int tx = (int) Math.floor(world_x / tile_world_size());
+        int tz = (int) Math.floor(world_z / tile_world_size());
+        if (tx != center_x || tz != center_z)
+        {
+            center_x = tx;
+            center_z = tz;
+            request_window();
+        }
+        upload_completed();
+    }
+
+    private boolean in_window(int tile_x, int tile_z)
+    {
+        int low = -(tiles / 2);
+        int dx = tile_x - center_x;
+        int dz = tile_z - center_z;
+        return dx >= low && dx < low + tiles && dz >= low && dz < low + tiles;
+    }
+
+    private void request_window()
+    {
+        for (int i = 0; i < offset_x.length; i++)
+        {
+            int tile_x = center_x + offset_x[i];
+            int tile_z = center_z + offset_z[i];
+            long key = key(tile_x, tile_z);
+            if (slot_keys[slot(tile_x, tile_z)] == key || !requested.add(key)) continue;
+            executor.execute(() -> completed.add(new Tile(key, produce(tile_x, tile_z))));
+        }
+    }
+
+    private void upload_completed()
+    {
+        Tile tile;
+        int uploads = 0;
+        while (uploads < max_uploads && (tile = completed.poll()) != null)
+        {
+            requested.remove(tile.key());
+            int tile_x = (int) (tile.key() >> 32);
+            int tile_z = (int) tile.key();
+
+            // a tile that scrolled back out while it was being produced is dropped, its slot now belongs to another
+            if (tile.texels() == null || !in_window(tile_x, tile_z)) continue;
+
+            glTextureSubImage2D(texture, 0,
+                Math.floorMod(tile_x, tiles) * tile_texels,
+                Math.floorMod(tile_z, tiles) * tile_texels,
+                tile_texels, tile_texels,
+                GL_RED, GL_HALF_FLOAT, tile.texels());
+            slot_keys[slot(tile_x, tile_z)] = tile.key();
+            uploads++;
+        }
+    }
+
+    public void bind(int unit)
+    {
+        glBindTextureUnit(unit, texture);
+    }
+
+    public void release()
+    {
+        glDeleteTextures(texture);
+    }
+
+    /// Reads the tile from the disk cache, or generates and caches it. Returns null only if generation fails. Runs on
+    /// the executor.
+    private short[] produce(int tile_x, int tile_z)
+    {
+        var path = cache_dir.resolve(tile_x + "_" + tile_z + ".tile");
+        try
+        {
+            var cached = read(path);
+            if (cached != null) return cached;
+
+            var texels = generate(tile_x, tile_z);
+            write(path, texels);
+            return texels;
+        }
+        catch (RuntimeException e)
+        {
+            LOGGER.log(Level.WARNING, "Could not produce " + name + " noise tile " + tile_x + ", " + tile_z, e);
+            return null;
+        }
+    }
+
+    /// Samples the noise at the center of each texel, so linear filtering between neighboring tiles is seamless.
+    private short[] generate(int tile_x, int tile_z)
+    {
+        var texels = new short[tile_texels * tile_texels];
+        double x0 = (double) tile_x * tile_world_size();
+        double z0 = (double) tile_z * tile_world_size();
+        for (int z = 0; z < tile_texels; z++)
+        {
+            float world_z = (float) (z0 + (z + 0.5) * texel_size);
+            for (int x = 0; x < tile_texels; x++)
+            {
+                float world_x = (float) (x0 + (x + 0.5) * texel_size);
+                texels[z * tile_texels + x] = Float.floatToFloat16(noise.noise_2d(world_x, world_z));
+            }
+        }
+        return texels;
+    }
+
+    private short[] read(Path path)
+    {
+        if (!Files.isRegularFile(path)) return null;
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            int texel_count = tile_texels * tile_texels;
+            int expected = HEADER_SIZE + texel_count * Short.BYTES;
+            if (channel.size() != expected)
+            {
+                LOGGER.fine("Discarding truncated noise tile: " + path);
+                return null;
+            }
+
+            var buffer = ByteBuffer.allocate(expected).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining())
+            {
+                if (channel.read(buffer) < 0) return null;
+            }
+            if (buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != tile_texels)
+            {
+                LOGGER.fine("Discarding stale noise tile: " + path);
+                return null;
+            }
+
+            var texels = new short[texel_count];
+            buffer.position(HEADER_SIZE).asShortBuffer().get(texels);
+            return texels;
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.FINE, "Could not read noise tile: " + path, e);
+            return null;
+        }
+    }
+
+    /// Stores the tile for the next run. Failures are logged, they only mean the tile is generated again.
+    private void write(Path path, short[] texels)
+    {
+        var buffer = ByteBuffer.allocate(HEADER_SIZE + texels.length * Short.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(tile_texels);
+        buffer.asShortBuffer().put(texels);
+
+        var temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try
+        {
+            Files.createDirectories(cache_dir);
+            try (var channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+            {
+                buffer.rewind();
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.WARNING, "Could not store noise tile: " + path, e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.controllerface.trongle.noise;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/// An immutable [FastNoiseLite] configuration, mirroring the fields a shader sets on an `fnl_state`, so the same noise
+/// can be described once and then sampled, baked or cached by value. [#defaults(int)] matches `fnlCreateState`.
+public record NoiseSettings(int seed,
+                           FastNoiseLite.NoiseType noise_type,
+                           FastNoiseLite.FractalType fractal_type,
+                           float frequency,
+                           int octaves,
+                           float lacunarity,
+                           float gain,
+                           float weighted_strength)
+{
+    /// The settings of a freshly created `fnl_state` with the given seed.
+    public static NoiseSettings defaults(int seed)
+    {
+        return new NoiseSettings(seed,
+            FastNoiseLite.NoiseType.OPENSIMPLEX2,
+            FastNoiseLite.FractalType.NONE,
+            0.01f, 3, 2.0f, 0.5f, 0.0f);
+    }
+
+    public NoiseSettings with_type(FastNoiseLite.NoiseType noise_type, FastNoiseLite.FractalType fractal_type)
+    {
+        return new NoiseSettings(seed, noise_type, fractal_type,
+            frequency, octaves, lacunarity, gain, weighted_strength);
+    }
+
+    public NoiseSettings with_frequency(float frequency)
+    {
+        return new NoiseSettings(seed, noise_type, fractal_type,
+            frequency, octaves, lacunarity, gain, weighted_strength);
+    }
+
+    public NoiseSettings with_octaves(int octaves)
+    {
+        return new NoiseSettings(seed, noise_type, fractal_type,
+            frequency, octaves, lacunarity, gain, weighted_strength);
+    }
+
+    /// Creates a generator with these settings. The generator is not changed afterward, so it may be sampled from any
+    /// number of threads.
+    public FastNoiseLite create()
+    {
+        var noise = new FastNoiseLite(seed);
+        noise.noise_type = noise_type;
+        noise.fractal_type = fractal_type;
+        noise.frequency = frequency;
+        noise.octaves = octaves;
+        noise.lacunarity = lacunarity;
+        noise.gain = gain;
+        noise.weighted_strength = weighted_strength;
+        return noise;
+    }
+
+    /// Hash of every setting, used to key baked noise on disk. Floats are hashed by their bits, so the key is stable
+    /// across runs and platforms.
+    public String key()
+    {
+        var text = seed + ":" + noise_type + ":" + fractal_type
+            + ":" + Float.floatToIntBits(frequency)
+            + ":" + octaves
+            + ":" + Float.floatToIntBits(lacunarity)
+            + ":" + Float.floatToIntBits(gain)
+            + ":" + Float.floatToIntBits(weighted_strength);
+        try
+        {
+            var digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
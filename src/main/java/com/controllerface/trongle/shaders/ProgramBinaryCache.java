@@ -0,0 +1,124 @@
+package com.controllerface.trongle.shaders;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.lwjgl.opengl.GL41C.*;
+
+/// On-disk cache of linked program binaries, one file per program, named by the key of its [ShaderSource]. Each file
+/// holds the driver's binary format followed by the binary itself. Since keys include the driver identity, a driver
+/// update simply misses the cache, and any binary the driver still rejects is deleted and rebuilt from source.
+///
+/// The cache directory is `-Dtrongle.shader_cache`, `cache/shaders` under the game's home by default, and caching is
+/// skipped entirely when the driver supports no binary formats.
+class ProgramBinaryCache
+{
+    private static final Logger LOGGER = Logger.getLogger(ProgramBinaryCache.class.getName());
+
+    private static final String EXTENSION = ".bin";
+
+    private final Path directory;
+    private final boolean enabled;
+
+    ProgramBinaryCache(Path directory)
+    {
+        this.directory = directory;
+        this.enabled = glGetInteger(GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+        if (!enabled) LOGGER.info("Driver supports no program binary formats, shader cache disabled");
+    }
+
+    boolean enabled()
+    {
+        return enabled;
+    }
+
+    private Path path(String key)
+    {
+        return directory.resolve(key + EXTENSION);
+    }
+
+    /// Creates a program from the cached binary for the given key. Returns 0 if there is no cached binary, or the
+    /// driver rejects it, in which case the cached file is removed.
+    int load(String key)
+    {
+        if (!enabled) return 0;
+
+        var path = path(key);
+        if (!Files.isRegularFile(path)) return 0;
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            var mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            int format = mapped.getInt(0);
+            var binary = mapped.slice(Integer.BYTES, mapped.capacity() - Integer.BYTES);
+
+            int program = glCreateProgram();
+            glProgramBinary(program, format, binary);
+            if (glGetProgrami(program, GL_LINK_STATUS) == GL_TRUE) return program;
+
+            glDeleteProgram(program);
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.FINE, "Could not read cached program binary: " + path, e);
+        }
+
+        LOGGER.fine("Discarding rejected program binary: " + path);
+        invalidate(key);
+        return 0;
+    }
+
+    /// Stores the binary of the given linked program. Failures are logged, they only mean the next launch compiles
+    /// from source again.
+    void store(String key, int program)
+    {
+        if (!enabled) return;
+
+        int length = glGetProgrami(program, GL_PROGRAM_BINARY_LENGTH);
+        if (length <= 0) return;
+
+        var buffer = ByteBuffer.allocateDirect(Integer.BYTES + length).order(ByteOrder.LITTLE_ENDIAN);
+        var format = new int[1];
+        var written = new int[1];
+        glGetProgramBinary(program, written, format, buffer.slice(Integer.BYTES, length));
+        buffer.putInt(0, format[0]);
+        buffer.limit(Integer.BYTES + written[0]);
+
+        var path = path(key);
+        var temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try
+        {
+            Files.createDirectories(directory);
+            try (var channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+            {
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.WARNING, "Could not store program binary: " + path, e);
+        }
+    }
+
+    private void invalidate(String key)
+    {
+        try
+        {
+            Files.deleteIfExists(path(key));
+        }
+        catch (IOException e)
+        {
+            LOGGER.log(Level.FINE, "Could not remove program binary: " + key, e);
+        }
+    }
+}
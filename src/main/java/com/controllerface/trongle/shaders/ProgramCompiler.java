@@ -0,0 +1,161 @@
+package com.controllerface.trongle.shaders;
+
+import com.controllerface.trongle.assets.Resources;
+import org.lwjgl.opengl.ARBParallelShaderCompile;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.KHRParallelShaderCompile;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static org.lwjgl.opengl.GL43C.*;
+
+/// Builds shader programs from their preprocessed sources, going through the [ProgramBinaryCache] first. Programs
+/// are compiled in batches: every stage of every program missing from the cache is submitted for compilation, and all
+/// programs are linked, before any status is queried, so drivers that compile in the background can work on the whole
+/// batch at once. Where the driver supports `KHR_parallel_shader_compile` (or the ARB version), it is also allowed to
+/// use as many compiler threads as it likes.
+///
+/// Must be used from the GL thread. Preprocessing, with [ShaderSource#load(String)], can happen on any thread ahead of
+/// time.
+public class ProgramCompiler
+{
+    private static final Logger LOGGER = Logger.getLogger(ProgramCompiler.class.getName());
+
+    public static final Path CACHE_DIR = Resources.home_path("trongle.shader_cache", "cache/shaders");
+
+    private static final int UNLIMITED_THREADS = 0xFFFFFFFF;
+
+    private final ProgramBinaryCache cache;
+    private final String driver;
+
+    private record Pending(ShaderSource source, String key, int program, List<Integer> shaders) { }
+
+    public ProgramCompiler()
+    {
+        this(CACHE_DIR);
+    }
+
+    public ProgramCompiler(Path cache_dir)
+    {
+        cache = new ProgramBinaryCache(cache_dir);
+        driver = glGetString(GL_VENDOR) + "|" + glGetString(GL_RENDERER) + "|" + glGetString(GL_VERSION);
+
+        var capabilities = GL.getCapabilities();
+        if (capabilities.GL_KHR_parallel_shader_compile)
+        {
+            KHRParallelShaderCompile.glMaxShaderCompilerThreadsKHR(UNLIMITED_THREADS);
+        }
+        else if (capabilities.GL_ARB_parallel_shader_compile)
+        {
+            ARBParallelShaderCompile.glMaxShaderCompilerThreadsARB(UNLIMITED_THREADS);
+        }
+    }
+
+    public ShaderProgram compile(ShaderSource source)
+    {
+        return compile_all(List.of(source)).get(source.name());
+    }
+
+    /// Builds every given program, keyed by program name in the order given. Throws if any program fails to compile
+    /// or link, with the driver's log for the failing stage or program, after deleting every program and shader the
+    /// batch created or loaded from the cache.
+    public Map<String, ShaderProgram> compile_all(List<ShaderSource> sources)
+    {
+        long start = System.nanoTime();
+        var programs = new LinkedHashMap<String, ShaderProgram>();
+        var pending = new ArrayList<Pending>();
+
+        for (var source : sources)
+        {
+            var key = source.key(driver);
+            int cached = cache.load(key);
+            if (cached != 0)
+            {
+                programs.put(source.name(), new ShaderProgram(source.name(), cached));
+                continue;
+            }
+
+            // submit every stage without checking results, so the driver is free to compile them in the background
+            int program = glCreateProgram();
+            var shaders = new ArrayList<Integer>();
+            for (var stage : source.stages().entrySet())
+            {
+                int shader = glCreateShader(stage.getKey().gl_type);
+                glShaderSource(shader, stage.getValue());
+                glCompileShader(shader);
+                glAttachShader(program, shader);
+                shaders.add(shader);
+            }
+            pending.add(new Pending(source, key, program, shaders));
+        }
+
+        for (var next : pending)
+        {
+            if (cache.enabled()) glProgramParameteri(next.program, GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL_TRUE);
+            glLinkProgram(next.program);
+        }
+
+        // querying link status waits for the driver, by now it has the whole batch in flight
+        for (int i = 0; i < pending.size(); i++)
+        {
+            var next = pending.get(i);
+            boolean linked = glGetProgrami(next.program, GL_LINK_STATUS) == GL_TRUE;
+            if (!linked)
+            {
+                var log = failure_log(next);
+                delete_batch(programs, pending.subList(i, pending.size()));
+                throw new IllegalStateException(log);
+            }
+
+            for (int shader : next.shaders)
+            {
+                glDetachShader(next.program, shader);
+                glDeleteShader(shader);
+            }
+            cache.store(next.key, next.program);
+            programs.put(next.source.name(), new ShaderProgram(next.source.name(), next.program));
+        }
+
+        LOGGER.fine(String.format("Built %d programs (%d from source) in %.2f ms",
+            sources.size(), pending.size(), (System.nanoTime() - start) / 1_000_000.0));
+
+        return programs;
+    }
+
+    /// Deletes everything a failed batch created: the programs already built, which the caller never receives, and the
+    /// programs and shaders of the ones not yet checked.
+    private static void delete_batch(Map<String, ShaderProgram> built, List<Pending> unchecked)
+    {
+        for (var program : built.values())
+        {
+            program.release();
+        }
+        for (var next : unchecked)
+        {
+            glDeleteProgram(next.program);
+            for (int shader : next.shaders)
+            {
+                glDeleteShader(shader);
+            }
+        }
+    }
+
+    private static String failure_log(Pending pending)
+    {
+        var log = new StringBuilder("Could not build shader program: ").append(pending.source.name());
+        for (int shader : pending.shaders)
+        {
+            if (glGetShaderi(shader, GL_COMPILE_STATUS) != GL_TRUE)
+            {
+                log.append('\n').append(glGetShaderInfoLog(shader));
+            }
+        }
+        log.append('\n').append(glGetProgramInfoLog(pending.program));
+        return log.toString();
+    }
+}
@@ -0,0 +1,60 @@
+package com.controllerface.trongle.shaders;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL20C.*;
+
+/// A linked GL program created by the [ProgramCompiler]. Uniform locations are looked up once and cached by name.
+public class ShaderProgram
+{
+    private final String name;
+    private final int id;
+    private final Map<String, Integer> uniforms = new HashMap<>();
+
+    ShaderProgram(String name, int id)
+    {
+        this.name = name;
+        this.id = id;
+    }
+
+    public String name()
+    {
+        return name;
+    }
+
+    public int id()
+    {
+        return id;
+    }
+
+    public void use()
+    {
+        glUseProgram(id);
+    }
+
+    public void detach()
+    {
+        glUseProgram(0);
+    }
+
+    private int uniform(String uniform_name)
+    {
+        return uniforms.computeIfAbsent(uniform_name, u -> glGetUniformLocation(id, u));
+    }
+
+    public void upload_int(String uniform_name, int value)
+    {
+        glUniform1i(uniform(uniform_name), value);
+    }
+
+    public void upload_float(String uniform_name, float value)
+    {
+        glUniform1f(uniform(uniform_name), value);
+    }
+
+    public void release()
+    {
+        glDeleteProgram(id);
+    }
+}
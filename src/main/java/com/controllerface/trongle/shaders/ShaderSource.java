@@ -0,0 +1,92 @@
+package com.controllerface.trongle.shaders;
+
+import com.controllerface.trongle.assets.Resources;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/// The fully preprocessed sources of every stage of one shader program. Programs live in `/shaders/<name>/`, with one
+/// file per stage, and the `#include`, `#struct` and `#layout` directives are expanded in place with files from the
+/// `_lib`, `_struct` and `_layout` directories. Each file is only expanded once per stage, so shared dependencies may
+/// be pulled in from more than one place.
+public record ShaderSource(String name, Map<ShaderStage, String> stages)
+{
+    private static final String ROOT = "/shaders/";
+
+    private static final Map<String, String> DIRECTIVES = Map.of(
+        "#include", "_lib/",
+        "#struct", "_struct/",
+        "#layout", "_layout/");
+
+    /// Reads and preprocesses every stage present for the given program. Safe to call from any thread.
+    public static ShaderSource load(String name)
+    {
+        var stages = new EnumMap<ShaderStage, String>(ShaderStage.class);
+        for (var stage : ShaderStage.values())
+        {
+            var source = read(ROOT + name + "/" + stage.file_name);
+            if (source == null) continue;
+            var out = new StringBuilder(source.length());
+            expand(source, out, new HashSet<>());
+            stages.put(stage, out.toString());
+        }
+        if (stages.isEmpty()) throw new IllegalArgumentException("No shader stages found for program: " + name);
+        return new ShaderSource(name, Collections.unmodifiableMap(stages));
+    }
+
+    private static String read(String path)
+    {
+        var bytes = Resources.read_bytes(path);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void expand(String source, StringBuilder out, Set<String> included)
+    {
+        for (var line : source.split("\n", -1))
+        {
+            var trimmed = line.strip();
+            var directory = trimmed.startsWith("#") ? DIRECTIVES.get(trimmed.split("\\s+", 2)[0]) : null;
+            if (directory == null)
+            {
+                out.append(line).append('\n');
+                continue;
+            }
+
+            int open = trimmed.indexOf('"');
+            int close = trimmed.lastIndexOf('"');
+            if (open < 0 || close <= open) throw new IllegalArgumentException("Malformed directive: " + trimmed);
+
+            var path = ROOT + directory + trimmed.substring(open + 1, close);
+            if (!included.add(path)) continue;
+
+            var dependency = read(path);
+            if (dependency == null) throw new IllegalArgumentException("Missing shader dependency: " + path);
+            expand(dependency, out, included);
+        }
+    }
+
+    /// Hash of every stage's preprocessed source, combined with the given driver identity, used to key cached
+    /// program binaries. A change to any included file, or to the driver, changes the key.
+    public String key(String driver)
+    {
+        try
+        {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(driver.getBytes(StandardCharsets.UTF_8));
+            for (var entry : stages.entrySet())
+            {
+                digest.update((byte) 0);
+                digest.update(entry.getKey().name().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(entry.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.controllerface.trongle.shaders;
+
+import static org.lwjgl.opengl.GL43C.*;
+
+/// Shader stages, and the file name each one is read from within a program's shader directory.
+public enum ShaderStage
+{
+    VERTEX("vertex.glsl", GL_VERTEX_SHADER),
+    TESS_CONTROL("tes_ctrl.glsl", GL_TESS_CONTROL_SHADER),
+    TESS_EVALUATION("tes_eval.glsl", GL_TESS_EVALUATION_SHADER),
+    GEOMETRY("geometry.glsl", GL_GEOMETRY_SHADER),
+    FRAGMENT("fragment.glsl", GL_FRAGMENT_SHADER),
+    COMPUTE("compute.glsl", GL_COMPUTE_SHADER),
+
+    ;
+
+    public final String file_name;
+    public final int gl_type;
+
+    ShaderStage(String file_name, int gl_type)
+    {
+        this.file_name = file_name;
+        this.gl_type = gl_type;
+    }
+}
@@ -0,0 +1,152 @@
+package com.controllerface.trongle.systems;
+
+import com.controllerface.trongle.behavior.BehaviorExecutor;
+import com.controllerface.trongle.behavior.BehaviorScheduler;
+import com.controllerface.trongle.behavior.BehaviorSlots;
+import com.controllerface.trongle.behavior.BoundBehavior;
+import com.controllerface.trongle.behavior.TrongleEntityBehavior;
+import com.juncture.alloy.ecs.BaseComponent;
+import com.juncture.alloy.ecs.ECSLayer;
+import com.juncture.alloy.ecs.ECSSystem;
+import com.juncture.alloy.ecs.ECSWorld;
+import com.juncture.alloy.physics.PhysicsComponent;
+import org.joml.Vector3dc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/// Runs the behaviors of this world's entities, each bound once to its entity and reused every tick after that. The
+/// bindings belong to this system, so every world binds its own entities against its own component objects, and they
+/// are dropped with the system.
+///
+/// Behaviors are given to entities through [#assign], which sets the entity's `Behavior` component and binds it, and
+/// taken away through [#release]. These are the only places an entity's behavior changes, so a binding never outlives
+/// the components it was bound to. Each entity is routed by its behavior:
+///
+/// - behaviors marked [TrongleEntityBehavior#parallel] are run across the given pool by a [BehaviorExecutor], each at
+///   its [TrongleEntityBehavior#update_interval], within a fixed budget per tick, favoring entities near the focus
+///   entity
+/// - other behaviors with an update interval above one are time-sliced by a [BehaviorScheduler] within its own budget
+///   per tick, favoring the same entities
+/// - the rest run every tick, in order, on the calling thread
+///
+/// Must tick after physics, in place of the engine's entity behavior system.
+public class BehaviorSystem extends ECSSystem
+{
+    private static final int    MIN_PARTITION_SIZE = 256;
+    private static final long   PARALLEL_BUDGET_US = 4000;
+    private static final long   SCHEDULE_BUDGET_US = 2000;
+    private static final double PRIORITY_RADIUS    = 2048.0;
+    private static final double NEAR_BOOST         = 4.0;
+
+    private final ECSLayer<BaseComponent> base_layer;
+    private final ECSLayer<PhysicsComponent> phys_layer;
+
+    private final BehaviorSlots serial_slots = new BehaviorSlots();
+    private final List<BoundBehavior> serial = new ArrayList<>();
+
+    private final BehaviorSlots parallel_slots = new BehaviorSlots();
+    private final BehaviorExecutor parallel;
+
+    private final BehaviorSlots scheduled_slots = new BehaviorSlots();
+    private final BehaviorScheduler scheduled;
+
+    private Vector3dc focus;
+
+    public BehaviorSystem(ECSWorld world, ForkJoinPool pool)
+    {
+        super(world);
+        base_layer = world.get(BaseComponent.class);
+        phys_layer = world.get(PhysicsComponent.class);
+        parallel = new BehaviorExecutor(pool, MIN_PARTITION_SIZE, PARALLEL_BUDGET_US, PRIORITY_RADIUS, NEAR_BOOST);
+        scheduled = new BehaviorScheduler(SCHEDULE_BUDGET_US, PRIORITY_RADIUS, NEAR_BOOST);
+    }
+
+    /// Sets the entity that scheduling priority is measured from, typically the player or the camera follow target.
+    public void set_focus(String entity_id)
+    {
+        focus = PhysicsComponent.Position.for_entity(phys_layer, entity_id);
+    }
+
+    /// Gives the entity a behavior, replacing any it had. The entity's components are resolved here, so the entity
+    /// must already have every component the behavior uses.
+    public void assign(String entity_id, TrongleEntityBehavior behavior)
+    {
+        release(entity_id);
+        base_layer.set_component(entity_id, BaseComponent.Behavior, behavior);
+
+        var bound = behavior.bind(world, entity_id);
+
+        // entities without a position are scheduled at their base priority
+        Vector3dc position = PhysicsComponent.Position.for_entity(phys_layer, entity_id);
+        if (behavior.parallel)
+        {
+            parallel_slots.add(entity_id, behavior);
+            parallel.add(bound, behavior.update_interval, position);
+        }
+        else if (behavior.update_interval > 1)
+        {
+            scheduled_slots.add(entity_id, behavior);
+            scheduled.add(bound, behavior.update_interval, position);
+        }
+        else
+        {
+            serial_slots.add(entity_id, behavior);
+            serial.add(bound);
+        }
+    }
+
+    /// Stops running the entity's behavior and drops its binding. Must be called before an entity is destroyed or has
+    /// any of the components its behavior uses replaced.
+    public void release(String entity_id)
+    {
+        int slot = parallel_slots.remove(entity_id);
+        if (slot != -1)
+        {
+            parallel.remove(slot);
+            return;
+        }
+
+        slot = scheduled_slots.remove(entity_id);
+        if (slot != -1)
+        {
+            scheduled.remove(slot);
+            return;
+        }
+
+        slot = serial_slots.remove(entity_id);
+        if (slot != -1)
+        {
+            var moved = serial.removeLast();
+            if (slot < serial.size()) serial.set(slot, moved);
+        }
+    }
+
+    @Override
+    public void tick(double dt)
+    {
+        for (int i = 0; i < serial.size(); i++)
+        {
+            serial.get(i).behave(dt);
+        }
+        scheduled.tick(dt, focus);
+        parallel.execute(dt, world, focus);
+    }
+
+    public BehaviorScheduler scheduler()
+    {
+        return scheduled;
+    }
+
+    @Override
+    public void shutdown()
+    {
+        serial_slots.clear();
+        serial.clear();
+        parallel_slots.clear();
+        parallel.clear();
+        scheduled_slots.clear();
+        scheduled.clear();
+    }
+}
@@ -0,0 +1,333 @@
+package com.controllerface.trongle.systems;
+
+import com.controllerface.trongle.metrics.CloudQualityMXBean;
+import com.controllerface.trongle.shaders.ProgramCompiler;
+import com.controllerface.trongle.shaders.ShaderProgram;
+import com.controllerface.trongle.shaders.ShaderSource;
+import com.juncture.alloy.camera.WorldCamera;
+import com.juncture.alloy.ecs.ECSLayer;
+import com.juncture.alloy.ecs.ECSSystem;
+import com.juncture.alloy.ecs.ECSWorld;
+import com.juncture.alloy.gpu.Window;
+import com.juncture.alloy.rendering.RenderComponent;
+import org.joml.Matrix4d;
+import org.joml.Matrix4f;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.lwjgl.opengl.GL45C.*;
+
+/// Draws the cloud layer, a horizontal plane at a fixed height, into a target smaller than the window by a
+/// configurable scale, then composites it over the frame. With checkerboarding on, each frame shades only every other
+/// texel of the target, alternating between frames, and fills in the rest by reprojecting the previous frame's target
+/// through the previous view projection, following the cloud drift. Texels with nothing to reproject from, such as
+/// those newly in view, are shaded. The composite upsamples the target, weighting texels by how close their distance
+/// along the view ray is to each pixel's, and writes the plane's depth so geometry in front of it hides it.
+///
+/// Scale and checkerboarding start from the values given to the constructor, and can be changed while the game runs
+/// through the JMX MBean `com.controllerface.trongle:type=CloudQuality`. A scale of 1 without checkerboarding shades
+/// every pixel, every frame.
+///
+/// The plane is found per pixel from the view, rather than drawn as geometry, and the per-frame inputs to both passes
+/// go in the `CloudFrame` uniform block at [#BINDING], which the shaders declare as a fixed binding.
+///
+/// Must be registered after the rendering system, so the frame's depth buffer is complete, and after the noise baking
+/// system, so the cloud noise and drift are current.
+public class CloudSystem extends ECSSystem implements CloudQualityMXBean
+{
+    private static final Logger LOGGER = Logger.getLogger(CloudSystem.class.getName());
+
+    /// Uniform block binding used by `_layout/CloudFrame.glsl`.
+    public static final int BINDING = 9;
+
+    private static final String MBEAN_NAME = "com.controllerface.trongle:type=CloudQuality";
+    private static final float MIN_SCALE = 0.125f;
+    private static final float MAX_SCALE = 1.0f;
+
+    // std140 size of the CloudFrame block, two matrices followed by three vec2s and four floats, rounded up to a vec4
+    private static final int UNIFORM_FLOATS = 44;
+
+    private final ECSLayer<RenderComponent> rend_layer;
+    private final NoiseBakingSystem noise;
+    private final float plane_height;
+    private final float half_extent;
+    private final ShaderProgram low_res_program;
+    private final ShaderProgram composite_program;
+    private final int vertex_array;
+    private final int framebuffer;
+    private final int uniform_buffer;
+    private final float[] uniforms = new float[UNIFORM_FLOATS];
+    private final ObjectName mbean_name;
+
+    private final Matrix4d projection_buffer = new Matrix4d();
+    private final Matrix4d view_buffer = new Matrix4d();
+    private final Matrix4f view_projection = new Matrix4f();
+    private final Matrix4f inverse_view_projection = new Matrix4f();
+    private final Matrix4f previous_view_projection = new Matrix4f();
+
+    /// Written from the JMX thread, read once per frame.
+    private volatile float scale;
+    private volatile boolean checkerboard;
+
+    /// Ping-pong cloud color targets, the current frame renders into `colors[current]` and reads the other.
+    private final int[] colors = new int[2];
+    private int distances = 0;
+    private int current = 0;
+    private volatile int target_width = 0;
+    private volatile int target_height = 0;
+
+    private boolean history_valid = false;
+    private int parity = 0;
+    private float previous_drift = 0.0f;
+    private double cloud_time = 0.0;
+
+    /// Compiles the cloud shaders and creates the uniform buffer and framebuffer. The targets are sized on the first
+    /// tick. Must be called on the GL thread.
+    public CloudSystem(ECSWorld world,
+                       NoiseBakingSystem noise,
+                       float height,
+                       float extent,
+                       float scale,
+                       boolean checkerboard)
+    {
+        super(world);
+        this.rend_layer = world.get(RenderComponent.class);
+        this.noise = noise;
+        this.plane_height = height;
+        this.half_extent = extent / 2.0f;
+        this.scale = clamp_scale(scale);
+        this.checkerboard = checkerboard;
+
+        var compiler = new ProgramCompiler();
+        low_res_program = compiler.compile(ShaderSource.load("clouds_lowres"));
+        composite_program = compiler.compile(ShaderSource.load("clouds_composite"));
+
+        // both passes draw a single triangle generated from the vertex index
+        vertex_array = glCreateVertexArrays();
+        framebuffer = glCreateFramebuffers();
+        glNamedFramebufferDrawBuffers(framebuffer, new int[]{ GL_COLOR_ATTACHMENT0, GL_COLOR_ATTACHMENT1 });
+
+        uniform_buffer = glCreateBuffers();
+        glNamedBufferStorage(uniform_buffer, (long) UNIFORM_FLOATS * Float.BYTES, GL_DYNAMIC_STORAGE_BIT);
+
+        mbean_name = register_mbean();
+    }
+
+    private static float clamp_scale(float scale)
+    {
+        return Float.isNaN(scale) ? MAX_SCALE : Math.clamp(scale, MIN_SCALE, MAX_SCALE);
+    }
+
+    private ObjectName register_mbean()
+    {
+        try
+        {
+            var name = new ObjectName(MBEAN_NAME);
+            var server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(this, name);
+            return name;
+        }
+        catch (JMException e)
+        {
+            LOGGER.log(Level.WARNING, "Could not register cloud quality MBean", e);
+            return null;
+        }
+    }
+
+    private void resize(int width, int height)
+    {
+        release_targets();
+        for (int i = 0; i < colors.length; i++)
+        {
+            colors[i] = glCreateTextures(GL_TEXTURE_2D);
+            glTextureStorage2D(colors[i], 1, GL_RGBA16F, width, height);
+            glTextureParameteri(colors[i], GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+            glTextureParameteri(colors[i], GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+            glTextureParameteri(colors[i], GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+            glTextureParameteri(colors[i], GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+        }
+
+        distances = glCreateTextures(GL_TEXTURE_2D);
+        glTextureStorage2D(distances, 1, GL_R32F, width, height);
+        glTextureParameteri(distances, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        glTextureParameteri(distances, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        glNamedFramebufferTexture(framebuffer, GL_COLOR_ATTACHMENT1, distances, 0);
+
+        target_width = width;
+        target_height = height;
+        history_valid = false;
+    }
+
+    private void release_targets()
+    {
+        if (distances == 0) return;
+        glDeleteTextures(new int[]{ colors[0], colors[1], distances });
+        colors[0] = 0;
+        colors[1] = 0;
+        distances = 0;
+    }
+
+    @Override
+    public void tick(double dt)
+    {
+        cloud_time += dt;
+
+        // the window and camera are looked up each frame, as they may be replaced while the game is running
+        Window window = RenderComponent.MainWindow.global(rend_layer);
+        WorldCamera camera = RenderComponent.MainCamera.global(rend_layer);
+        if (window == null || camera == null) return;
+
+        int screen_width = window.width();
+        int screen_height = window.height();
+        if (screen_width <= 0 || screen_height <= 0) return;
+
+        float frame_scale = scale;
+        boolean frame_checkerboard = checkerboard;
+        int low_width = Math.max(1, Math.round(screen_width * frame_scale));
+        int low_height = Math.max(1, Math.round(screen_height * frame_scale));
+        if (low_width != target_width || low_height != target_height) resize(low_width, low_height);
+
+        projection_buffer.set(camera.projection_matrix());
+        view_buffer.set(camera.view_matrix());
+        view_projection.set(projection_buffer.mul(view_buffer, view_buffer));
+        view_projection.invert(inverse_view_projection);
+
+        // the noise jumps when the drift wraps around, so nothing in the history lines up with it any more
+        float drift = noise.cloud_drift();
+        if (drift < previous_drift) history_valid = false;
+
+        if (!history_valid) previous_view_projection.set(view_projection);
+        if (!history_valid) previous_drift = drift;
+
+        inverse_view_projection.get(uniforms, 0);
+        previous_view_projection.get(uniforms, 16);
+        uniforms[32] = low_width;
+        uniforms[33] = low_height;
+        uniforms[34] = screen_width;
+        uniforms[35] = screen_height;
+        uniforms[36] = drift - previous_drift;
+        uniforms[37] = 0.0f;
+        uniforms[38] = plane_height;
+        uniforms[39] = half_extent;
+        uniforms[40] = frame_checkerboard && history_valid ? parity : -1.0f;
+        uniforms[41] = (float) cloud_time;
+        glNamedBufferSubData(uniform_buffer, 0, uniforms);
+        glBindBufferBase(GL_UNIFORM_BUFFER, BINDING, uniform_buffer);
+
+        glBindVertexArray(vertex_array);
+        render_low_res();
+        composite(screen_width, screen_height);
+        glBindVertexArray(0);
+        reset_state();
+
+        previous_view_projection.set(view_projection);
+        previous_drift = drift;
+        current ^= 1;
+        parity ^= 1;
+        history_valid = true;
+    }
+
+    private void render_low_res()
+    {
+        glNamedFramebufferTexture(framebuffer, GL_COLOR_ATTACHMENT0, colors[current], 0);
+        glBindFramebuffer(GL_FRAMEBUFFER, framebuffer);
+        glViewport(0, 0, target_width, target_height);
+        glDisable(GL_BLEND);
+        glDisable(GL_DEPTH_TEST);
+
+        low_res_program.use();
+        glBindTextureUnit(0, colors[current ^ 1]);
+        glDrawArrays(GL_TRIANGLES, 0, 3);
+        low_res_program.detach();
+    }
+
+    private void composite(int screen_width, int screen_height)
+    {
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        glViewport(0, 0, screen_width, screen_height);
+        glEnable(GL_BLEND);
+        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+        glEnable(GL_DEPTH_TEST);
+        glDepthFunc(GL_LESS);
+        glDepthMask(false);
+
+        composite_program.use();
+        glBindTextureUnit(0, colors[current]);
+        glBindTextureUnit(1, distances);
+        glDrawArrays(GL_TRIANGLES, 0, 3);
+        composite_program.detach();
+    }
+
+    /// Leaves the blend and depth state as the main passes draw with, blending off and depth tested and written with
+    /// `GL_LESS`, which is set outright rather than read back and restored, as reading GL state stalls the pipeline.
+    private void reset_state()
+    {
+        glDisable(GL_BLEND);
+        glEnable(GL_DEPTH_TEST);
+        glDepthFunc(GL_LESS);
+        glDepthMask(true);
+    }
+
+    @Override
+    public float getScale()
+    {
+        return scale;
+    }
+
+    @Override
+    public void setScale(float scale)
+    {
+        this.scale = clamp_scale(scale);
+    }
+
+    @Override
+    public boolean isCheckerboard()
+    {
+        return checkerboard;
+    }
+
+    @Override
+    public void setCheckerboard(boolean checkerboard)
+    {
+        this.checkerboard = checkerboard;
+    }
+
+    @Override
+    public int getTargetWidth()
+    {
+        return target_width;
+    }
+
+    @Override
+    public int getTargetHeight()
+    {
+        return target_height;
+    }
+
+    @Override
+    public void shutdown()
+    {
+        low_res_program.release();
+        composite_program.release();
+        release_targets();
+        glDeleteFramebuffers(framebuffer);
+        glDeleteVertexArrays(vertex_array);
+        glDeleteBuffers(uniform_buffer);
+
+        if (mbean_name == null) return;
+        try
+        {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(mbean_name)) server.unregisterMBean(mbean_name);
+        }
+        catch (JMException e)
+        {
+            LOGGER.log(Level.FINE, "Could not unregister cloud quality MBean", e);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.controllerface.trongle.systems;
+
+import com.controllerface.trongle.lighting.LightClusterGrid;
+import com.juncture.alloy.camera.WorldCamera;
+import com.juncture.alloy.data.MutableInt;
+import com.juncture.alloy.ecs.ECSLayer;
+import com.juncture.alloy.ecs.ECSSystem;
+import com.juncture.alloy.ecs.ECSWorld;
+import com.juncture.alloy.gpu.Window;
+import com.juncture.alloy.rendering.RenderComponent;
+import org.joml.Matrix4d;
+import org.joml.Matrix4f;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL45C.*;
+
+/// Builds a [LightClusterGrid] for the main camera once per frame, so the model shader only shades the point and spot
+/// lights listed for the cluster each fragment falls in, instead of every light in the scene. The grid dimensions and
+/// depth mapping go in the `LightClusterGrid` uniform block at [#BINDING], the cells in the `LightClusterCells` storage
+/// buffer at [#BINDING] and the light indices in the `LightClusterLights` storage buffer at [#LIGHTS_BINDING], which
+/// the shaders declare as fixed bindings.
+///
+/// The lights themselves are uploaded by the rendering system's light pass, so their positions and ranges are read
+/// back from its `PointLights` and `SpotLights` buffers, the storage buffers the model shader declares at bindings 0
+/// and 1. The pass only replaces those buffers when the light counts change, so which buffer is bound there is looked
+/// up only then, and again on later ticks until the buffers are large enough for the counts, never every frame. Each
+/// readback is a GPU copy into a mapped buffer, fenced and picked up on a later tick once the fence has passed, so the
+/// CPU never waits on the GPU, and the grid is built from lights a frame or two old. Light ranges are padded by a
+/// margin to cover how far lights move in that time, and the shader skips any index past the current light counts.
+/// Until the first readback arrives the shader shades every light, as before.
+///
+/// Must be registered after the camera system, so the view is current, and before the rendering system.
+public class LightClusterSystem extends ECSSystem
+{
+    /// Uniform block and cell buffer binding used by `_layout/LightClusters.glsl`.
+    public static final int BINDING = 10;
+
+    /// Light index buffer binding used by `_layout/LightClusters.glsl`.
+    public static final int LIGHTS_BINDING = 11;
+
+    /// Bindings and std430 strides of the light buffers written by the light pass, see `model/fragment.glsl`.
+    private static final int POINT_LIGHT_BINDING = 0;
+    private static final int SPOT_LIGHT_BINDING  = 1;
+    private static final int POINT_LIGHT_FLOATS  = 16;
+    private static final int SPOT_LIGHT_FLOATS   = 24;
+
+    /// Float offsets within a point light, which also begins each spot light.
+    private static final int LIGHT_INTENSITY = 4;
+    private static final int LIGHT_POSITION  = 8;
+    private static final int LIGHT_RANGE     = 12;
+
+    private static final int UNIFORM_FLOATS = 8;
+
+    /// Indices into the light source lookups.
+    private static final int POINTS = 0;
+    private static final int SPOTS  = 1;
+
+    private final ECSLayer<RenderComponent> rend_layer;
+    private final LightClusterGrid grid;
+    private final float cluster_near;
+    private final float cluster_far;
+    private final float light_margin;
+
+    private final int uniform_buffer;
+    private final int cell_buffer;
+    private final float[] uniforms = new float[UNIFORM_FLOATS];
+
+    private int light_buffer = 0;
+    private IntBuffer light_upload;
+
+    private int readback_buffer = 0;
+    private long readback_capacity = 0;
+    private FloatBuffer readback;
+    private long readback_fence = 0;
+    private int readback_points = 0;
+    private int readback_spots = 0;
+    private boolean readback_copied = false;
+
+    /// The light pass's buffers as last looked up: the buffer bound, the start of its bound range, and the bytes of it
+    /// that hold whole lights, along with the light counts they were looked up for.
+    private final int[] source_buffer = new int[2];
+    private final long[] source_start = new long[2];
+    private final long[] source_bytes = new long[2];
+    private int source_points = -1;
+    private int source_spots = -1;
+    private boolean sources_short = false;
+
+    private float[] point_spheres = new float[0];
+    private float[] spot_spheres = new float[0];
+    private int point_count = 0;
+    private int spot_count = 0;
+    private boolean lights_ready = false;
+
+    private final Matrix4d projection_buffer = new Matrix4d();
+    private final Matrix4d view_buffer = new Matrix4d();
+    private final Matrix4f projection = new Matrix4f();
+    private final Matrix4f view = new Matrix4f();
+    private final Matrix4f sliced_projection = new Matrix4f().zero();
+
+    /// Creates the grid buffers. Clusters are sliced between `cluster_near` and `cluster_far`, and lights are bounded
+    /// by their range plus `light_margin`. Must be called on the GL thread.
+    public LightClusterSystem(ECSWorld world,
+                              LightClusterGrid grid,
+                              float cluster_near,
+                              float cluster_far,
+                              float light_margin)
+    {
+        super(world);
+        this.rend_layer = world.get(RenderComponent.class);
+        this.grid = grid;
+        this.cluster_near = cluster_near;
+        this.cluster_far = cluster_far;
+        this.light_margin = light_margin;
+
+        uniforms[0] = grid.tiles_x();
+        uniforms[1] = grid.tiles_y();
+        uniforms[2] = grid.slices();
+
+        uniform_buffer = glCreateBuffers();
+        glNamedBufferStorage(uniform_buffer, (long) UNIFORM_FLOATS * Float.BYTES, GL_DYNAMIC_STORAGE_BIT);
+
+        cell_buffer = glCreateBuffers();
+        glNamedBufferStorage(cell_buffer, (long) grid.cells().length * Integer.BYTES, GL_DYNAMIC_STORAGE_BIT);
+
+        ensure_light_capacity(grid.lights().length);
+    }
+
+    @Override
+    public void tick(double dt)
+    {
+        // the window and camera are looked up each frame, as they may be replaced while the game is running
+        Window window = RenderComponent.MainWindow.global(rend_layer);
+        WorldCamera camera = RenderComponent.MainCamera.global(rend_layer);
+        if (window == null || camera == null) return;
+
+        collect_readback();
+        if (readback_fence == 0) request_readback();
+
+        projection_buffer.set(camera.projection_matrix());
+        view_buffer.set(camera.view_matrix());
+        projection.set(projection_buffer);
+        view.set(view_buffer);
+
+        if (!projection.equals(sliced_projection))
+        {
+            grid.set_projection(projection, cluster_near, cluster_far);
+            sliced_projection.set(projection);
+        }
+
+        if (lights_ready)
+        {
+            grid.build(view, point_spheres, point_count, spot_spheres, spot_count);
+            upload_grid();
+        }
+
+        float log_ratio = (float) Math.log(grid.far() / grid.near());
+        uniforms[3] = lights_ready ? 1.0f : 0.0f;
+        uniforms[4] = grid.slices() / log_ratio;
+        uniforms[5] = (float) (-Math.log(grid.near()) * grid.slices() / log_ratio);
+        uniforms[6] = window.width();
+        uniforms[7] = window.height();
+        glNamedBufferSubData(uniform_buffer, 0, uniforms);
+
+        glBindBufferBase(GL_UNIFORM_BUFFER, BINDING, uniform_buffer);
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, BINDING, cell_buffer);
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, LIGHTS_BINDING, light_buffer);
+    }
+
+    private void upload_grid()
+    {
+        glNamedBufferSubData(cell_buffer, 0, grid.cells());
+
+        int count = grid.light_count();
+        if (count == 0) return;
+        ensure_light_capacity(count);
+        light_upload.clear();
+        light_upload.put(grid.lights(), 0, count).flip();
+        glNamedBufferSubData(light_buffer, 0, light_upload);
+    }
+
+    private void ensure_light_capacity(int count)
+    {
+        if (light_upload != null && light_upload.capacity() >= count) return;
+
+        int capacity = Math.max(count, light_upload == null ? 0 : light_upload.capacity() * 2);
+        if (light_upload != null) MemoryUtil.memFree(light_upload);
+        light_upload = MemoryUtil.memAllocInt(capacity);
+
+        if (light_buffer != 0) glDeleteBuffers(light_buffer);
+        light_buffer = glCreateBuffers();
+        glNamedBufferStorage(light_buffer, (long) capacity * Integer.BYTES, GL_DYNAMIC_STORAGE_BIT);
+    }
+
+    /// Queues a copy of the light pass's current light buffers, and a fence to tell when it has landed. Nothing is
+    /// queued while there are no lights to copy, and any lights from an earlier readback are dropped instead.
+    private void request_readback()
+    {
+        MutableInt points = RenderComponent.PointLightCount.global(rend_layer);
+        MutableInt spots = RenderComponent.SpotLightCount.global(rend_layer);
+        int point_total = points == null ? 0 : points.value;
+        int spot_total = spots == null ? 0 : spots.value;
+        refresh_sources(point_total, spot_total);
+
+        int point_bytes = copy_size(POINTS, point_total, POINT_LIGHT_FLOATS);
+        int spot_bytes = copy_size(SPOTS, spot_total, SPOT_LIGHT_FLOATS);
+        if (point_bytes + spot_bytes == 0)
+        {
+            point_count = 0;
+            spot_count = 0;
+            return;
+        }
+
+        ensure_readback_capacity((long) point_bytes + spot_bytes);
+        if (readback_buffer == 0) return;
+        if (point_bytes > 0) copy_lights(POINTS, 0, point_bytes);
+        if (spot_bytes > 0) copy_lights(SPOTS, point_bytes, spot_bytes);
+
+        readback_points = point_bytes / (POINT_LIGHT_FLOATS * Float.BYTES);
+        readback_spots = spot_bytes / (SPOT_LIGHT_FLOATS * Float.BYTES);
+        readback_copied = true;
+        readback_fence = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+    }
+
+    /// Looks up the light pass's buffers again if the light counts have changed since they were last looked up, or
+    /// the buffers found then were too small for the counts, as the pass may not have grown them yet.
+    private void refresh_sources(int point_total, int spot_total)
+    {
+        if (point_total == source_points && spot_total == source_spots && !sources_short) return;
+
+        source_points = point_total;
+        source_spots = spot_total;
+        lookup_source(POINTS, POINT_LIGHT_BINDING);
+        lookup_source(SPOTS, SPOT_LIGHT_BINDING);
+        sources_short = source_bytes[POINTS] < (long) point_total * POINT_LIGHT_FLOATS * Float.BYTES
+            || source_bytes[SPOTS] < (long) spot_total * SPOT_LIGHT_FLOATS * Float.BYTES;
+    }
+
+    private void lookup_source(int source, int binding)
+    {
+        int buffer = glGetIntegeri(GL_SHADER_STORAGE_BUFFER_BINDING, binding);
+        long start = buffer == 0 ? 0 : glGetInteger64i(GL_SHADER_STORAGE_BUFFER_START, binding);
+        long bound = buffer == 0 ? 0 : glGetInteger64i(GL_SHADER_STORAGE_BUFFER_SIZE, binding);
+        if (buffer != 0 && bound == 0) bound = glGetNamedBufferParameteri(buffer, GL_BUFFER_SIZE) - start;
+
+        source_buffer[source] = buffer;
+        source_start[source] = start;
+        source_bytes[source] = bound;
+    }
+
+    /// Bytes to copy for the given light count, limited to what the source buffer holds, as the count may run ahead of
+    /// the buffer while the light pass has yet to grow it.
+    private int copy_size(int source, int count, int stride_floats)
+    {
+        if (source_buffer[source] == 0 || count <= 0) return 0;
+        long stride = (long) stride_floats * Float.BYTES;
+        return (int) (Math.min(count, source_bytes[source] / stride) * stride);
+    }
+
+    private void copy_lights(int source, long write_offset, int bytes)
+    {
+        glCopyNamedBufferSubData(source_buffer[source], readback_buffer, source_start[source], write_offset, bytes);
+    }
+
+    private void ensure_readback_capacity(long bytes)
+    {
+        if (bytes <= readback_capacity) return;
+
+        release_readback();
+        readback_capacity = Math.max(bytes, readback_capacity * 2);
+        readback_buffer = glCreateBuffers();
+        int flags = GL_MAP_READ_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+        glNamedBufferStorage(readback_buffer, readback_capacity, flags | GL_CLIENT_STORAGE_BIT);
+        var mapped = glMapNamedBufferRange(readback_buffer, 0, readback_capacity, flags);
+        readback = mapped == null ? null : mapped.order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    /// Takes in the last readback if its fence has passed, converting each light to a bounding sphere. Lights that
+    /// give off no light are given no radius, so the grid skips them.
+    private void collect_readback()
+    {
+        if (readback_fence == 0) return;
+
+        int status = glClientWaitSync(readback_fence, 0, 0);
+        if (status != GL_ALREADY_SIGNALED && status != GL_CONDITION_SATISFIED) return;
+        glDeleteSync(readback_fence);
+        readback_fence = 0;
+
+        point_count = readback_points;
+        spot_count = readback_spots;
+        if (point_spheres.length < point_count * 4) point_spheres = new float[point_count * 4];
+        if (spot_spheres.length < spot_count * 4) spot_spheres = new float[spot_count * 4];
+
+        int spot_base = point_count * POINT_LIGHT_FLOATS;
+        for (int i = 0; i < point_count; i++)
+        {
+            read_sphere(i * POINT_LIGHT_FLOATS, point_spheres, i);
+        }
+        for (int i = 0; i < spot_count; i++)
+        {
+            read_sphere(spot_base + i * SPOT_LIGHT_FLOATS, spot_spheres, i);
+        }
+        lights_ready = readback_copied && readback != null;
+    }
+
+    private void read_sphere(int base, float[] spheres, int i)
+    {
+        if (readback == null) return;
+        boolean lit = readback.get(base + LIGHT_INTENSITY) > 0.0f;
+        spheres[i * 4]     = readback.get(base + LIGHT_POSITION);
+        spheres[i * 4 + 1] = readback.get(base + LIGHT_POSITION + 1);
+        spheres[i * 4 + 2] = readback.get(base + LIGHT_POSITION + 2);
+        spheres[i * 4 + 3] = lit ? readback.get(base + LIGHT_RANGE) + light_margin : 0.0f;
+    }
+
+    private void release_readback()
+    {
+        if (readback_buffer == 0) return;
+        glUnmapNamedBuffer(readback_buffer);
+        glDeleteBuffers(readback_buffer);
+        readback_buffer = 0;
+        readback = null;
+    }
+
+    @Override
+    public void shutdown()
+    {
+        if (readback_fence != 0) glDeleteSync(readback_fence);
+        release_readback();
+        glDeleteBuffers(new int[]{ uniform_buffer, cell_buffer, light_buffer });
+        MemoryUtil.memFree(light_upload);
+    }
+}
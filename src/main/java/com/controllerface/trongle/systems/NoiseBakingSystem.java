@@ -0,0 +1,212 @@
+package com.controllerface.trongle.systems;
+
+import com.controllerface.trongle.noise.FastNoiseLite;
+import com.controllerface.trongle.noise.NoiseField;
+import com.controllerface.trongle.noise.NoiseSettings;
+import com.juncture.alloy.camera.WorldCamera;
+import com.juncture.alloy.ecs.ECSLayer;
+import com.juncture.alloy.ecs.ECSSystem;
+import com.juncture.alloy.ecs.ECSWorld;
+import com.juncture.alloy.rendering.RenderComponent;
+import org.joml.Vector3d;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.lwjgl.opengl.GL45C.*;
+
+/// Keeps the baked noise used by the cloud and terrain shaders centered on the camera, in place of the FastNoiseLite
+/// calls those shaders used to make per fragment and per vertex. Each [NoiseField] is kept bound to a fixed texture
+/// unit, and the window sizes and cloud drift are kept in the `NoiseFields` uniform block at [#BINDING], both of which
+/// the shaders declare as fixed bindings.
+///
+/// Cloud drift is advanced here rather than in the cloud shader, so the cloud noise window can follow the drifting
+/// noise and not just the camera. The drift wraps back to zero every [#CLOUD_DRIFT_PERIOD] units, which keeps it exact
+/// as a float and bounds the cloud tiles it ever brings into view, and so the tiles written to the disk cache. The
+/// noise does not repeat, so the clouds jump once per period, which at the drift speed is about every nineteen
+/// hours.
+///
+/// Tiles are produced on the game's shared worker pool, with no more than a quarter of its workers busy producing
+/// tiles at once, so a window full of new tiles never starves the per frame work on the same pool.
+///
+/// Must be registered after the camera system, so the view is current, and before the rendering system.
+public class NoiseBakingSystem extends ECSSystem
+{
+    /// Uniform block binding used by `_layout/NoiseFields.glsl`.
+    public static final int BINDING = 8;
+
+    /// Texture units matching the fixed sampler bindings in the cloud and terrain shaders.
+    public static final int CLOUD_UNIT              = 14;
+    public static final int TERRAIN_PERTURB_UNIT    = 13;
+    public static final int TERRAIN_SATURATION_UNIT = 12;
+    public static final int TERRAIN_VALUE_UNIT      = 11;
+
+    /// The cloud layer noise, five octaves of OpenSimplex2 with a wavelength of ten thousand units.
+    public static final NoiseSettings CLOUD_NOISE = NoiseSettings.defaults(1581)
+        .with_type(FastNoiseLite.NoiseType.OPENSIMPLEX2, FastNoiseLite.FractalType.FBM)
+        .with_frequency(0.0001f)
+        .with_octaves(5);
+
+    /// The terrain perturbation noise, one octave of Perlin added to each tessellated vertex height.
+    public static final NoiseSettings TERRAIN_PERTURB_NOISE = NoiseSettings.defaults(872582)
+        .with_type(FastNoiseLite.NoiseType.PERLIN, FastNoiseLite.FractalType.FBM)
+        .with_octaves(1);
+
+    /// The terrain tint noise, which the terrain shader samples with each patch's tessellation coordinate.
+    public static final NoiseSettings TERRAIN_SATURATION_NOISE = NoiseSettings.defaults(398349)
+        .with_type(FastNoiseLite.NoiseType.OPENSIMPLEX2, FastNoiseLite.FractalType.FBM);
+    public static final NoiseSettings TERRAIN_VALUE_NOISE = NoiseSettings.defaults(872582)
+        .with_type(FastNoiseLite.NoiseType.OPENSIMPLEX2, FastNoiseLite.FractalType.FBM);
+
+    /// Distance the cloud drift wraps at, a whole number of cloud tiles.
+    public static final double CLOUD_DRIFT_PERIOD = 1 << 20;
+
+    private static final double CLOUD_DRIFT_SPEED = 15.0;
+    private static final int MAX_UPLOADS = 4;
+    private static final int UNIFORM_FLOATS = 4;
+
+    private final ECSLayer<RenderComponent> rend_layer;
+    private final BoundedExecutor workers;
+    private final NoiseField cloud;
+    private final NoiseField terrain_perturb;
+    private final NoiseField terrain_saturation;
+    private final NoiseField terrain_value;
+    private final List<NoiseField> fields;
+    private final int uniform_buffer;
+    private final float[] uniforms = new float[UNIFORM_FLOATS];
+    private final Vector3d position_buffer = new Vector3d();
+
+    private double cloud_drift = 0.0;
+
+    /// Creates the noise textures and uniform buffer. Tiles start generating, or loading from the disk cache, on the
+    /// first tick, on `pool`, which the system does not own. Must be called on the GL thread.
+    public NoiseBakingSystem(ECSWorld world, ForkJoinPool pool)
+    {
+        super(world);
+        rend_layer = world.get(RenderComponent.class);
+        workers = new BoundedExecutor(pool, Math.max(1, pool.getParallelism() / 4));
+
+        // texels are spaced so the finest octave of each noise spans several of them
+        cloud = new NoiseField("cloud", CLOUD_NOISE,
+            64.0f, 64, 16, MAX_UPLOADS, workers, NoiseField.CACHE_DIR);
+        terrain_perturb = new NoiseField("terrain_perturb", TERRAIN_PERTURB_NOISE,
+            4.0f, 64, 32, MAX_UPLOADS, workers, NoiseField.CACHE_DIR);
+
+        // the tint noise only ever covers the unit square of tessellation coordinates, so it is a single tile
+        terrain_saturation = new NoiseField("terrain_saturation", TERRAIN_SATURATION_NOISE,
+            1.0f / 32, 32, 1, 1, workers, NoiseField.CACHE_DIR);
+        terrain_value = new NoiseField("terrain_value", TERRAIN_VALUE_NOISE,
+            1.0f / 32, 32, 1, 1, workers, NoiseField.CACHE_DIR);
+
+        fields = List.of(cloud, terrain_perturb, terrain_saturation, terrain_value);
+
+        uniforms[2] = cloud.window_size();
+        uniforms[3] = terrain_perturb.window_size();
+        uniform_buffer = glCreateBuffers();
+        glNamedBufferStorage(uniform_buffer, (long) UNIFORM_FLOATS * Float.BYTES, GL_DYNAMIC_STORAGE_BIT);
+    }
+
+    @Override
+    public void tick(double dt)
+    {
+        cloud_drift = (cloud_drift + dt * CLOUD_DRIFT_SPEED) % CLOUD_DRIFT_PERIOD;
+        float drift = (float) cloud_drift;
+
+        WorldCamera camera = RenderComponent.MainCamera.global(rend_layer);
+        if (camera != null) position_buffer.set(camera.position());
+
+        cloud.update(position_buffer.x + drift, position_buffer.z);
+        terrain_perturb.update(position_buffer.x, position_buffer.z);
+        terrain_saturation.update(0.5, 0.5);
+        terrain_value.update(0.5, 0.5);
+
+        uniforms[0] = drift;
+        uniforms[1] = 0.0f;
+        glNamedBufferSubData(uniform_buffer, 0, uniforms);
+        glBindBufferBase(GL_UNIFORM_BUFFER, BINDING, uniform_buffer);
+
+        cloud.bind(CLOUD_UNIT);
+        terrain_perturb.bind(TERRAIN_PERTURB_UNIT);
+        terrain_saturation.bind(TERRAIN_SATURATION_UNIT);
+        terrain_value.bind(TERRAIN_VALUE_UNIT);
+    }
+
+    /// Distance the cloud noise has drifted along x as of the last tick, in world units, wrapped to the drift period.
+    public float cloud_drift()
+    {
+        return uniforms[0];
+    }
+
+    @Override
+    public void shutdown()
+    {
+        workers.stop();
+        fields.forEach(NoiseField::release);
+        glDeleteBuffers(uniform_buffer);
+    }
+
+    /// Runs tasks on a shared executor, at most `limit` at a time, holding the rest in submission order. Once stopped,
+    /// held tasks are dropped and no more are started.
+    private static final class BoundedExecutor implements Executor
+    {
+        private final Executor backing;
+        private final int limit;
+        private final Queue<Runnable> held = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger running = new AtomicInteger();
+        private volatile boolean stopped = false;
+
+        private BoundedExecutor(Executor backing, int limit)
+        {
+            this.backing = backing;
+            this.limit = limit;
+        }
+
+        @Override
+        public void execute(Runnable task)
+        {
+            held.add(task);
+            start_held();
+        }
+
+        /// Starts held tasks while there is room. A task finishing calls this after giving up its place, so a task
+        /// held while every place was taken is always started by whichever task finishes next.
+        private void start_held()
+        {
+            while (!stopped && !held.isEmpty())
+            {
+                int current = running.get();
+                if (current >= limit) return;
+                if (!running.compareAndSet(current, current + 1)) continue;
+
+                var task = held.poll();
+                if (task == null)
+                {
+                    running.decrementAndGet();
+                    continue;
+                }
+                backing.execute(() ->
+                {
+                    try
+                    {
+                        task.run();
+                    }
+                    finally
+                    {
+                        running.decrementAndGet();
+                        start_held();
+                    }
+                });
+            }
+        }
+
+        private void stop()
+        {
+            stopped = true;
+            held.clear();
+        }
+    }
+}
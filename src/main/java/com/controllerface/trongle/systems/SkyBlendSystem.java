@@ -0,0 +1,160 @@
+package com.controllerface.trongle.systems;
+
+import com.controllerface.trongle.assets.BakedCubeMap;
+import com.controllerface.trongle.shaders.ProgramCompiler;
+import com.controllerface.trongle.shaders.ShaderProgram;
+import com.controllerface.trongle.shaders.ShaderSource;
+import com.juncture.alloy.data.MutableFloat;
+import com.juncture.alloy.ecs.ECSSystem;
+import com.juncture.alloy.ecs.ECSWorld;
+import com.juncture.alloy.rendering.RenderComponent;
+
+import java.util.regex.Pattern;
+
+import static org.lwjgl.opengl.GL45C.*;
+
+/// Blends the day and night skyboxes ahead of time, so the skybox and model shaders sample one texture per fragment
+/// instead of sampling two and mixing them. The skybox and the model reflections weight the night sky differently, so
+/// each gets its own blended cube map, both written by one compute pass over every mip level, and only when the time
+/// of day crosses into a new step, which at the default day length is every couple of seconds.
+///
+/// The blended cube maps are bound to [#SKY_UNIT] and [#REFLECTION_UNIT], which the shaders declare as fixed bindings.
+/// They are rebound every tick, so a pass that borrows either unit only affects the frame it does so in, and unbound
+/// on shutdown.
+///
+/// Must be registered before the rendering system, so the first frame already sees a blended sky.
+public class SkyBlendSystem extends ECSSystem
+{
+    /// Texture unit the blended sky is bound to, matching `skyEnvironment` in the skybox shader.
+    public static final int SKY_UNIT = 15;
+
+    /// Texture unit the blended reflections are bound to, matching `skyReflection` in the model shader.
+    public static final int REFLECTION_UNIT = 10;
+
+    /// The day and night cube map samplers the alloy skybox and model passes bind their two cube map textures to.
+    private static final Pattern PASS_SAMPLERS =
+        Pattern.compile("\\bsamplerCube\\s+(skybox|skyboxNight|skyboxDark)\\b");
+
+    /// Number of distinct blends between full day and full night.
+    private static final int BLEND_STEPS = 256;
+
+    private static final int GROUP_SIZE = 8;
+
+    private final MutableFloat time_of_day;
+    private final ShaderProgram program;
+    private final int size;
+    private final int levels;
+    private final int day;
+    private final int night;
+    private final int sky;
+    private final int reflection;
+
+    private int blended_step = -1;
+
+    /// Uploads both cube maps, which must be the same size, then closes them. Must be called on the GL thread.
+    public SkyBlendSystem(ECSWorld world, BakedCubeMap day_map, BakedCubeMap night_map)
+    {
+        super(world);
+
+        if (day_map.size() != night_map.size() || day_map.levels() != night_map.levels())
+        {
+            throw new IllegalArgumentException("Day and night skyboxes must be the same size");
+        }
+
+        var rend_layer = world.get(RenderComponent.class);
+        time_of_day = RenderComponent.TimeOfDay.global(rend_layer);
+
+        size   = day_map.size();
+        levels = day_map.levels();
+        day    = day_map.upload();
+        night  = night_map.upload();
+        day_map.close();
+        night_map.close();
+
+        sky        = blend_target(size, levels);
+        reflection = blend_target(size, levels);
+        glEnable(GL_TEXTURE_CUBE_MAP_SEAMLESS);
+
+        program = new ProgramCompiler().compile(ShaderSource.load("sky_blend"));
+    }
+
+    private static int blend_target(int size, int levels)
+    {
+        int texture = glCreateTextures(GL_TEXTURE_CUBE_MAP);
+        glTextureStorage2D(texture, levels, GL_RGBA8, size, size);
+        glTextureParameteri(texture, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
+        glTextureParameteri(texture, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+        glTextureParameteri(texture, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+        glTextureParameteri(texture, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+        glTextureParameteri(texture, GL_TEXTURE_WRAP_R, GL_CLAMP_TO_EDGE);
+        return texture;
+    }
+
+    /// Checks that none of the given programs declares the cube map samplers the alloy skybox and model passes bind
+    /// their two cube map textures to. Those passes are still handed a placeholder for both, as the blended sky is read
+    /// from [#SKY_UNIT] and [#REFLECTION_UNIT] instead, so a program that declared one would silently sample the
+    /// placeholder.
+    ///
+    /// @throws IllegalStateException if any stage of a program declares one of those samplers
+    public static void check_placeholder_unsampled(ShaderSource... programs)
+    {
+        for (var program : programs)
+        {
+            for (var stage : program.stages().entrySet())
+            {
+                var sampler = PASS_SAMPLERS.matcher(stage.getValue());
+                if (sampler.find())
+                {
+                    throw new IllegalStateException("Program: " + program.name() + " " + stage.getKey()
+                        + " declares: " + sampler.group(1) + ", which is bound to the placeholder sky");
+                }
+            }
+        }
+    }
+
+    @Override
+    public void tick(double dt)
+    {
+        int step = Math.round(Math.clamp(time_of_day.value, 0.0f, 1.0f) * BLEND_STEPS);
+        if (step != blended_step)
+        {
+            blend((float) step / BLEND_STEPS);
+            blended_step = step;
+        }
+        glBindTextureUnit(SKY_UNIT, sky);
+        glBindTextureUnit(REFLECTION_UNIT, reflection);
+    }
+
+    private void blend(float blend)
+    {
+        program.use();
+        program.upload_float("blend", blend);
+        glBindTextureUnit(0, day);
+        glBindTextureUnit(1, night);
+
+        // each level is blended from the matching level of the sources, rather than filtered down afterward
+        for (int level = 0; level < levels; level++)
+        {
+            int texels = Math.max(1, size >> level);
+            int groups = (texels + GROUP_SIZE - 1) / GROUP_SIZE;
+            program.upload_float("lod", level);
+            glBindImageTexture(0, sky, level, true, 0, GL_WRITE_ONLY, GL_RGBA8);
+            glBindImageTexture(1, reflection, level, true, 0, GL_WRITE_ONLY, GL_RGBA8);
+            glDispatchCompute(groups, groups, 6);
+        }
+
+        glMemoryBarrier(GL_TEXTURE_FETCH_BARRIER_BIT);
+        glBindImageTexture(0, 0, 0, false, 0, GL_WRITE_ONLY, GL_RGBA8);
+        glBindImageTexture(1, 0, 0, false, 0, GL_WRITE_ONLY, GL_RGBA8);
+        program.detach();
+    }
+
+    @Override
+    public void shutdown()
+    {
+        program.release();
+        glBindTextureUnit(SKY_UNIT, 0);
+        glBindTextureUnit(REFLECTION_UNIT, 0);
+        glDeleteTextures(new int[]{ day, night, sky, reflection });
+    }
+}
@@ -0,0 +1,96 @@
+package com.controllerface.trongle.systems;
+
+import com.controllerface.trongle.terrain.TerrainLod;
+import com.juncture.alloy.camera.WorldCamera;
+import com.juncture.alloy.ecs.ECSLayer;
+import com.juncture.alloy.ecs.ECSSystem;
+import com.juncture.alloy.ecs.ECSWorld;
+import com.juncture.alloy.gpu.Window;
+import com.juncture.alloy.rendering.RenderComponent;
+import org.joml.Matrix4d;
+import org.joml.Matrix4f;
+import org.joml.Vector3d;
+
+import static org.lwjgl.opengl.GL45C.*;
+
+/// Runs [TerrainLod] against the main camera once per frame, and hands the result to the terrain shaders: the patch
+/// grid, level range, projection factor and budget scale go in the `TerrainLod` uniform block, and the visible patch
+/// bits in the `TerrainPatchVisibility` storage buffer. Both are kept bound to [#BINDING], which the shaders declare as
+/// a fixed binding.
+///
+/// Must be registered after the camera system, so the view is current, and before the rendering system.
+public class TerrainLodSystem extends ECSSystem
+{
+    /// Uniform block and storage buffer binding used by `_layout/TerrainLod.glsl`.
+    public static final int BINDING = 7;
+
+    private static final int UNIFORM_FLOATS = 8;
+
+    private final ECSLayer<RenderComponent> rend_layer;
+    private final TerrainLod lod;
+    private final int uniform_buffer;
+    private final int visibility_buffer;
+    private final float[] uniforms = new float[UNIFORM_FLOATS];
+
+    private final Matrix4d projection_buffer = new Matrix4d();
+    private final Matrix4d view_buffer = new Matrix4d();
+    private final Matrix4f view_projection = new Matrix4f();
+    private final Vector3d position_buffer = new Vector3d();
+
+    /// Creates the uniform and visibility buffers. Must be called on the GL thread.
+    public TerrainLodSystem(ECSWorld world, TerrainLod lod)
+    {
+        super(world);
+        this.rend_layer = world.get(RenderComponent.class);
+        this.lod = lod;
+
+        var shape = lod.shape();
+        uniforms[0] = shape.origin();
+        uniforms[1] = shape.origin();
+        uniforms[2] = shape.patch_size();
+        uniforms[3] = shape.patches();
+        uniforms[4] = lod.min_level();
+        uniforms[5] = lod.max_level();
+
+        uniform_buffer = glCreateBuffers();
+        glNamedBufferStorage(uniform_buffer, (long) UNIFORM_FLOATS * Float.BYTES, GL_DYNAMIC_STORAGE_BIT);
+
+        visibility_buffer = glCreateBuffers();
+        glNamedBufferStorage(visibility_buffer, (long) lod.visible().length * Integer.BYTES, GL_DYNAMIC_STORAGE_BIT);
+    }
+
+    @Override
+    public void tick(double dt)
+    {
+        // the window and camera are looked up each frame, as they may be replaced while the game is running
+        Window window = RenderComponent.MainWindow.global(rend_layer);
+        WorldCamera camera = RenderComponent.MainCamera.global(rend_layer);
+        if (window == null || camera == null) return;
+
+        projection_buffer.set(camera.projection_matrix());
+        view_buffer.set(camera.view_matrix());
+        position_buffer.set(camera.position());
+        view_projection.set(projection_buffer.mul(view_buffer, view_buffer));
+
+        lod.update(view_projection,
+            (float) projection_buffer.m11(),
+            window.height(),
+            (float) position_buffer.x,
+            (float) position_buffer.y,
+            (float) position_buffer.z);
+
+        uniforms[6] = lod.pixels_per_unit();
+        uniforms[7] = lod.level_scale();
+        glNamedBufferSubData(uniform_buffer, 0, uniforms);
+        glNamedBufferSubData(visibility_buffer, 0, lod.visible());
+
+        glBindBufferBase(GL_UNIFORM_BUFFER, BINDING, uniform_buffer);
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, BINDING, visibility_buffer);
+    }
+
+    @Override
+    public void shutdown()
+    {
+        glDeleteBuffers(new int[]{ uniform_buffer, visibility_buffer });
+    }
+}
@@ -0,0 +1,186 @@
+package com.controllerface.trongle.terrain;
+
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4fc;
+
+import java.util.Arrays;
+
+/// Chooses which terrain patches are drawn, and how finely they are tessellated, for one view. Patches are culled on
+/// the CPU against the view frustum by walking a quadtree over the patch grid, so whole blocks of patches behind the
+/// camera are rejected with a single box test, and the survivors are written to a bit set that the tessellation
+/// control shader reads to discard the rest.
+///
+/// Tessellation levels are chosen per edge in the shader, from the edge's projected size on screen: an edge is split
+/// into segments of about `target_pixels` each, within the configured level range. This class works out the
+/// conversion from world units at unit distance to pixels, and estimates the triangle count that would produce across
+/// all visible patches. When the estimate is over the triangle budget, [#level_scale()] scales every level down so the
+/// total fits.
+///
+/// Instances are not thread-safe, and are meant to be updated once per frame by the thread that renders.
+public final class TerrainLod
+{
+    private final TerrainShape shape;
+    private final float min_height;
+    private final float max_height;
+    private final float min_level;
+    private final float max_level;
+    private final float target_pixels;
+    private final long triangle_budget;
+    private final int root_size;
+    private final int[] visible;
+
+    private final FrustumIntersection frustum = new FrustumIntersection();
+
+    private float camera_x;
+    private float camera_y;
+    private float camera_z;
+    private float pixels_per_unit;
+    private float level_scale = 1.0f;
+    private int visible_patches;
+    private double triangles;
+
+    /// Creates a LOD selector for the given patch grid, where every patch, after displacement, lies between
+    /// `min_height` and `max_height`.
+    public TerrainLod(TerrainShape shape,
+                      float min_height,
+                      float max_height,
+                      float min_level,
+                      float max_level,
+                      float target_pixels,
+                      long triangle_budget)
+    {
+        this.shape = shape;
+        this.min_height = min_height;
+        this.max_height = max_height;
+        this.min_level = min_level;
+        this.max_level = max_level;
+        this.target_pixels = target_pixels;
+        this.triangle_budget = triangle_budget;
+        this.root_size = Integer.highestOneBit(Math.max(1, shape.patches() - 1)) << 1;
+        this.visible = new int[(shape.patches() * shape.patches() + 31) / 32];
+    }
+
+    /// Culls the patch grid against the given view and recomputes the level scale. `projection_scale` is the vertical
+    /// focal length of the projection, which is `1 / tan(fov_y / 2)`, and `viewport_height` is in pixels.
+    public void update(Matrix4fc view_projection,
+                       float projection_scale,
+                       int viewport_height,
+                       float camera_x,
+                       float camera_y,
+                       float camera_z)
+    {
+        this.camera_x = camera_x;
+        this.camera_y = camera_y;
+        this.camera_z = camera_z;
+        pixels_per_unit = projection_scale * viewport_height * 0.5f / target_pixels;
+
+        frustum.set(view_projection, false);
+        Arrays.fill(visible, 0);
+        visible_patches = 0;
+        triangles = 0.0;
+
+        cull(0, 0, root_size);
+
+        level_scale = triangles > triangle_budget
+            ? (float) Math.sqrt(triangle_budget / triangles)
+            : 1.0f;
+    }
+
+    private void cull(int x0, int z0, int size)
+    {
+        int patches = shape.patches();
+        if (x0 >= patches || z0 >= patches) return;
+
+        int x1 = Math.min(x0 + size, patches);
+        int z1 = Math.min(z0 + size, patches);
+        float patch_size = shape.patch_size();
+        float origin = shape.origin();
+
+        int result = frustum.intersectAab(
+            origin + x0 * patch_size, min_height, origin + z0 * patch_size,
+            origin + x1 * patch_size, max_height, origin + z1 * patch_size);
+
+        if (result == FrustumIntersection.INSIDE || (result == FrustumIntersection.INTERSECT && size == 1))
+        {
+            for (int z = z0; z < z1; z++)
+            {
+                for (int x = x0; x < x1; x++)
+                {
+                    mark_visible(x, z);
+                }
+            }
+        }
+        else if (result == FrustumIntersection.INTERSECT)
+        {
+            int half = size / 2;
+            cull(x0, z0, half);
+            cull(x0 + half, z0, half);
+            cull(x0, z0 + half, half);
+            cull(x0 + half, z0 + half, half);
+        }
+    }
+
+    private void mark_visible(int x, int z)
+    {
+        int index = z * shape.patches() + x;
+        visible[index >> 5] |= 1 << (index & 31);
+        visible_patches++;
+
+        // estimate with the patch's nearest point to the camera, which is the finest any of its edges can be
+        float patch_size = shape.patch_size();
+        float x0 = shape.origin() + x * patch_size;
+        float z0 = shape.origin() + z * patch_size;
+        float dx = camera_x - Math.clamp(camera_x, x0, x0 + patch_size);
+        float dy = camera_y - Math.clamp(camera_y, min_height, max_height);
+        float dz = camera_z - Math.clamp(camera_z, z0, z0 + patch_size);
+        float distance = Math.max((float) Math.sqrt(dx * dx + dy * dy + dz * dz), 1.0f);
+
+        float level = Math.clamp(patch_size * pixels_per_unit / distance, min_level, max_level);
+        triangles += 2.0 * level * level;
+    }
+
+    /// One bit per patch, row by row, set when the patch is at least partly inside the frustum.
+    public int[] visible()
+    {
+        return visible;
+    }
+
+    public int visible_patches()
+    {
+        return visible_patches;
+    }
+
+    /// Estimated triangles across all visible patches, before the level scale is applied.
+    public double triangles()
+    {
+        return triangles;
+    }
+
+    /// Projected pixels per world unit at unit distance, divided by the target segment length, so that an edge's
+    /// tessellation level is its length times this value over its distance from the camera.
+    public float pixels_per_unit()
+    {
+        return pixels_per_unit;
+    }
+
+    /// Factor applied to every tessellation level to keep the frame within the triangle budget, at most 1.
+    public float level_scale()
+    {
+        return level_scale;
+    }
+
+    public float min_level()
+    {
+        return min_level;
+    }
+
+    public float max_level()
+    {
+        return max_level;
+    }
+
+    public TerrainShape shape()
+    {
+        return shape;
+    }
+}
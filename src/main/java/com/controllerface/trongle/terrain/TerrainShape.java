@@ -0,0 +1,17 @@
+package com.controllerface.trongle.terrain;
+
+/// The layout of the terrain as drawn by the terrain pass: a square grid of `patches` by `patches` tessellated patches
+/// covering `extent` world units, centered on the origin.
+public record TerrainShape(float extent, int patches)
+{
+    public float patch_size()
+    {
+        return extent / patches;
+    }
+
+    /// World space `x` and `z` of the terrain's minimum corner.
+    public float origin()
+    {
+        return -extent / 2.0f;
+    }
+}
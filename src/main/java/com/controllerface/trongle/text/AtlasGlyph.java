@@ -0,0 +1,14 @@
+package com.controllerface.trongle.text;
+
+/// Placement and metrics of one glyph in a [GlyphAtlas]. Sizes and bearings are in pixels at the atlas pixel size, and
+/// include the distance field spread around the glyph outline, texture coordinates are normalized to the atlas size.
+public record AtlasGlyph(char character,
+                         int width,
+                         int height,
+                         int bearing_x,
+                         int bearing_y,
+                         float advance,
+                         float u1,
+                         float v1,
+                         float u2,
+                         float v2) { }
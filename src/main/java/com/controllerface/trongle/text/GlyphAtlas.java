@@ -0,0 +1,275 @@
+package com.controllerface.trongle.text;
+
+import com.controllerface.trongle.assets.Resources;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+import static org.lwjgl.opengl.GL45C.*;
+
+/// A signed distance field atlas of one font at one pixel size, shared by every text renderer that uses that font.
+/// Since the atlas stores distances rather than coverage, one atlas renders cleanly at any text scale, so there is no
+/// need for a texture per size or per renderer.
+///
+/// The atlas is rasterized once and saved with its glyph metrics to `-Dtrongle.font_cache`, `cache/fonts` under
+/// [Resources#HOME] by default. Later launches memory-map the saved file and upload the pixels straight from the
+/// mapping. The saved atlas records a hash of the font file, and is rebuilt if the font changes.
+///
+/// Atlases are reference counted: [#acquire(String, int)] returns the shared instance, loading it if needed, and
+/// [#release()] frees the texture and the mapping once the last user is done with it. Loading can happen on any
+/// thread, the texture is uploaded on the GL thread on first [#bind(int)].
+public final class GlyphAtlas
+{
+    private static final Logger LOGGER = Logger.getLogger(GlyphAtlas.class.getName());
+
+    public static final Path CACHE_DIR = Resources.home_path("trongle.font_cache", "cache/fonts");
+
+    private static final int MAGIC       = 0x41475254;
+    private static final int VERSION     = 1;
+    private static final int HASH_LENGTH = 32;
+    private static final int HEADER_SIZE = 64;
+    private static final int GLYPH_SIZE  = 32;
+
+    private static final ValueLayout.OfInt   INT   = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private static final Map<String, GlyphAtlas> SHARED = new HashMap<>();
+
+    private final String key;
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final int width;
+    private final int height;
+    private final int spread;
+    private final long pixel_offset;
+    private final AtlasGlyph[] glyphs;
+    private final float glyph_height;
+
+    private int references = 0;
+    private int texture = 0;
+
+    private GlyphAtlas(String key, Arena arena, MemorySegment segment)
+    {
+        this.key = key;
+        this.arena = arena;
+        this.segment = segment;
+
+        width  = segment.get(INT, 44);
+        height = segment.get(INT, 48);
+        spread = segment.get(INT, 52);
+        int count = segment.get(INT, 56);
+
+        pixel_offset = HEADER_SIZE + (long) count * GLYPH_SIZE;
+        if (pixel_offset + (long) width * height > segment.byteSize())
+        {
+            throw new IllegalArgumentException("Glyph atlas is truncated");
+        }
+
+        int max_char = 0;
+        for (int i = 0; i < count; i++)
+        {
+            max_char = Math.max(max_char, segment.get(INT, HEADER_SIZE + (long) i * GLYPH_SIZE));
+        }
+
+        float max_height = 0;
+        glyphs = new AtlasGlyph[max_char + 1];
+        for (int i = 0; i < count; i++)
+        {
+            long at = HEADER_SIZE + (long) i * GLYPH_SIZE;
+            char character = (char) segment.get(INT, at);
+            int x = segment.get(INT, at + 4);
+            int y = segment.get(INT, at + 8);
+            int w = segment.get(INT, at + 12);
+            int h = segment.get(INT, at + 16);
+            int bearing_x = segment.get(INT, at + 20);
+            int bearing_y = segment.get(INT, at + 24);
+            float advance = segment.get(FLOAT, at + 28);
+            glyphs[character] = new AtlasGlyph(character, w, h, bearing_x, bearing_y, advance,
+                (float) x / width, (float) y / height, (float) (x + w) / width, (float) (y + h) / height);
+            if (h > 0) max_height = Math.max(max_height, h - 2 * spread);
+        }
+        glyph_height = max_height;
+    }
+
+    /// Returns the shared atlas for the given font resource and pixel size, loading or building it if needed. Every
+    /// call must be matched by a call to [#release()].
+    public static synchronized GlyphAtlas acquire(String font, int pixel_size)
+    {
+        var key = font + "@" + pixel_size;
+        var atlas = SHARED.get(key);
+        if (atlas == null)
+        {
+            try
+            {
+                atlas = load(key, font, pixel_size);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException("Could not load glyph atlas for: " + key, e);
+            }
+            SHARED.put(key, atlas);
+        }
+        atlas.references++;
+        return atlas;
+    }
+
+    /// Drops one reference, freeing the texture and unmapping the atlas when none are left. Must be called on the GL
+    /// thread if the atlas has been bound.
+    public void release()
+    {
+        synchronized (GlyphAtlas.class)
+        {
+            if (--references > 0) return;
+            SHARED.remove(key);
+        }
+        if (texture != 0) glDeleteTextures(texture);
+        texture = 0;
+        arena.close();
+    }
+
+    private static GlyphAtlas load(String key, String font, int pixel_size) throws IOException
+    {
+        var font_bytes = Objects.requireNonNull(Resources.read_bytes(font), font);
+        var hash = sha256(font_bytes);
+
+        var file_name = Path.of(font).getFileName().toString().replace('.', '_') + "_" + pixel_size + ".sdf";
+        var path = CACHE_DIR.resolve(file_name);
+
+        if (!Arrays.equals(hash, cached_hash(path, pixel_size)))
+        {
+            long start = System.nanoTime();
+            write(path, hash, pixel_size, GlyphAtlasBaker.bake(font_bytes, pixel_size));
+            LOGGER.info(String.format("Built glyph atlas %s in %.2f ms", path, (System.nanoTime() - start) / 1_000_000.0));
+        }
+
+        var arena = Arena.ofShared();
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            return new GlyphAtlas(key, arena, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+        }
+        catch (IOException | RuntimeException e)
+        {
+            arena.close();
+            throw e;
+        }
+    }
+
+    private static byte[] cached_hash(Path path, int pixel_size) throws IOException
+    {
+        if (!Files.isRegularFile(path)) return null;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            var header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) { }
+            if (header.hasRemaining()
+                || header.getInt(0) != MAGIC
+                || header.getInt(4) != VERSION
+                || header.getInt(40) != pixel_size)
+            {
+                return null;
+            }
+            return Arrays.copyOfRange(header.array(), 8, 8 + HASH_LENGTH);
+        }
+    }
+
+    /// Layout, little-endian: magic, version, 32 byte font hash, pixel size, width, height, spread, glyph count, then
+    /// padding to 64 bytes. Each glyph is 7 ints: character, x, y, width, height, bearing x and y, followed by the
+    /// advance as a float. The pixels follow, one byte per texel.
+    private static void write(Path path, byte[] hash, int pixel_size, GlyphAtlasBaker.Result atlas) throws IOException
+    {
+        var glyphs = atlas.glyphs();
+        var header = ByteBuffer.allocate(HEADER_SIZE + glyphs.size() * GLYPH_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).put(hash, 0, HASH_LENGTH);
+        header.putInt(pixel_size).putInt(atlas.width()).putInt(atlas.height());
+        header.putInt(GlyphAtlasBaker.SPREAD).putInt(glyphs.size());
+        header.position(HEADER_SIZE);
+        for (var placed : glyphs)
+        {
+            var glyph = placed.glyph();
+            header.putInt(glyph.character())
+                .putInt(placed.x())
+                .putInt(placed.y())
+                .putInt(glyph.width())
+                .putInt(glyph.height())
+                .putInt(glyph.bearing_x())
+                .putInt(glyph.bearing_y())
+                .putFloat(glyph.advance());
+        }
+        header.flip();
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        var temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(temp,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            var pixels = ByteBuffer.wrap(atlas.pixels());
+            while (header.hasRemaining()) channel.write(header);
+            while (pixels.hasRemaining()) channel.write(pixels);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] sha256(byte[] data)
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /// Returns the glyph for the given character, or null if the atlas does not contain it.
+    public AtlasGlyph glyph(char character)
+    {
+        return character < glyphs.length ? glyphs[character] : null;
+    }
+
+    /// Height of the tallest glyph, excluding the distance field spread, in pixels at the atlas pixel size.
+    public float glyph_height()
+    {
+        return glyph_height;
+    }
+
+    /// Binds the atlas texture to the given texture unit, uploading it from the mapped file on first use.
+    public void bind(int unit)
+    {
+        if (texture == 0) upload();
+        glBindTextureUnit(unit, texture);
+    }
+
+    private void upload()
+    {
+        texture = glCreateTextures(GL_TEXTURE_2D);
+        glTextureStorage2D(texture, 1, GL_R8, width, height);
+        glTextureParameteri(texture, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+        glTextureParameteri(texture, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+        glTextureParameteri(texture, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+        glTextureParameteri(texture, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+
+        int alignment = glGetInteger(GL_UNPACK_ALIGNMENT);
+        glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+        glTextureSubImage2D(texture, 0, 0, 0, width, height, GL_RED, GL_UNSIGNED_BYTE,
+            segment.asSlice(pixel_offset, (long) width * height).asByteBuffer());
+        glPixelStorei(GL_UNPACK_ALIGNMENT, alignment);
+    }
+}
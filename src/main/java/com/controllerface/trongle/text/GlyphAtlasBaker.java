@@ -0,0 +1,140 @@
+package com.controllerface.trongle.text;
+
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+import org.lwjgl.util.freetype.FT_Face;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.lwjgl.util.freetype.FreeType.*;
+
+/// Rasterizes a font into a single signed distance field atlas using FreeType's SDF renderer. Glyphs are packed onto
+/// shelves, tallest first, into an atlas of fixed width, and the atlas height is rounded up to a power of two.
+class GlyphAtlasBaker
+{
+    static final char FIRST_CHAR = ' ';
+    static final char LAST_CHAR  = '~';
+
+    /// FreeType's default SDF spread, in pixels on each side of the outline
+    static final int SPREAD = 8;
+
+    private static final int ATLAS_WIDTH = 1024;
+    private static final int PADDING     = 1;
+
+    record BakedGlyph(char character, int width, int height, int bearing_x, int bearing_y, float advance, byte[] pixels) { }
+
+    record Placed(BakedGlyph glyph, int x, int y) { }
+
+    record Result(int width, int height, List<Placed> glyphs, byte[] pixels) { }
+
+    static Result bake(byte[] font, int pixel_size)
+    {
+        var font_buffer = MemoryUtil.memAlloc(font.length).put(font).flip();
+        try (var stack = MemoryStack.stackPush())
+        {
+            var pointer = stack.mallocPointer(1);
+            check(FT_Init_FreeType(pointer), "FT_Init_FreeType");
+            long library = pointer.get(0);
+            try
+            {
+                check(FT_New_Memory_Face(library, font_buffer, 0, pointer), "FT_New_Memory_Face");
+                var face = FT_Face.create(pointer.get(0));
+                try
+                {
+                    check(FT_Set_Pixel_Sizes(face, 0, pixel_size), "FT_Set_Pixel_Sizes");
+                    return pack(render_glyphs(face));
+                }
+                finally
+                {
+                    FT_Done_Face(face);
+                }
+            }
+            finally
+            {
+                FT_Done_FreeType(library);
+            }
+        }
+        finally
+        {
+            MemoryUtil.memFree(font_buffer);
+        }
+    }
+
+    private static void check(int error, String call)
+    {
+        if (error != 0) throw new IllegalStateException(call + " failed with FreeType error: " + error);
+    }
+
+    private static List<BakedGlyph> render_glyphs(FT_Face face)
+    {
+        var glyphs = new ArrayList<BakedGlyph>();
+        for (char c = FIRST_CHAR; c <= LAST_CHAR; c++)
+        {
+            if (FT_Load_Char(face, c, FT_LOAD_DEFAULT) != 0) continue;
+
+            var slot = face.glyph();
+            float advance = slot.advance().x() / 64.0f;
+
+            // outline-less glyphs, like space, only have an advance
+            if (slot.outline().n_points() == 0 || FT_Render_Glyph(slot, FT_RENDER_MODE_SDF) != 0)
+            {
+                glyphs.add(new BakedGlyph(c, 0, 0, 0, 0, advance, new byte[0]));
+                continue;
+            }
+
+            var bitmap = slot.bitmap();
+            int width = bitmap.width();
+            int height = bitmap.rows();
+            int pitch = Math.abs(bitmap.pitch());
+            var pixels = new byte[width * height];
+            var source = bitmap.buffer(pitch * height);
+            if (source != null)
+            {
+                for (int row = 0; row < height; row++)
+                {
+                    source.get(row * pitch, pixels, row * width, width);
+                }
+            }
+            glyphs.add(new BakedGlyph(c, width, height, slot.bitmap_left(), slot.bitmap_top(), advance, pixels));
+        }
+        return glyphs;
+    }
+
+    private static Result pack(List<BakedGlyph> glyphs)
+    {
+        var order = new ArrayList<>(glyphs);
+        order.sort(Comparator.comparingInt(BakedGlyph::height).reversed());
+
+        var placed = new ArrayList<Placed>(order.size());
+        int x = PADDING;
+        int y = PADDING;
+        int shelf_height = 0;
+        for (var glyph : order)
+        {
+            if (x + glyph.width() + PADDING > ATLAS_WIDTH)
+            {
+                x = PADDING;
+                y += shelf_height + PADDING;
+                shelf_height = 0;
+            }
+            placed.add(new Placed(glyph, x, y));
+            x += glyph.width() + PADDING;
+            shelf_height = Math.max(shelf_height, glyph.height());
+        }
+
+        int height = Integer.highestOneBit(Math.max(1, y + shelf_height + PADDING - 1)) << 1;
+        var pixels = new byte[ATLAS_WIDTH * height];
+        for (var next : placed)
+        {
+            var glyph = next.glyph();
+            for (int row = 0; row < glyph.height(); row++)
+            {
+                System.arraycopy(glyph.pixels(), row * glyph.width(),
+                    pixels, (next.y() + row) * ATLAS_WIDTH + next.x(), glyph.width());
+            }
+        }
+        return new Result(ATLAS_WIDTH, height, placed, pixels);
+    }
+}
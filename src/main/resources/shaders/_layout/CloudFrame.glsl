@@ -0,0 +1,12 @@
+layout(std140, binding = 9) uniform CloudFrame
+{
+    mat4 inverseViewProjection;
+    mat4 previousViewProjection;
+    vec2 cloudTargetSize;
+    vec2 cloudScreenSize;
+    vec2 cloudDriftDelta;
+    float cloudHeight;
+    float cloudHalfExtent;
+    float cloudParity;
+    float cloudTime;
+};
@@ -0,0 +1,30 @@
+layout(std140, binding = 10) uniform LightClusterGrid
+{
+    vec4 clusterGrid;   // tiles x, tiles y, slices, 1 once the grid has been built
+    vec4 clusterDepth;  // slice scale and bias over log view depth, screen width and height
+};
+
+layout(std430, binding = 10) readonly buffer LightClusterCells
+{
+    // offset into clusterLights, then point count in the low 16 bits and spot count in the high 16
+    uvec2 clusterCells[];
+};
+
+layout(std430, binding = 11) readonly buffer LightClusterLights
+{
+    uint clusterLights[];
+};
+
+bool cluster_grid_ready()
+{
+    return clusterGrid.w > 0.0;
+}
+
+// the cell holding a fragment, from its window position and its distance in front of the camera
+uint cluster_index(vec2 frag_coord, float view_depth)
+{
+    ivec3 grid = ivec3(clusterGrid.xyz);
+    ivec2 tile = clamp(ivec2(frag_coord / clusterDepth.zw * vec2(grid.xy)), ivec2(0), grid.xy - 1);
+    int slice = clamp(int(floor(log(view_depth) * clusterDepth.x + clusterDepth.y)), 0, grid.z - 1);
+    return uint((slice * grid.y + tile.y) * grid.x + tile.x);
+}
@@ -0,0 +1,6 @@
+layout(std140, binding = 8) uniform NoiseFields
+{
+    vec2 cloudDrift;
+    float cloudNoiseWindow;
+    float terrainNoiseWindow;
+};
@@ -0,0 +1,15 @@
+layout(std140, binding = 7) uniform TerrainLod
+{
+    vec2 lodOrigin;
+    float lodPatchSize;
+    float lodPatches;
+    float lodMinLevel;
+    float lodMaxLevel;
+    float lodPixelsPerUnit;
+    float lodLevelScale;
+};
+
+layout(std430, binding = 7) readonly buffer TerrainPatchVisibility
+{
+    uint patchVisible[];
+};
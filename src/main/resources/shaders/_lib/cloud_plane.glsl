@@ -0,0 +1,24 @@
+// Distance along the view ray through the given NDC position to where it crosses the cloud plane, with the crossing
+// point written to world. Negative when the ray runs parallel to or away from the plane, or crosses it outside the
+// plane's extent or beyond the far plane. Needs the ViewData and CloudFrame layouts.
+float cloud_plane_hit(vec2 ndc, out vec3 world)
+{
+    vec4 near = inverseViewProjection * vec4(ndc, -1.0, 1.0);
+    vec4 far = inverseViewProjection * vec4(ndc, 1.0, 1.0);
+    vec3 origin = near.xyz / near.w;
+    vec3 direction = normalize(far.xyz / far.w - origin);
+
+    world = vec3(0.0);
+    if (abs(direction.y) < 1e-6) return -1.0;
+
+    float distance = (cloudHeight - origin.y) / direction.y;
+    if (distance < 0.0) return -1.0;
+
+    world = origin + direction * distance;
+    if (any(greaterThan(abs(world.xz), vec2(cloudHalfExtent)))) return -1.0;
+
+    vec4 clip = viewProjection * vec4(world, 1.0);
+    if (clip.z > clip.w) return -1.0;
+
+    return distance;
+}
@@ -0,0 +1,53 @@
+#version 460 core
+
+#layout "ViewData.glsl"
+#layout "CloudFrame.glsl"
+
+#include "cloud_plane.glsl"
+
+out vec4 FragColor;
+
+layout (binding = 0) uniform sampler2D cloudColor;
+layout (binding = 1) uniform sampler2D cloudDistance;
+
+// relative difference in distance along the view ray at which a low resolution texel's weight falls off
+const float DISTANCE_TOLERANCE = 0.05;
+
+void main()
+{
+    vec2 ndc = gl_FragCoord.xy / cloudScreenSize * 2.0 - 1.0;
+    vec3 world;
+    float distance = cloud_plane_hit(ndc, world);
+    if (distance < 0.0) discard;
+
+    // the four low resolution texels around this pixel, weighted bilinearly and by how close each one's distance to
+    // the plane is to this pixel's, so texels past the edge of the plane or across a steep change don't bleed in
+    vec2 position = gl_FragCoord.xy / cloudScreenSize * cloudTargetSize - 0.5;
+    ivec2 base = ivec2(floor(position));
+    vec2 f = fract(position);
+    ivec2 last = ivec2(cloudTargetSize) - 1;
+
+    vec4 color = vec4(0.0);
+    float total = 0.0;
+    for (int i = 0; i < 4; i++)
+    {
+        ivec2 offset = ivec2(i & 1, i >> 1);
+        ivec2 texel = clamp(base + offset, ivec2(0), last);
+
+        float texel_distance = texelFetch(cloudDistance, texel, 0).r;
+        if (texel_distance < 0.0) continue;
+
+        vec2 bilinear = mix(1.0 - f, f, vec2(offset));
+        float weight = bilinear.x * bilinear.y
+            * exp(-abs(texel_distance - distance) / (distance * DISTANCE_TOLERANCE));
+
+        color += texelFetch(cloudColor, texel, 0) * weight;
+        total += weight;
+    }
+    if (total <= 1e-6) discard;
+
+    // the plane's own depth, so the scene's depth buffer hides clouds behind geometry
+    vec4 clip = viewProjection * vec4(world, 1.0);
+    gl_FragDepth = clip.z / clip.w * 0.5 + 0.5;
+    FragColor = color / total;
+}
@@ -0,0 +1,93 @@
+#version 460 core
+
+#include "map.glsl"
+
+#struct "Light.glsl"
+#struct "DirectionalLight.glsl"
+
+#layout "ViewData.glsl"
+#layout "GlobalLight.glsl"
+#layout "NoiseFields.glsl"
+#layout "CloudFrame.glsl"
+
+#include "cloud_plane.glsl"
+
+layout (location = 0) out vec4 CloudColor;
+layout (location = 1) out float CloudDistance;
+
+// the previous frame's low resolution clouds
+layout (binding = 0) uniform sampler2D cloudHistory;
+layout (binding = 14) uniform sampler2D cloudNoise;
+
+vec4 calculate_world_light(DirectionalLight light, vec3 normal)
+{
+    vec4 ambient_color = vec4(light.light.color.xyz * light.light.aIntensity, 1.0f);
+    vec3 n_norm = normalize(normal);
+    float diffuse_factor = max(dot(n_norm, -light.direction.xyz), 0);
+    vec4 diffuse_color = vec4( light.light.color.xyz * light.light.dIntensity * diffuse_factor, 1.0f);
+    vec4 f = (ambient_color + diffuse_color);
+    f.x = max(f.x, 0.05f);
+    f.y = max(f.y, 0.05f);
+    f.z = max(f.z, 0.05f);
+    return f;
+}
+
+// the same shading as the full resolution cloud pass
+vec4 shade(vec2 world_xz)
+{
+    float vn1 = texture(cloudNoise, (world_xz + cloudDrift) / cloudNoiseWindow).r;
+
+    // Fake a second "layer" by warping the first one
+    float vn2 = vn1 + sin(vn1 * 5.0f + cloudTime * 0.1) * 0.3;
+
+    vn1 = map(vn1, -1.0f, 1.0f, -2.0f, 2.0f);
+    vn2 = map(vn2, -1.0f, 1.0f, -2.0f, 2.0f);
+
+    float cloudDensity = mix(vn1, vn2, 0.5);
+
+    // Fake derivatives based on the value itself
+    float height = vn1;
+    float nx = sin(height * 0.1 + cloudTime) * 0.1;
+    float nz = cos(height * 0.1 + cloudTime) * 0.1;
+    vec3 normal = normalize(vec3(nx, 1.0, nz));
+
+    vec4 light = calculate_world_light(sun, normal) + calculate_world_light(moon, normal);
+    return vec4(cloudDensity.xxx * light.rgb, 0.5);
+}
+
+void main()
+{
+    vec2 ndc = gl_FragCoord.xy / cloudTargetSize * 2.0 - 1.0;
+    vec3 world;
+    float distance = cloud_plane_hit(ndc, world);
+    if (distance < 0.0)
+    {
+        CloudColor = vec4(0.0);
+        CloudDistance = -1.0;
+        return;
+    }
+    CloudDistance = distance;
+
+    // with a negative parity every texel is shaded, otherwise only every other one in a checkerboard, alternating
+    // each frame, and the rest are taken from where the same cloud was in the previous frame
+    ivec2 texel = ivec2(gl_FragCoord.xy);
+    bool reuse = cloudParity >= 0.0 && ((texel.x + texel.y + int(cloudParity)) & 1) == 1;
+    if (reuse)
+    {
+        // the noise drifts along with the clouds, so a cloud seen here was drifted back by the delta last frame
+        vec2 previous_xz = world.xz + cloudDriftDelta;
+        vec4 clip = previousViewProjection * vec4(previous_xz.x, cloudHeight, previous_xz.y, 1.0);
+        vec2 uv = clip.xy / clip.w * 0.5 + 0.5;
+        if (clip.w > 0.0 && all(greaterThanEqual(uv, vec2(0.0))) && all(lessThanEqual(uv, vec2(1.0))))
+        {
+            vec4 history = texture(cloudHistory, uv);
+            if (history.a > 0.0)
+            {
+                CloudColor = history;
+                return;
+            }
+        }
+    }
+
+    CloudColor = shade(world.xz);
+}
@@ -4,8 +4,6 @@
 #define MAX_SHININESS 9
 #define INTENSITY_SCALE 0.00014641288433382138;
 
-#include "bias.glsl"
-
 #struct "Light.glsl"
 #struct "DirectionalLight.glsl"
 #struct "PointLight.glsl"
@@ -13,6 +11,7 @@
 
 #layout "ViewData.glsl"
 #layout "GlobalLight.glsl"
+#layout "LightClusters.glsl"
 
 out vec4 fragColor;
 in vec4 vColor;
@@ -40,8 +39,8 @@ layout(std430, binding = 1) readonly buffer SpotLights
 uniform sampler2DArray diffuseMaps;
 uniform sampler2DArray surfaceMaps;
 uniform sampler2DArray normalMaps;
-uniform samplerCube skybox;
-uniform samplerCube skyboxNight;
+// day and night skies, blended ahead of time by SkyBlendSystem, which keeps it bound to this unit
+layout (binding = 10) uniform samplerCube skyReflection;
 uniform sampler2DShadow shadowMap;
 
 float calculateShadow(vec3 normal, vec4 fragPosLightSpace)
@@ -61,16 +60,12 @@ float calculateShadow(vec3 normal, vec4 fragPosLightSpace)
 
 vec4 computeReflection(vec3 viewDirection, vec3 normal, vec4 diffuseColor, float metallic, float roughness)
 {
-    float biased = bias(blend, .8);
-
-    ivec2 cubemapSize = textureSize(skybox, 0);
+    ivec2 cubemapSize = textureSize(skyReflection, 0);
     float mipLevels = 1.0 + floor(log2(max(float(cubemapSize.x), float(cubemapSize.y))));
     float lodLevel = mipLevels * sqrt(roughness);
     vec3 reflected_direction = -reflect(-viewDirection, normal);
 
-    vec4 reflectedColorA = textureLod(skybox, reflected_direction, lodLevel);
-    vec4 reflectedColorB = textureLod(skyboxNight, reflected_direction, lodLevel);
-    vec4 reflectedColor = mix(reflectedColorA, reflectedColorB, biased);
+    vec4 reflectedColor = textureLod(skyReflection, reflected_direction, lodLevel);
     float fresnel = pow(1.0 - max(dot(viewDirection, normal), 0.0), 5.0);
     vec4 reflectionContribution = mix(reflectedColor * diffuseColor, reflectedColor, metallic);
     return reflectionContribution * fresnel;
@@ -182,16 +177,41 @@ void main()
     calculate_world_light(normal, surface, ambient, direct);
     vec4 light = ambient + direct * (1.0 - shadow);
 
-    for (int i = 0; i < point_light_count; i ++)
+    if (cluster_grid_ready())
     {
-        PointLight point_light = point_lights[i];
-        light += calc_point_light(point_light, normal, surface);
-    }
+        // only the lights listed for this fragment's cluster can reach it
+        float view_depth = -(view * vec4(vert_in.FragPos, 1.0)).z;
+        uvec2 cell = clusterCells[cluster_index(gl_FragCoord.xy, view_depth)];
+        uint point_count = cell.y & 0xFFFFu;
+        uint spot_count = cell.y >> 16;
 
-    for (int j = 0; j < spot_light_count; j ++)
+        for (uint i = 0u; i < point_count; i ++)
+        {
+            uint index = clusterLights[cell.x + i];
+            if (index >= uint(point_light_count)) continue;
+            light += calc_point_light(point_lights[index], normal, surface);
+        }
+
+        for (uint j = 0u; j < spot_count; j ++)
+        {
+            uint index = clusterLights[cell.x + point_count + j];
+            if (index >= uint(spot_light_count)) continue;
+            light += calc_spot_light(spot_lights[index], normal, surface);
+        }
+    }
+    else
     {
-        SpotLight spot_light = spot_lights[j];
-        light += calc_spot_light(spot_light, normal, surface);
+        for (int i = 0; i < point_light_count; i ++)
+        {
+            PointLight point_light = point_lights[i];
+            light += calc_point_light(point_light, normal, surface);
+        }
+
+        for (int j = 0; j < spot_light_count; j ++)
+        {
+            SpotLight spot_light = spot_lights[j];
+            light += calc_spot_light(spot_light, normal, surface);
+        }
     }
 
     vec3 view_direction = normalize(vert_in.FragPos - viewPosition);
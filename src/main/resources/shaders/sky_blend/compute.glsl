@@ -0,0 +1,44 @@
+#version 460 core
+
+#include "bias.glsl"
+
+layout (local_size_x = 8, local_size_y = 8, local_size_z = 1) in;
+
+layout (binding = 0) uniform samplerCube skyDay;
+layout (binding = 1) uniform samplerCube skyNight;
+
+// the skybox and model reflections blend the skies with different biases, so each gets its own image
+layout (binding = 0, rgba8) uniform writeonly imageCube skyBlended;
+layout (binding = 1, rgba8) uniform writeonly imageCube reflectionBlended;
+
+uniform float blend;
+uniform float lod;
+
+// direction through the center of a texel, following the GL cube map face orientation
+vec3 faceDirection(uint face, vec2 st)
+{
+    switch (face)
+    {
+        case 0u: return vec3( 1.0, -st.y, -st.x);
+        case 1u: return vec3(-1.0, -st.y,  st.x);
+        case 2u: return vec3( st.x,  1.0,  st.y);
+        case 3u: return vec3( st.x, -1.0, -st.y);
+        case 4u: return vec3( st.x, -st.y,  1.0);
+        default: return vec3(-st.x, -st.y, -1.0);
+    }
+}
+
+void main()
+{
+    ivec2 size = imageSize(skyBlended);
+    ivec3 texel = ivec3(gl_GlobalInvocationID);
+    if (texel.x >= size.x || texel.y >= size.y) return;
+
+    vec2 st = (vec2(texel.xy) + 0.5) / vec2(size) * 2.0 - 1.0;
+    vec3 direction = faceDirection(gl_GlobalInvocationID.z, st);
+
+    vec3 day = textureLod(skyDay, direction, lod).rgb;
+    vec3 night = textureLod(skyNight, direction, lod).rgb;
+    imageStore(skyBlended, texel, vec4(mix(day, night, bias(blend, .85)), 1.0));
+    imageStore(reflectionBlended, texel, vec4(mix(day, night, bias(blend, .8)), 1.0));
+}
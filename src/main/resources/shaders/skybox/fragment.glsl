@@ -1,23 +1,13 @@
 #version 460 core
 
-#include "bias.glsl"
-
-#struct "Light.glsl"
-#struct "DirectionalLight.glsl"
-
-#layout "GlobalLight.glsl"
-
 out vec4 FragColor;
 
 in vec3 TexCoords;
 
-uniform samplerCube skybox;
-uniform samplerCube skyboxDark;
+// day and night skies, blended ahead of time by SkyBlendSystem, which keeps it bound to this unit
+layout (binding = 15) uniform samplerCube skyEnvironment;
 
 void main()
 {
-    float biased = bias(blend, .85);
-    vec3 day = textureLod(skybox, TexCoords, 0).rgb;
-    vec3 night = textureLod(skyboxDark, TexCoords, 0).rgb;
-    FragColor = vec4(mix(day, night, biased), 1.0f);
+    FragColor = vec4(textureLod(skyEnvironment, TexCoords, 0).rgb, 1.0f);
 }
\ No newline at end of file
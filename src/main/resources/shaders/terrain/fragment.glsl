@@ -1,6 +1,5 @@
 #version 460 core
 
-#include "FastNoiseLite.glsl"
 #include "map.glsl"
 
 #struct "Light.glsl"
@@ -8,6 +7,7 @@
 
 #layout "ViewData.glsl"
 #layout "GlobalLight.glsl"
+#layout "NoiseFields.glsl"
 
 in vec3 WorldCoord;
 in vec2 Tex3;
@@ -32,7 +32,8 @@ uniform sampler2D terrainHighNormal;
 uniform sampler2D terrainTopNormal;
 
 uniform float uTime;
-const float speed1 = 15; // Slow movement (higher altitude)
+
+layout (binding = 14) uniform sampler2D cloudNoise;
 
 
 
@@ -206,17 +207,8 @@ void main()
 
 
 
-    fnl_state Vnoise = fnlCreateState(1581);
-    Vnoise.noise_type = FNL_NOISE_OPENSIMPLEX2;
-    Vnoise.fractal_type = FNL_FRACTAL_FBM;
-    Vnoise.frequency = 0.0001;
-    Vnoise.octaves = 3;
-
-    vec2 driftOffset1 = vec2(uTime * speed1, 0);//uTime * speed1 * 0.5);
-    //vec2 driftOffset2 = vec2(uTime * speed2, uTime * speed2 * 0.3);
-
-    float vn1 = fnlGetNoise2D(Vnoise, WorldCoord.x + driftOffset1.x, WorldCoord.z + driftOffset1.y);
-    //float vn2 = fnlGetNoise2D(Vnoise, WorldXZ.x + driftOffset2.x, WorldXZ.y + driftOffset2.y);
+    // cloud shadows sample the same baked noise as the cloud layer, so they line up with the clouds overhead
+    float vn1 = texture(cloudNoise, (WorldCoord.xz + cloudDrift) / cloudNoiseWindow).r;
 
     // Fake a second "layer" by warping or distorting the first one
     float vn2 = vn1 + sin(vn1 * 5.0f + uTime * 0.1) * 0.3;
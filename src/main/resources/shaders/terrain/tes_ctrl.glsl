@@ -1,6 +1,7 @@
 #version 460 core
 
 #layout "ViewData.glsl"
+#layout "TerrainLod.glsl"
 
 layout(vertices = 4) out;
 
@@ -19,10 +20,26 @@ out vec3 Bitangent2[];
 in vec3 Color1[];
 out vec3 Color2[];
 
-const int MIN_TESS_LEVEL = 32;
-const int MAX_TESS_LEVEL = 64;
-const float MIN_DISTANCE = 3500;
-const float MAX_DISTANCE = 5000;
+// patches are culled on the CPU, which sets one bit per visible patch, row by row over the patch grid
+bool patch_visible()
+{
+    vec2 center = (gl_in[0].gl_Position.xz + gl_in[1].gl_Position.xz
+                 + gl_in[2].gl_Position.xz + gl_in[3].gl_Position.xz) * 0.25;
+    int patches = int(lodPatches);
+    ivec2 cell = clamp(ivec2(floor((center - lodOrigin) / lodPatchSize)), ivec2(0), ivec2(patches - 1));
+    int index = cell.y * patches + cell.x;
+    return (patchVisible[index >> 5] & (1u << uint(index & 31))) != 0u;
+}
+
+// splits an edge into segments of roughly equal projected size on screen. The level only depends on the edge's own
+// corners, so the two patches that share an edge always agree on it and no cracks open between them.
+float edge_level(vec4 a, vec4 b)
+{
+    vec3 midpoint = (a.xyz + b.xyz) * 0.5;
+    float distance_to_edge = max(distance(viewPosition, midpoint), 1.0);
+    float level = distance(a.xyz, b.xyz) * lodPixelsPerUnit * lodLevelScale / distance_to_edge;
+    return clamp(level, lodMinLevel, lodMaxLevel);
+}
 
 void main()
 {
@@ -35,20 +52,22 @@ void main()
 
     if (gl_InvocationID == 0)
     {
-        vec4 eyeSpacePos00 = view * gl_in[0].gl_Position;
-        vec4 eyeSpacePos01 = view * gl_in[1].gl_Position;
-        vec4 eyeSpacePos10 = view * gl_in[2].gl_Position;
-        vec4 eyeSpacePos11 = view * gl_in[3].gl_Position;
-
-        float distance00 = clamp((abs(eyeSpacePos00.z)-MIN_DISTANCE) / (MAX_DISTANCE-MIN_DISTANCE), 0.0, 1.0);
-        float distance01 = clamp((abs(eyeSpacePos01.z)-MIN_DISTANCE) / (MAX_DISTANCE-MIN_DISTANCE), 0.0, 1.0);
-        float distance10 = clamp((abs(eyeSpacePos10.z)-MIN_DISTANCE) / (MAX_DISTANCE-MIN_DISTANCE), 0.0, 1.0);
-        float distance11 = clamp((abs(eyeSpacePos11.z)-MIN_DISTANCE) / (MAX_DISTANCE-MIN_DISTANCE), 0.0, 1.0);
-
-        float tessLevel0 = mix(MAX_TESS_LEVEL, MIN_TESS_LEVEL, min(distance10, distance00));
-        float tessLevel1 = mix(MAX_TESS_LEVEL, MIN_TESS_LEVEL, min(distance00, distance01));
-        float tessLevel2 = mix(MAX_TESS_LEVEL, MIN_TESS_LEVEL, min(distance01, distance11));
-        float tessLevel3 = mix(MAX_TESS_LEVEL, MIN_TESS_LEVEL, min(distance11, distance10));
+        if (!patch_visible())
+        {
+            // a zero outer level discards the patch before evaluation
+            gl_TessLevelOuter[0] = 0.0;
+            gl_TessLevelOuter[1] = 0.0;
+            gl_TessLevelOuter[2] = 0.0;
+            gl_TessLevelOuter[3] = 0.0;
+            gl_TessLevelInner[0] = 0.0;
+            gl_TessLevelInner[1] = 0.0;
+            return;
+        }
+
+        float tessLevel0 = edge_level(gl_in[2].gl_Position, gl_in[0].gl_Position);
+        float tessLevel1 = edge_level(gl_in[0].gl_Position, gl_in[1].gl_Position);
+        float tessLevel2 = edge_level(gl_in[1].gl_Position, gl_in[3].gl_Position);
+        float tessLevel3 = edge_level(gl_in[3].gl_Position, gl_in[2].gl_Position);
 
         gl_TessLevelOuter[0] = tessLevel0;
         gl_TessLevelOuter[1] = tessLevel1;
@@ -1,9 +1,9 @@
 #version 460 core
 
-#include "FastNoiseLite.glsl"
 #include "map.glsl"
 
 #layout "ViewData.glsl"
+#layout "NoiseFields.glsl"
 
 layout(quads) in;
 
@@ -25,6 +25,10 @@ uniform float gHeight1;
 uniform float gHeight2;
 uniform float gHeight3;
 
+layout (binding = 13) uniform sampler2D terrainPerturbNoise;
+layout (binding = 12) uniform sampler2D terrainSaturationNoise;
+layout (binding = 11) uniform sampler2D terrainValueNoise;
+
 
 float choose_hue(float height)
 {
@@ -88,12 +92,7 @@ float perturb_value(vec2 pos, float value, float accuracy, float spread)
     if (accuracy < 0.0) accuracy = 0.0;
     if (accuracy > 1.0) accuracy = 1.0;
 
-    float n;
-    fnl_state Vnoise = fnlCreateState(872582);
-    Vnoise.noise_type = FNL_NOISE_PERLIN;
-    Vnoise.fractal_type = FNL_FRACTAL_FBM;
-    Vnoise.octaves = 1;
-    n = fnlGetNoise2D(Vnoise, pos.x, pos.y);
+    float n = texture(terrainPerturbNoise, pos / terrainNoiseWindow).r;
 
     float deviationScale = (1.0 - accuracy) * spread;
     float perturbation = (n * 2.0 - 1.0) * deviationScale;
@@ -204,17 +203,10 @@ void main()
 
     Tex3low = WorldCoord.xz * 0.002;      // much lower tiling frequency
 
-    fnl_state Vnoise = fnlCreateState(872582);
-    fnl_state Snoise = fnlCreateState(398349);
-    Vnoise.noise_type = FNL_NOISE_OPENSIMPLEX2;
-    Vnoise.fractal_type = FNL_FRACTAL_FBM;
-    Snoise.noise_type = FNL_NOISE_OPENSIMPLEX2;
-    Snoise.fractal_type = FNL_FRACTAL_FBM;
-
     float hue = choose_hue(worldPos.y);
 
-    float vn = fnlGetNoise2D(Vnoise, uv.x, uv.y);
-    float sn = fnlGetNoise2D(Snoise, uv.x, uv.y);
+    float vn = texture(terrainValueNoise, uv).r;
+    float sn = texture(terrainSaturationNoise, uv).r;
 
     sn = map(sn, -1.0f, 1.0f, 0.0f, 1.0f);
     vn = map(vn, -1.0f, 1.0f, 0.0f, 1.0f);
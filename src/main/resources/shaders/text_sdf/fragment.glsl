@@ -0,0 +1,21 @@
+#version 460 core
+
+in vec2 f_tex_coords;
+flat in float f_tex_id;
+
+out vec4 color;
+
+uniform sampler2D uTexture;
+
+void main()
+{
+    vec3 textColor = vec3(1.0, 1.0, 1.0);
+
+    // the outline sits at the middle of the distance range, fwidth keeps the edge about one pixel wide at any scale
+    float distance = texture(uTexture, f_tex_coords).r;
+    float edge = fwidth(distance) * 0.5;
+    float alpha = smoothstep(0.5 - edge, 0.5 + edge, distance);
+
+    if (alpha > 0) color = vec4(textColor, alpha);
+    else discard;
+}
@@ -0,0 +1,105 @@
+package com.controllerface.trongle.behavior;
+
+import org.joml.Vector3d;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Checks that the executor's budget defers behaviors to later ticks, nearest the focus first, without losing time.
+class BehaviorExecutorTest
+{
+    private static final double DT = 1.0 / 60.0;
+    private static final long UNBOUNDED_US = 60_000_000L;
+
+    private final ForkJoinPool pool = new ForkJoinPool(1);
+
+    /// With a single thread and one behavior per partition, each wave runs four behaviors, and a budget of zero stops
+    /// every execution after its first wave.
+    private final BehaviorExecutor executor = new BehaviorExecutor(pool, 1, 0, 100.0, 1.5);
+
+    private final Vector3d focus = new Vector3d();
+    // partitions may run on the pool and on the calling thread at once
+    private final List<String> ran = Collections.synchronizedList(new ArrayList<>());
+    private final List<Double> ran_dt = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void shutdown_pool()
+    {
+        pool.shutdown();
+    }
+
+    private void add(String name, double distance)
+    {
+        executor.add(dt ->
+        {
+            ran.add(name);
+            ran_dt.add(dt);
+        }, 1, new Vector3d(distance, 0.0, 0.0));
+    }
+
+    @Test
+    void budget_overrun_defers_far_behaviors_to_the_next_tick()
+    {
+        // far entities are added first, so running near ones first is down to priority and not to order
+        for (int i = 0; i < 4; i++) add("far_" + i, 1000.0);
+        for (int i = 0; i < 4; i++) add("near_" + i, 0.0);
+
+        executor.execute(DT, null, focus);
+        assertEquals(8, executor.last_due_count());
+        assertEquals(4, executor.last_run_count());
+        assertTrue(ran.stream().allMatch(name -> name.startsWith("near_")), "first tick ran " + ran);
+
+        ran.clear();
+        ran_dt.clear();
+        executor.execute(DT, null, focus);
+
+        // the deferred behaviors waited two ticks, so they now outrank the near ones that ran one tick ago
+        assertEquals(8, executor.last_due_count());
+        assertEquals(4, executor.last_run_count());
+        assertTrue(ran.stream().allMatch(name -> name.startsWith("far_")), "second tick ran " + ran);
+        for (double dt : ran_dt)
+        {
+            assertEquals(2 * DT, dt, 1e-12, "deferred behaviors are passed the time since they last ran");
+        }
+    }
+
+    @Test
+    void everything_due_runs_when_the_budget_allows()
+    {
+        var unbounded = new BehaviorExecutor(pool, 1, UNBOUNDED_US, 100.0, 1.5);
+        for (int i = 0; i < 10; i++)
+        {
+            String name = "entity_" + i;
+            unbounded.add(_ -> ran.add(name), 1, null);
+        }
+
+        unbounded.execute(DT, null, null);
+        assertEquals(10, unbounded.last_due_count());
+        assertEquals(10, unbounded.last_run_count());
+        assertEquals(10, ran.size());
+    }
+
+    @Test
+    void intervals_stagger_behaviors_across_ticks()
+    {
+        var unbounded = new BehaviorExecutor(pool, 1, UNBOUNDED_US, 100.0, 1.5);
+        for (int i = 0; i < 8; i++)
+        {
+            String name = "entity_" + i;
+            unbounded.add(_ -> ran.add(name), 4, null);
+        }
+
+        for (int tick = 0; tick < 4; tick++)
+        {
+            ran.clear();
+            unbounded.execute(DT, null, null);
+            assertEquals(2, ran.size(), "tick " + tick + " ran " + ran);
+        }
+    }
+}
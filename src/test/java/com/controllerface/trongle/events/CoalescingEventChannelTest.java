@@ -0,0 +1,108 @@
+package com.controllerface.trongle.events;
+
+import com.juncture.alloy.events.Event;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Checks that the channel keeps only the newest event of each type, and that draining while publishing loses nothing.
+class CoalescingEventChannelTest
+{
+    private record Valued(GameEvent type, long value) implements Event
+    {
+    }
+
+    private final CoalescingEventChannel channel =
+        new CoalescingEventChannel("test", GameEvent.SYSTEM_TIMING, GameEvent.HUD_TELEMETRY);
+
+    @Test
+    void burst_of_one_type_delivers_only_the_latest()
+    {
+        for (int i = 0; i < 100; i++)
+        {
+            assertTrue(channel.offer(new Valued(GameEvent.SYSTEM_TIMING, i)));
+        }
+        assertEquals(1, channel.size());
+        assertEquals(99, ((Valued) channel.poll()).value());
+        assertNull(channel.poll());
+        assertEquals(99, channel.coalesced());
+    }
+
+    @Test
+    void types_do_not_overwrite_each_other()
+    {
+        channel.offer(new Valued(GameEvent.SYSTEM_TIMING, 1));
+        channel.offer(new Valued(GameEvent.HUD_TELEMETRY, 2));
+        channel.offer(new Valued(GameEvent.SYSTEM_TIMING, 3));
+
+        List<Event> polled = new ArrayList<>();
+        Event event;
+        while ((event = channel.poll()) != null)
+        {
+            polled.add(event);
+        }
+        assertEquals(2, polled.size());
+        assertTrue(polled.contains(new Valued(GameEvent.SYSTEM_TIMING, 3)));
+        assertTrue(polled.contains(new Valued(GameEvent.HUD_TELEMETRY, 2)));
+        assertEquals(1, channel.coalesced());
+    }
+
+    @Test
+    void types_it_does_not_coalesce_are_refused()
+    {
+        assertFalse(channel.offer(new Valued(GameEvent.ENTITY_DESTROYED, 1)));
+        assertEquals(0, channel.size());
+        assertEquals(0, channel.coalesced());
+    }
+
+    /// A producer publishes increasing values of both types while the consumer drains. Every event must either be
+    /// polled or counted as coalesced, each type must be seen in increasing order, and the last value of each type must
+    /// always reach the consumer.
+    @Test
+    @Timeout(30)
+    void drain_concurrent_with_publish_loses_nothing() throws InterruptedException
+    {
+        final int per_type = 500_000;
+        var producer = new Thread(() ->
+        {
+            for (long i = 0; i < per_type; i++)
+            {
+                channel.offer(new Valued(GameEvent.SYSTEM_TIMING, i));
+                channel.offer(new Valued(GameEvent.HUD_TELEMETRY, i));
+            }
+        });
+        producer.start();
+
+        long polled = 0;
+        long last_timing = -1;
+        long last_telemetry = -1;
+        while (last_timing < per_type - 1 || last_telemetry < per_type - 1)
+        {
+            var event = (Valued) channel.poll();
+            if (event == null)
+            {
+                Thread.onSpinWait();
+                continue;
+            }
+            polled++;
+            if (event.type() == GameEvent.SYSTEM_TIMING)
+            {
+                assertTrue(event.value() > last_timing, "timing went back to " + event.value());
+                last_timing = event.value();
+            }
+            else
+            {
+                assertTrue(event.value() > last_telemetry, "telemetry went back to " + event.value());
+                last_telemetry = event.value();
+            }
+        }
+        producer.join();
+
+        assertNull(channel.poll());
+        assertEquals(2L * per_type, polled + channel.coalesced());
+    }
+}
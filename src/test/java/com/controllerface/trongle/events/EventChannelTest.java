@@ -0,0 +1,199 @@
+package com.controllerface.trongle.events;
+
+import com.juncture.alloy.events.Event;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Checks ordering, capacity and overflow handling of the ring, single threaded and with producers racing the consumer.
+class EventChannelTest
+{
+    private record Numbered(GameEvent type, int producer, long value) implements Event
+    {
+        Numbered(int producer, long value)
+        {
+            this(GameEvent.SYSTEM_TIMING, producer, value);
+        }
+    }
+
+    @Test
+    void capacity_rounds_up_to_a_power_of_two_of_at_least_two()
+    {
+        assertEquals(2, new EventChannel("test", 1).capacity());
+        assertEquals(2, new EventChannel("test", 2).capacity());
+        assertEquals(4, new EventChannel("test", 3).capacity());
+        assertEquals(4, new EventChannel("test", 4).capacity());
+        assertEquals(8, new EventChannel("test", 5).capacity());
+        assertEquals(1024, new EventChannel("test", 1000).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new EventChannel("test", 0));
+    }
+
+    @Test
+    void events_are_polled_in_emit_order_across_many_wraps()
+    {
+        var channel = new EventChannel("test", 8);
+        long next_in = 0;
+        long next_out = 0;
+        // uneven batch sizes move the head and tail around the ring at different offsets
+        for (int round = 0; round < 100; round++)
+        {
+            int batch = 1 + round % 8;
+            for (int i = 0; i < batch; i++)
+            {
+                assertTrue(channel.offer(new Numbered(0, next_in++)));
+            }
+            assertEquals(batch, channel.size());
+            assertEquals(next_out, ((Numbered) channel.peek()).value());
+            Event event;
+            while ((event = channel.poll()) != null)
+            {
+                assertEquals(next_out++, ((Numbered) event).value());
+            }
+        }
+        assertEquals(next_in, next_out);
+        assertEquals(0, channel.drops());
+    }
+
+    @Test
+    void full_channel_applies_its_overflow_policy()
+    {
+        var newest = new EventChannel("test", 4, OverflowPolicy.DROP_NEWEST, 4);
+        var oldest = new EventChannel("test", 4, OverflowPolicy.DROP_OLDEST, 4);
+        var fail = new EventChannel("test", 4, OverflowPolicy.FAIL, 4);
+        for (int i = 0; i < 6; i++)
+        {
+            newest.offer(new Numbered(0, i));
+            oldest.offer(new Numbered(0, i));
+        }
+        for (int i = 0; i < 4; i++)
+        {
+            fail.offer(new Numbered(0, i));
+        }
+
+        assertEquals(2, newest.drops());
+        assertEquals(2, oldest.drops());
+        assertEquals(0, ((Numbered) newest.poll()).value());
+        assertEquals(2, ((Numbered) oldest.poll()).value());
+        assertThrows(IllegalStateException.class, () -> fail.offer(new Numbered(0, 4)));
+        assertEquals(4, newest.high_water_mark());
+    }
+
+    /// A producer overflowing a small drop-oldest channel takes from the head while the consumer is polling it, so
+    /// both sides race for the same slots. Each event must go to exactly one of them: the consumer sees an increasing
+    /// run of values, and what it saw plus what was dropped accounts for every event emitted.
+    @Test
+    @Timeout(30)
+    void drop_oldest_races_the_consumer_without_losing_or_repeating_events() throws InterruptedException
+    {
+        final int total = 500_000;
+        var channel = new EventChannel("test", 16, OverflowPolicy.DROP_OLDEST, 16);
+        var done = new AtomicBoolean(false);
+        var received = new ArrayList<Long>();
+
+        var consumer = new Thread(() ->
+        {
+            while (true)
+            {
+                // read before polling, so nothing emitted before the producer finished can be missed
+                boolean finished = done.get();
+                var event = channel.poll();
+                if (event != null) received.add(((Numbered) event).value());
+                else if (finished) break;
+                else Thread.onSpinWait();
+            }
+        });
+        for (long i = 0; i < total; i++)
+        {
+            // overflowing before the consumer starts guarantees the drop path is taken at least this often
+            if (i == 32) consumer.start();
+            channel.offer(new Numbered(0, i));
+        }
+        done.set(true);
+        consumer.join();
+
+        assertTrue(channel.drops() >= 16);
+        assertEquals(total, received.size() + channel.drops());
+        for (int i = 1; i < received.size(); i++)
+        {
+            assertTrue(received.get(i) > received.get(i - 1),
+                "event " + received.get(i) + " polled after " + received.get(i - 1));
+        }
+        assertEquals(0, channel.depth());
+    }
+
+    /// Several producers block on a small channel while one consumer drains it. Every event must arrive exactly once,
+    /// and events from any one producer must arrive in the order that producer emitted them.
+    @Test
+    @Timeout(30)
+    void concurrent_producers_lose_and_repeat_nothing() throws InterruptedException
+    {
+        final int producers = 4;
+        final int per_producer = 200_000;
+        var channel = new EventChannel("test", 64, OverflowPolicy.BLOCK, 64);
+
+        var threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++)
+        {
+            int producer = p;
+            var thread = new Thread(() ->
+            {
+                for (long i = 0; i < per_producer; i++)
+                {
+                    channel.offer(new Numbered(producer, i));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        var next = new long[producers];
+        long received = 0;
+        while (received < (long) producers * per_producer)
+        {
+            var event = channel.poll();
+            if (event == null)
+            {
+                Thread.onSpinWait();
+                continue;
+            }
+            var numbered = (Numbered) event;
+            assertEquals(next[numbered.producer()]++, numbered.value(),
+                "producer " + numbered.producer() + " delivered out of order or twice");
+            received++;
+        }
+        for (var thread : threads)
+        {
+            thread.join();
+        }
+
+        assertNull(channel.poll());
+        for (int p = 0; p < producers; p++)
+        {
+            assertEquals(per_producer, next[p]);
+        }
+        assertEquals(0, channel.drops());
+        assertTrue(channel.high_water_mark() <= channel.capacity());
+    }
+
+    @Test
+    void iterator_lists_queued_events_oldest_first()
+    {
+        var channel = new EventChannel("test", 4);
+        for (int i = 0; i < 6; i++)
+        {
+            channel.offer(new Numbered(0, i));
+            if (i % 2 == 0) channel.poll();
+        }
+        List<Long> listed = new ArrayList<>();
+        for (var event : channel)
+        {
+            listed.add(((Numbered) event).value());
+        }
+        assertEquals(List.of(3L, 4L, 5L), listed);
+    }
+}
@@ -0,0 +1,121 @@
+package com.controllerface.trongle.hud;
+
+import com.juncture.alloy.ui.SnapPosition;
+import com.juncture.alloy.ui.TextContainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Checks fixed-point formatting edge cases, and that rate limited slots hold and later show their latest text.
+class HudTextSlotsTest
+{
+    private static final long MS = 1_000_000L;
+
+    private final Map<String, TextContainer> text_boxes = new HashMap<>();
+    private final HudTextSlots slots = new HudTextSlots(4, 16);
+
+    private static String format(double value, int decimals, int buffer_length)
+    {
+        var out = new char[buffer_length];
+        int length = HudTextSlots.format(value, decimals, out);
+        return new String(out, 0, length);
+    }
+
+    private static String format(double value, int decimals)
+    {
+        return format(value, decimals, 32);
+    }
+
+    @BeforeEach
+    void bind_text_boxes()
+    {
+        text_boxes.put("fps", new TextContainer(SnapPosition.BOTTOM_RIGHT, "-", 100, 150, .75f));
+        slots.add("fps", 250);
+        slots.bind(text_boxes);
+    }
+
+    @Test
+    void formats_fixed_decimal_places()
+    {
+        assertEquals("3.14", format(3.14159, 2));
+        assertEquals("42", format(42.4, 0));
+        assertEquals("-7.250", format(-7.25, 3));
+        assertEquals("0.05", format(0.05, 2));
+    }
+
+    @Test
+    void rounding_carries_into_the_whole_part()
+    {
+        assertEquals("10.00", format(9.9999, 2));
+        assertEquals("1.00", format(0.995, 2));
+        assertEquals("-100.0", format(-99.96, 1));
+        // 9.995 is stored as 9.99499999..., so it correctly rounds down rather than carrying
+        assertEquals("9.99", format(9.995, 2));
+    }
+
+    @Test
+    void negatives_that_round_to_zero_have_no_sign()
+    {
+        assertEquals("0.00", format(-0.004, 2));
+        assertEquals("0.00", format(-0.0, 2));
+        assertEquals("0", format(-0.4, 0));
+        assertEquals("-0.01", format(-0.005, 2));
+    }
+
+    @Test
+    void short_buffers_drop_decimal_places_and_never_whole_digits()
+    {
+        assertEquals("123.4", format(123.456, 3, 5));
+        assertEquals("123", format(123.456, 3, 4));
+        assertEquals("123", format(123.456, 3, 3));
+        assertEquals("-12", format(-12.5, 2, 3));
+        assertEquals("OVF", format(12345.0, 1, 4));
+    }
+
+    @Test
+    void special_values_are_named()
+    {
+        assertEquals("NaN", format(Double.NaN, 2));
+        assertEquals("Inf", format(Double.POSITIVE_INFINITY, 2));
+        assertEquals("-Inf", format(Double.NEGATIVE_INFINITY, 2));
+        assertEquals("OVF", format(1e300, 2));
+        assertEquals("OVF", format(-1e17, 3));
+    }
+
+    @Test
+    void held_update_is_shown_by_flush_once_the_interval_passes()
+    {
+        long now = 1_000 * MS;
+        assertTrue(slots.set(0, 60.0, 1, now));
+        assertEquals("60.0", text_boxes.get("fps").message());
+
+        // too soon, so both are held and only the last is kept
+        assertFalse(slots.set(0, 59.0, 1, now + 10 * MS));
+        assertFalse(slots.set(0, 58.5, 1, now + 20 * MS));
+        assertTrue(slots.pending());
+        assertEquals("60.0", text_boxes.get("fps").message());
+
+        assertFalse(slots.flush(now + 249 * MS));
+        assertEquals("60.0", text_boxes.get("fps").message());
+
+        assertTrue(slots.flush(now + 250 * MS));
+        assertFalse(slots.pending());
+        assertEquals("58.5", text_boxes.get("fps").message());
+        assertFalse(slots.flush(now + 1_000 * MS));
+    }
+
+    @Test
+    void unchanged_text_does_not_replace_the_container()
+    {
+        long now = 1_000 * MS;
+        assertTrue(slots.set(0, "ready", now));
+        var shown = text_boxes.get("fps");
+        assertFalse(slots.set(0, "ready", now + 300 * MS));
+        assertSame(shown, text_boxes.get("fps"));
+        assertEquals(SnapPosition.BOTTOM_RIGHT, shown.snap());
+    }
+}
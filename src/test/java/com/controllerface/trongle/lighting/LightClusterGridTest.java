@@ -0,0 +1,192 @@
+package com.controllerface.trongle.lighting;
+
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Checks grid builds against a brute force search: sample points are placed throughout the frustum, the cell each
+/// falls in is found the way the model shader finds it, and every light whose sphere holds the point must be listed
+/// in that cell.
+class LightClusterGridTest
+{
+    private static final int TILES_X = 16;
+    private static final int TILES_Y = 9;
+    private static final int SLICES = 24;
+    private static final int MAX_PER_CELL = 1024;
+
+    private static final float NEAR = 0.5f;
+    private static final float FAR = 1000.0f;
+    private static final float CLUSTER_NEAR = 2.0f;
+    private static final float CLUSTER_FAR = 600.0f;
+
+    /// Samples closer than this to a tile or slice boundary are skipped, as rounding may put them on either side.
+    private static final double EDGE = 1e-3;
+
+    private final Matrix4f projection =
+        new Matrix4f().perspective((float) Math.toRadians(70.0), 16.0f / 9.0f, NEAR, FAR);
+    private final Matrix4f view = new Matrix4f().rotateX(0.3f).rotateY(-1.1f).translate(-40.0f, -12.0f, 25.0f);
+    private final Matrix4f inverse_view = view.invert(new Matrix4f());
+
+    private final ForkJoinPool serial_pool = new ForkJoinPool(1);
+    private final ForkJoinPool parallel_pool = new ForkJoinPool(4);
+
+    private LightClusterGrid serial;
+    private LightClusterGrid parallel;
+
+    @BeforeEach
+    void create_grids()
+    {
+        serial = new LightClusterGrid(TILES_X, TILES_Y, SLICES, MAX_PER_CELL, serial_pool);
+        parallel = new LightClusterGrid(TILES_X, TILES_Y, SLICES, MAX_PER_CELL, parallel_pool);
+        serial.set_projection(projection, CLUSTER_NEAR, CLUSTER_FAR);
+        parallel.set_projection(projection, CLUSTER_NEAR, CLUSTER_FAR);
+    }
+
+    @AfterEach
+    void shutdown_pools()
+    {
+        serial_pool.shutdown();
+        parallel_pool.shutdown();
+    }
+
+    @Test
+    void every_light_reaching_a_point_is_listed_in_its_cell()
+    {
+        var random = new SplittableRandom(7);
+        float[] points = random_spheres(random, 3000);
+        float[] spots = random_spheres(random, 1000);
+        serial.build(view, points, 3000, spots, 1000);
+        assertEquals(0, serial.dropped());
+
+        int checked = 0;
+        var view_point = new Vector3f();
+        var world_point = new Vector3f();
+        for (int sample = 0; sample < 20000; sample++)
+        {
+            double grid_x = random.nextDouble(TILES_X);
+            double grid_y = random.nextDouble(TILES_Y);
+            double grid_z = random.nextDouble(SLICES);
+            if (near_edge(grid_x) || near_edge(grid_y) || near_edge(grid_z)) continue;
+
+            // back from grid coordinates to a view space point, using the shader's slice mapping within the
+            // clustered range and the projection's own planes past either end of it
+            float ndc_x = (float) (grid_x / TILES_X * 2.0 - 1.0);
+            float ndc_y = (float) (grid_y / TILES_Y * 2.0 - 1.0);
+            float depth = (float) (serial.near() * Math.pow(serial.far() / serial.near(), grid_z / SLICES));
+            if (grid_z < 1.0 && random.nextBoolean()) depth = (float) random.nextDouble(NEAR, serial.near());
+            if (grid_z > SLICES - 1 && random.nextBoolean()) depth = (float) random.nextDouble(serial.far(), FAR);
+            view_point.set((ndc_x + projection.m20()) * depth / projection.m00(),
+                (ndc_y + projection.m21()) * depth / projection.m11(),
+                -depth);
+            inverse_view.transformPosition(view_point, world_point);
+
+            int cell = ((int) grid_z * TILES_Y + (int) grid_y) * TILES_X + (int) grid_x;
+            int offset = serial.cells()[cell * 2];
+            int point_count = serial.cells()[cell * 2 + 1] & 0xFFFF;
+            int spot_count = serial.cells()[cell * 2 + 1] >>> 16;
+            int[] listed_points = Arrays.copyOfRange(serial.lights(), offset, offset + point_count);
+            int[] listed_spots = Arrays.copyOfRange(serial.lights(), offset + point_count,
+                offset + point_count + spot_count);
+
+            checked += assert_listed(points, 3000, world_point, listed_points, cell);
+            checked += assert_listed(spots, 1000, world_point, listed_spots, cell);
+        }
+        assertTrue(checked > 1000, "too few lit samples to be meaningful: " + checked);
+    }
+
+    @Test
+    void cell_lists_do_not_depend_on_parallelism()
+    {
+        var random = new SplittableRandom(11);
+        float[] points = random_spheres(random, 5000);
+        float[] spots = random_spheres(random, 2000);
+        serial.build(view, points, 5000, spots, 2000);
+        parallel.build(view, points, 5000, spots, 2000);
+
+        assertArrayEquals(serial.cells(), parallel.cells());
+        assertEquals(serial.light_count(), parallel.light_count());
+        assertArrayEquals(Arrays.copyOf(serial.lights(), serial.light_count()),
+            Arrays.copyOf(parallel.lights(), parallel.light_count()));
+    }
+
+    @Test
+    void full_cells_drop_and_count_the_excess()
+    {
+        var grid = new LightClusterGrid(TILES_X, TILES_Y, SLICES, 4, serial_pool);
+        grid.set_projection(projection, CLUSTER_NEAR, CLUSTER_FAR);
+        var random = new SplittableRandom(3);
+        float[] points = random_spheres(random, 2000);
+        grid.build(view, points, 2000, new float[0], 0);
+        serial.build(view, points, 2000, new float[0], 0);
+
+        int expected_dropped = 0;
+        for (int cell = 0; cell < grid.cell_count(); cell++)
+        {
+            int full = serial.cells()[cell * 2 + 1] & 0xFFFF;
+            int kept = grid.cells()[cell * 2 + 1] & 0xFFFF;
+            assertEquals(Math.min(full, 4), kept);
+            expected_dropped += full - kept;
+        }
+        assertTrue(expected_dropped > 0);
+        assertEquals(expected_dropped, grid.dropped());
+    }
+
+    @Test
+    void lights_without_a_radius_are_skipped()
+    {
+        float[] points = { 0.0f, 0.0f, 0.0f, 0.0f, 10.0f, 0.0f, 0.0f, -5.0f };
+        serial.build(view, points, 2, new float[0], 0);
+        assertEquals(0, serial.light_count());
+    }
+
+    /// Checks each light holding the point is listed, and returns how many did.
+    private static int assert_listed(float[] spheres, int count, Vector3f point, int[] listed, int cell)
+    {
+        int holding = 0;
+        for (int i = 0; i < count; i++)
+        {
+            float radius = spheres[i * 4 + 3];
+            if (radius <= 0.0f) continue;
+            float distance = point.distance(spheres[i * 4], spheres[i * 4 + 1], spheres[i * 4 + 2]);
+            if (distance > radius * 0.999f) continue;
+
+            holding++;
+            int light = i;
+            assertTrue(Arrays.stream(listed).anyMatch(l -> l == light),
+                "light " + i + " reaches " + point + " but is not listed in cell " + cell);
+        }
+        return holding;
+    }
+
+    private boolean near_edge(double grid_coordinate)
+    {
+        double fraction = grid_coordinate - Math.floor(grid_coordinate);
+        return fraction < EDGE || fraction > 1.0 - EDGE;
+    }
+
+    /// Spheres scattered around the camera, mostly in front of it, some with no radius.
+    private float[] random_spheres(SplittableRandom random, int count)
+    {
+        var spheres = new float[count * 4];
+        var center = new Vector3f();
+        for (int i = 0; i < count; i++)
+        {
+            inverse_view.transformPosition(center.set((float) random.nextDouble(-400.0, 400.0),
+                (float) random.nextDouble(-200.0, 200.0),
+                (float) random.nextDouble(-900.0, 50.0)));
+            spheres[i * 4]     = center.x;
+            spheres[i * 4 + 1] = center.y;
+            spheres[i * 4 + 2] = center.z;
+            spheres[i * 4 + 3] = random.nextInt(10) == 0 ? 0.0f : (float) random.nextDouble(2.0, 60.0);
+        }
+        return spheres;
+    }
+}
@@ -0,0 +1,91 @@
+package com.controllerface.trongle.main;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Checks that a failed mode load is reported once and then retried, rather than blocking every later attempt.
+class ModeLoadTest
+{
+    private final ModeLoad load = new ModeLoad();
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Test
+    void failed_first_load_can_be_retried()
+    {
+        var first = new CompletableFuture<Void>();
+        assertTrue(load.start(() ->
+        {
+            attempts.incrementAndGet();
+            return first.copy();
+        }));
+        assertTrue(load.started());
+        assertNull(load.take_failure(), "a load still running has not failed");
+
+        var cause = new IllegalStateException("models missing");
+        first.completeExceptionally(cause);
+        assertFalse(load.loaded());
+        assertSame(cause, load.take_failure());
+        assertFalse(load.started());
+        assertNull(load.take_failure(), "a failure is only reported once");
+
+        assertTrue(load.start(() ->
+        {
+            attempts.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }));
+        assertTrue(load.loaded());
+        assertNull(load.take_failure());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void load_that_throws_before_returning_is_a_failure()
+    {
+        var cause = new IllegalStateException("no GL context");
+        assertTrue(load.start(() -> { throw cause; }));
+        assertTrue(load.started());
+        assertFalse(load.loaded());
+        assertSame(cause, load.take_failure());
+        assertFalse(load.started());
+    }
+
+    @Test
+    void load_in_progress_or_done_is_not_started_again()
+    {
+        var pending = new CompletableFuture<Void>();
+        assertTrue(load.start(() ->
+        {
+            attempts.incrementAndGet();
+            return pending;
+        }));
+        assertFalse(load.start(() ->
+        {
+            attempts.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }));
+
+        pending.complete(null);
+        assertTrue(load.loaded());
+        assertFalse(load.start(CompletableFuture::new));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void reset_load_is_loaded_again()
+    {
+        load.start(() -> CompletableFuture.completedFuture(null));
+        load.reset();
+        assertFalse(load.started());
+        assertFalse(load.loaded());
+        assertTrue(load.start(() ->
+        {
+            attempts.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }));
+        assertEquals(1, attempts.get());
+    }
+}
@@ -0,0 +1,137 @@
+package com.controllerface.trongle.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Checks reported percentiles against exact ones from sorted samples, within the histogram's stated error: never below
+/// the true value, and at most 1/16 above it.
+class LatencyHistogramTest
+{
+    private static final double MAX_RELATIVE_ERROR = 1.0 / 16.0;
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    private static void assert_within_error(long expected, long reported, String what)
+    {
+        assertTrue(reported >= expected, what + " reported " + reported + " below the true " + expected);
+        assertTrue(reported <= expected + expected * MAX_RELATIVE_ERROR,
+            what + " reported " + reported + ", more than 1/16 above the true " + expected);
+    }
+
+    /// The value at the given percentile of sorted samples, using the same nearest-rank definition as the histogram.
+    private static long exact_percentile(long[] sorted, double percentile)
+    {
+        int rank = (int) Math.ceil(sorted.length * (percentile / 100.0));
+        return sorted[Math.max(1, Math.min(sorted.length, rank)) - 1];
+    }
+
+    private void assert_matches(long[] samples)
+    {
+        for (long sample : samples)
+        {
+            histogram.record(sample);
+        }
+        var sorted = samples.clone();
+        Arrays.sort(sorted);
+
+        assertEquals(samples.length, histogram.count());
+        assertEquals(sorted[0], histogram.min());
+        assertEquals(sorted[sorted.length - 1], histogram.max());
+        assertEquals(Arrays.stream(samples).average().orElseThrow(), histogram.mean(), 1e-6);
+        for (double percentile : new double[]{ 50.0, 90.0, 99.0, 99.9 })
+        {
+            assert_within_error(exact_percentile(sorted, percentile), histogram.percentile(percentile),
+                "p" + percentile);
+        }
+    }
+
+    @Test
+    void empty_histogram_reports_zero()
+    {
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.min());
+        assertEquals(0, histogram.max());
+        assertEquals(0.0, histogram.mean());
+        assertEquals(0, histogram.percentile(99.0));
+    }
+
+    @Test
+    void values_below_the_sub_bucket_count_are_exact()
+    {
+        for (long value = 1; value <= 15; value++)
+        {
+            histogram.record(value);
+        }
+        assertEquals(8, histogram.percentile(50.0));
+        assertEquals(15, histogram.percentile(99.0));
+        assertEquals(1, histogram.min());
+        assertEquals(15, histogram.max());
+    }
+
+    @Test
+    void uniform_distribution()
+    {
+        var samples = new long[100_000];
+        for (int i = 0; i < samples.length; i++)
+        {
+            samples[i] = i + 1;
+        }
+        assert_matches(samples);
+        assert_within_error(50_000, histogram.percentile(50.0), "p50");
+        assert_within_error(99_000, histogram.percentile(99.0), "p99");
+    }
+
+    /// Frame-like timings: mostly around a millisecond, with a long tail of spikes up to a second.
+    @Test
+    void long_tailed_distribution()
+    {
+        var random = new SplittableRandom(5);
+        var samples = new long[200_000];
+        for (int i = 0; i < samples.length; i++)
+        {
+            double base = 1_000_000 * Math.exp(random.nextGaussian() * 0.25);
+            samples[i] = random.nextInt(100) == 0
+                ? (long) (base * random.nextDouble(2.0, 1000.0))
+                : (long) base;
+        }
+        assert_matches(samples);
+    }
+
+    @Test
+    void any_single_value_is_reported_within_the_error_bound()
+    {
+        var random = new SplittableRandom(9);
+        for (int i = 0; i < 10_000; i++)
+        {
+            // spread evenly over magnitudes, from nanoseconds to about eighteen minutes
+            long value = (long) Math.pow(2.0, random.nextDouble(0.0, 40.0));
+            histogram.reset();
+            histogram.record(value);
+            assert_within_error(value, histogram.percentile(50.0), "single value");
+            assertEquals(value, histogram.min());
+            assertEquals(value, histogram.max());
+        }
+    }
+
+    @Test
+    void copy_and_reset()
+    {
+        for (long value = 100; value < 10_000; value += 7)
+        {
+            histogram.record(value);
+        }
+        var copy = new LatencyHistogram();
+        histogram.copy_into(copy);
+        histogram.reset();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.min());
+        assertEquals(100, copy.min());
+        assertEquals(9_998, copy.max());
+        assert_within_error(5_049, copy.percentile(50.0), "copied p50");
+    }
+}